@@ -0,0 +1,24 @@
+package src.pas.pokemon.agents;
+
+import edu.bu.pas.pokemon.core.Move.MoveView;
+import edu.bu.pas.pokemon.utils.Pair;
+
+import java.util.concurrent.Callable;
+
+/**
+ * A move search that can be stopped at any time and still give an answer
+ * - call() runs the full search and returns the move with its duration in ms
+ * - getBestMoveSoFar() is safe to read from another thread while call() runs
+ */
+public interface AnytimeSearcher extends Callable<Pair<MoveView, Long>> {
+
+    /**
+     * Best move found so far, or null if the search has not produced one yet
+     */
+    MoveView getBestMoveSoFar();
+
+    /**
+     * Ask the search to wind down as soon as possible
+     */
+    void stop();
+}
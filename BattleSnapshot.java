@@ -0,0 +1,258 @@
+package src.pas.pokemon.agents;
+
+import edu.bu.pas.pokemon.core.Battle.BattleView;
+import edu.bu.pas.pokemon.core.Pokemon.PokemonView;
+import edu.bu.pas.pokemon.core.Team.TeamView;
+import edu.bu.pas.pokemon.core.enums.Flag;
+import edu.bu.pas.pokemon.core.enums.NonVolatileStatus;
+import edu.bu.pas.pokemon.core.enums.Stat;
+import edu.bu.pas.pokemon.core.enums.Type;
+
+/**
+ * Compact, immutable copy of the battle state the search reads, in one int[]
+ * - Taken once per node from the BattleView; evaluation and hashing read the array
+ *   instead of going through TeamView/PokemonView getters
+ * - Per team: the active Pokémon (HP, max HP, ATK/DEF/SPD as currently modified,
+ *   status, volatile flags, types, species), the team's remaining count and HP totals,
+ *   then HP, max HP and status of every Pokémon
+ * - The BattleView itself is still needed to simulate moves (getPotentialEffects)
+ * - The one mutable part is the usable-move mask of each active Pokémon, filled by
+ *   MoveIndex the first time it is asked (racing threads write the same value)
+ */
+public final class BattleSnapshot {
+
+    // Active Pokémon fields, at the start of each team's block
+    private static final int ACTIVE_HP = 0;
+    private static final int ACTIVE_MAX_HP = 1;
+    private static final int ACTIVE_ATK = 2;
+    private static final int ACTIVE_DEF = 3;
+    private static final int ACTIVE_SPD = 4;
+    private static final int ACTIVE_STATUS = 5;
+    private static final int ACTIVE_FLAGS = 6;
+    private static final int ACTIVE_TYPES = 7;
+    private static final int ACTIVE_NAME = 8;
+    private static final int TEAM_SIZE = 9;
+    private static final int REMAINING = 10;
+    private static final int ALIVE_HP = 11;        // HP summed over the Pokémon that haven't fainted
+    private static final int ALIVE_MAX_HP = 12;    // Max HP summed over the same Pokémon
+    private static final int POKEMON_BASE = 13;
+
+    // Per Pokémon fields after the active block
+    private static final int POKEMON_HP = 0;
+    private static final int POKEMON_MAX_HP = 1;
+    private static final int POKEMON_STATUS = 2;   // Status ordinal, FAINTED_BIT when fainted
+    private static final int POKEMON_FIELDS = 3;
+
+    // Bits in ACTIVE_FLAGS and POKEMON_STATUS
+    private static final int CONFUSED_BIT = 1;
+    private static final int SEEDED_BIT = 2;
+    private static final int FAINTED_BIT = 1 << 8;
+
+    // Move mask not read yet (see MoveIndex)
+    public static final int UNKNOWN_MOVES = -1;
+
+    private static final NonVolatileStatus[] STATUSES = NonVolatileStatus.values();
+    private static final Type[] TYPES = Type.values();
+
+    private final int[] data;
+    private final int stride;
+    private final boolean over;
+    private final int[] availableMoves = { UNKNOWN_MOVES, UNKNOWN_MOVES };
+
+    private BattleSnapshot(int[] data, int stride, boolean over) {
+        this.data = data;
+        this.stride = stride;
+        this.over = over;
+    }
+
+    /**
+     * Read everything the search needs from a BattleView
+     */
+    public static BattleSnapshot of(BattleView battleView) {
+        TeamView team0 = battleView.getTeamView(0);
+        TeamView team1 = battleView.getTeamView(1);
+        int stride = POKEMON_BASE + POKEMON_FIELDS * Math.max(team0.size(), team1.size());
+
+        int[] data = new int[2 * stride];
+        fillTeam(data, 0, team0);
+        fillTeam(data, stride, team1);
+        return new BattleSnapshot(data, stride, battleView.isOver());
+    }
+
+    /**
+     * A snapshot from raw fields instead of a BattleView, for the JMH benchmarks (they have
+     * no battle to read)
+     * - Per team t: hp[t][i], maxHp[t][i] and status[t][i] (a NonVolatileStatus ordinal) of
+     *   each Pokémon, one at 0 HP having fainted; active[t] is the active one, with ATK, DEF
+     *   and SPD stats[t] and types types[t] (the second may be null)
+     * - Over when a team has no Pokémon standing
+     */
+    static BattleSnapshot of(int[][] hp, int[][] maxHp, int[][] status, int[] active, int[][] stats, Type[][] types) {
+        int stride = POKEMON_BASE + POKEMON_FIELDS * Math.max(hp[0].length, hp[1].length);
+        int[] data = new int[2 * stride];
+        boolean over = false;
+        for (int t = 0; t < 2; t++) {
+            int base = t * stride;
+            int a = active[t];
+            data[base + ACTIVE_HP] = hp[t][a];
+            data[base + ACTIVE_MAX_HP] = maxHp[t][a];
+            data[base + ACTIVE_ATK] = stats[t][0];
+            data[base + ACTIVE_DEF] = stats[t][1];
+            data[base + ACTIVE_SPD] = stats[t][2];
+            data[base + ACTIVE_STATUS] = status[t][a] | (hp[t][a] == 0 ? FAINTED_BIT : 0);
+            data[base + ACTIVE_TYPES] = typeCode(types[t][0]) | (typeCode(types[t][1]) << 8);
+            data[base + ACTIVE_NAME] = a;
+            data[base + TEAM_SIZE] = hp[t].length;
+
+            int remaining = 0;
+            int aliveHp = 0;
+            int aliveMaxHp = 0;
+            for (int i = 0; i < hp[t].length; i++) {
+                int p = base + POKEMON_BASE + i * POKEMON_FIELDS;
+                boolean fainted = hp[t][i] == 0;
+                data[p + POKEMON_HP] = hp[t][i];
+                data[p + POKEMON_MAX_HP] = maxHp[t][i];
+                data[p + POKEMON_STATUS] = status[t][i] | (fainted ? FAINTED_BIT : 0);
+                if (!fainted) {
+                    remaining++;
+                    aliveHp += hp[t][i];
+                    aliveMaxHp += maxHp[t][i];
+                }
+            }
+            data[base + REMAINING] = remaining;
+            data[base + ALIVE_HP] = aliveHp;
+            data[base + ALIVE_MAX_HP] = aliveMaxHp;
+            over |= remaining == 0;
+        }
+        return new BattleSnapshot(data, stride, over);
+    }
+
+    private static void fillTeam(int[] data, int base, TeamView team) {
+        PokemonView active = team.getActivePokemonView();
+        data[base + ACTIVE_HP] = active.getCurrentStat(Stat.HP);
+        data[base + ACTIVE_MAX_HP] = active.getBaseStat(Stat.HP);
+        data[base + ACTIVE_ATK] = active.getCurrentStat(Stat.ATK);
+        data[base + ACTIVE_DEF] = active.getCurrentStat(Stat.DEF);
+        data[base + ACTIVE_SPD] = active.getCurrentStat(Stat.SPD);
+        data[base + ACTIVE_STATUS] = active.getNonVolatileStatus().ordinal() | (active.hasFainted() ? FAINTED_BIT : 0);
+        data[base + ACTIVE_FLAGS] = (active.getFlag(Flag.CONFUSED) ? CONFUSED_BIT : 0)
+                                  | (active.getFlag(Flag.SEEDED) ? SEEDED_BIT : 0);
+        data[base + ACTIVE_TYPES] = typeCode(active.getCurrentType1()) | (typeCode(active.getCurrentType2()) << 8);
+        data[base + ACTIVE_NAME] = active.getName().hashCode();
+        data[base + TEAM_SIZE] = team.size();
+
+        int remaining = 0;
+        int aliveHp = 0;
+        int aliveMaxHp = 0;
+        for (int i = 0; i < team.size(); i++) {
+            PokemonView pokemon = team.getPokemonView(i);
+            int p = base + POKEMON_BASE + i * POKEMON_FIELDS;
+            boolean fainted = pokemon.hasFainted();
+            data[p + POKEMON_HP] = pokemon.getCurrentStat(Stat.HP);
+            data[p + POKEMON_MAX_HP] = pokemon.getBaseStat(Stat.HP);
+            data[p + POKEMON_STATUS] = pokemon.getNonVolatileStatus().ordinal() | (fainted ? FAINTED_BIT : 0);
+            if (!fainted) {
+                remaining++;
+                aliveHp += data[p + POKEMON_HP];
+                aliveMaxHp += data[p + POKEMON_MAX_HP];
+            }
+        }
+        data[base + REMAINING] = remaining;
+        data[base + ALIVE_HP] = aliveHp;
+        data[base + ALIVE_MAX_HP] = aliveMaxHp;
+    }
+
+    private static int typeCode(Type type) {
+        return type == null ? 0 : type.ordinal() + 1;
+    }
+
+    private static Type typeOf(int code) {
+        return code == 0 ? null : TYPES[code - 1];
+    }
+
+    public boolean isOver() { return over; }
+
+    /**
+     * Approximate heap footprint in bytes (object headers plus the array)
+     */
+    public int sizeInBytes() {
+        return 24 + 16 + 4 * data.length;
+    }
+
+    // Active Pokémon
+
+    public int getActiveHp(int team) { return data[team * stride + ACTIVE_HP]; }
+    public int getActiveMaxHp(int team) { return data[team * stride + ACTIVE_MAX_HP]; }
+    public boolean hasActiveFainted(int team) { return (data[team * stride + ACTIVE_STATUS] & FAINTED_BIT) != 0; }
+    public int getActiveNameHash(int team) { return data[team * stride + ACTIVE_NAME]; }
+    public Type getActiveType1(int team) { return typeOf(data[team * stride + ACTIVE_TYPES] & 0xFF); }
+    public Type getActiveType2(int team) { return typeOf(data[team * stride + ACTIVE_TYPES] >>> 8); }
+
+    /**
+     * Both types of the active Pokémon as one int (equal ints mean equal types)
+     */
+    public int getActiveTypesCode(int team) { return data[team * stride + ACTIVE_TYPES]; }
+
+    /**
+     * Status, fainted bit and volatile flags of the active Pokémon as one int
+     */
+    public int getActiveConditionCode(int team) {
+        return data[team * stride + ACTIVE_STATUS] | (data[team * stride + ACTIVE_FLAGS] << 16);
+    }
+
+    public NonVolatileStatus getActiveStatus(int team) {
+        return STATUSES[data[team * stride + ACTIVE_STATUS] & 0xFF];
+    }
+
+    /**
+     * Current (stage-modified) ATK, DEF or SPD of the active Pokémon
+     */
+    public int getActiveStat(int team, Stat stat) {
+        int base = team * stride;
+        switch (stat) {
+            case HP:  return data[base + ACTIVE_HP];
+            case ATK: return data[base + ACTIVE_ATK];
+            case DEF: return data[base + ACTIVE_DEF];
+            case SPD: return data[base + ACTIVE_SPD];
+            default:
+                throw new IllegalArgumentException("Stat not in snapshot: " + stat);
+        }
+    }
+
+    /**
+     * CONFUSED or SEEDED on the active Pokémon
+     */
+    public boolean getActiveFlag(int team, Flag flag) {
+        int flags = data[team * stride + ACTIVE_FLAGS];
+        switch (flag) {
+            case CONFUSED: return (flags & CONFUSED_BIT) != 0;
+            case SEEDED:   return (flags & SEEDED_BIT) != 0;
+            default:
+                throw new IllegalArgumentException("Flag not in snapshot: " + flag);
+        }
+    }
+
+    /**
+     * Usable moves of the active Pokémon as a MoveIndex bitmask, or UNKNOWN_MOVES
+     */
+    public int getAvailableMoveMask(int team) { return availableMoves[team]; }
+    void setAvailableMoveMask(int team, int mask) { availableMoves[team] = mask; }
+
+    // Whole team
+
+    public int getTeamSize(int team) { return data[team * stride + TEAM_SIZE]; }
+    public int getRemaining(int team) { return data[team * stride + REMAINING]; }
+    public int getAliveHp(int team) { return data[team * stride + ALIVE_HP]; }
+    public int getAliveMaxHp(int team) { return data[team * stride + ALIVE_MAX_HP]; }
+    public int getHp(int team, int idx) { return data[pokemonBase(team, idx) + POKEMON_HP]; }
+    public int getMaxHp(int team, int idx) { return data[pokemonBase(team, idx) + POKEMON_MAX_HP]; }
+    public boolean hasFainted(int team, int idx) { return (data[pokemonBase(team, idx) + POKEMON_STATUS] & FAINTED_BIT) != 0; }
+
+    public NonVolatileStatus getStatus(int team, int idx) {
+        return STATUSES[data[pokemonBase(team, idx) + POKEMON_STATUS] & 0xFF];
+    }
+
+    private int pokemonBase(int team, int idx) {
+        return team * stride + POKEMON_BASE + idx * POKEMON_FIELDS;
+    }
+}
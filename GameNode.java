@@ -11,10 +11,10 @@ import edu.bu.pas.pokemon.core.enums.Flag;
 import edu.bu.pas.pokemon.core.enums.Type;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
-import java.util.Random;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Simplified GameNode class for Pokémon battles
@@ -38,25 +38,146 @@ public class GameNode {
     private double probability;        // Probability of reaching this node
     private double utilityValue;       // Evaluated utility of this node
     private int myTeamIdx;             // Index of our team (0 or 1)
+
+    private BattleSnapshot snapshot;   // Compact copy of the state for evaluation and hashing
+    private UtilityFeatures features;  // Utility terms of the state, derived from the parent's
+    
+    // Zobrist hashing (see ZobristHasher)
+    private long team0Features;        // Packed hashed features of team 0
+    private long team1Features;        // Packed hashed features of team 1
+    private long stateHash;            // Hash of the battle state alone
+    private long hash;                 // State hash plus node type, depth parity and last move
+    private MoveView replyMove;        // CHANCE only: the other side's move, if fixed (see withReply)
+    private MoveIndex moveIndex;       // Usable moves per state, shared by the whole tree (see MoveIndex)
+    private long tieBreakSeed;         // Speed-tie seed of the search, shared by the whole tree
     
-    // Static cache to avoid recreating move lists
-    private static final Map<String, List<MoveView>> MOVE_CACHE = new HashMap<>();
-    private static final Random RANDOM = new Random();
+    // Number of MoveView.getPotentialEffects calls made by all nodes
+    private static final LongAdder POTENTIAL_EFFECTS_CALLS = new LongAdder();
     
-    // Constructor
+    // Speed-tie seed of trees whose searcher gives none. Ties are decided from the state hash
+    // and the tree's seed instead of a shared Random, so the outcome does not depend on which
+    // thread expands a node first
+    public static final long DEFAULT_TIE_BREAK_SEED = 0x9E3779B97F4A7C15L;
+    
+    /**
+     * Root of a standalone tree, with a move index of its own
+     */
     public GameNode(BattleView battleView, NodeType type, int depth, MoveView lastMove, 
                    double probability, int myTeamIdx) {
+        this(battleView, type, depth, lastMove, probability, myTeamIdx, new MoveIndex());
+    }
+    
+    /**
+     * Root of a search tree whose move lists come from the searching agent's index
+     */
+    public GameNode(BattleView battleView, NodeType type, int depth, MoveView lastMove, 
+                   double probability, int myTeamIdx, MoveIndex moveIndex) {
+        this(battleView, type, depth, lastMove, probability, myTeamIdx, moveIndex, DEFAULT_TIE_BREAK_SEED);
+    }
+    
+    /**
+     * Root of a search tree with the searching agent's index and tie-break seed
+     * - Every node below it inherits both
+     */
+    public GameNode(BattleView battleView, NodeType type, int depth, MoveView lastMove, 
+                   double probability, int myTeamIdx, MoveIndex moveIndex, long tieBreakSeed) {
         this.battleView = battleView;
         this.type = type;
         this.depth = depth;
         this.lastMove = lastMove;
         this.probability = probability;
         this.myTeamIdx = myTeamIdx;
+        this.moveIndex = moveIndex;
+        this.tieBreakSeed = tieBreakSeed;
         this.utilityValue = 0.0;
+        
+        // Root nodes hash the state from scratch
+        this.snapshot = BattleSnapshot.of(battleView);
+        this.features = UtilityFeatures.of(snapshot, myTeamIdx);
+        this.team0Features = ZobristHasher.packTeam(snapshot, 0);
+        this.team1Features = ZobristHasher.packTeam(snapshot, 1);
+        this.stateHash = ZobristHasher.teamKey(0, team0Features) ^ ZobristHasher.teamKey(1, team1Features);
+        this.hash = stateHash ^ ZobristHasher.nodeKey(type, depth, lastMove);
+    }
+    
+    /**
+     * Child constructor - derives the hash incrementally from the parent
+     */
+    private GameNode(GameNode parent, BattleView battleView, NodeType type, MoveView lastMove,
+                     double probability) {
+        this.battleView = battleView;
+        this.type = type;
+        this.depth = parent.depth + 1;
+        this.lastMove = lastMove;
+        this.probability = probability;
+        this.myTeamIdx = parent.myTeamIdx;
+        this.moveIndex = parent.moveIndex;
+        this.tieBreakSeed = parent.tieBreakSeed;
+        this.utilityValue = 0.0;
+        
+        if (battleView == parent.battleView) {
+            // Same state (MAX/MIN -> CHANCE), nothing to rehash
+            this.snapshot = parent.snapshot;
+            this.features = parent.features;
+            this.team0Features = parent.team0Features;
+            this.team1Features = parent.team1Features;
+            this.stateHash = parent.stateHash;
+        } else {
+            this.snapshot = BattleSnapshot.of(battleView);
+            this.features = parent.features.derive(snapshot);
+            this.team0Features = ZobristHasher.packTeam(snapshot, 0);
+            this.team1Features = ZobristHasher.packTeam(snapshot, 1);
+            long updated = ZobristHasher.updateTeam(parent.stateHash, 0, parent.team0Features, team0Features);
+            this.stateHash = ZobristHasher.updateTeam(updated, 1, parent.team1Features, team1Features);
+        }
+        this.hash = stateHash ^ ZobristHasher.nodeKey(type, depth, lastMove);
+    }
+    
+    /**
+     * Copy of this node with a different probability (keeps the hash)
+     */
+    public GameNode withProbability(double probability) {
+        GameNode copy = new GameNode(battleView, type, depth, lastMove, probability, myTeamIdx, moveIndex,
+                                     snapshot, team0Features, team1Features, stateHash, hash);
+        copy.utilityValue = this.utilityValue;
+        copy.features = this.features;
+        copy.tieBreakSeed = this.tieBreakSeed;
+        return copy;
+    }
+    
+    /**
+     * Copy of this CHANCE node where the other side plays the given move instead of
+     * its best move by evaluateMove
+     * - Used to predict the states after each likely reply; the copy keeps the hash,
+     *   so do not search it through a transposition table
+     */
+    public GameNode withReply(MoveView reply) {
+        GameNode copy = withProbability(this.probability);
+        copy.replyMove = reply;
+        return copy;
+    }
+    
+    private GameNode(BattleView battleView, NodeType type, int depth, MoveView lastMove,
+                     double probability, int myTeamIdx, MoveIndex moveIndex, BattleSnapshot snapshot,
+                     long team0Features, long team1Features, long stateHash, long hash) {
+        this.battleView = battleView;
+        this.type = type;
+        this.depth = depth;
+        this.lastMove = lastMove;
+        this.probability = probability;
+        this.myTeamIdx = myTeamIdx;
+        this.moveIndex = moveIndex;
+        this.snapshot = snapshot;
+        this.team0Features = team0Features;
+        this.team1Features = team1Features;
+        this.stateHash = stateHash;
+        this.hash = hash;
     }
     
     // Getters
     public BattleView getBattleView() { return battleView; }
+    public BattleSnapshot getSnapshot() { return snapshot; }
+    public UtilityFeatures getUtilityFeatures() { return features; }
     public NodeType getType() { return type; }
     public int getDepth() { return depth; }
     public MoveView getLastMove() { return lastMove; }
@@ -64,6 +185,11 @@ public class GameNode {
     public double getUtilityValue() { return utilityValue; }
     public void setUtilityValue(double utilityValue) { this.utilityValue = utilityValue; }
     public int getMyTeamIdx() { return myTeamIdx; }
+    public long getHash() { return hash; }
+    public long getStateHash() { return stateHash; }
+    public long getTieBreakSeed() { return tieBreakSeed; }
+    public MoveIndex getMoveIndex() { return moveIndex; }
+    public static long getPotentialEffectsCalls() { return POTENTIAL_EFFECTS_CALLS.sum(); }
 
     /**
      * Determines if this node is a terminal state
@@ -73,23 +199,11 @@ public class GameNode {
     }
     
     /**
-     * Get cached available moves for a Pokémon
+     * Get cached available moves for a team's active Pokémon
+     * - Read from the library once per state, then from the move index
      */
-    private List<MoveView> getCachedMoves(PokemonView pokemon) {
-        String cacheKey = pokemon.getName() + "_" + pokemon.getCurrentStat(Stat.HP);
-        
-        // Check cache first
-        if (MOVE_CACHE.containsKey(cacheKey)) {
-            return MOVE_CACHE.get(cacheKey);
-        }
-        
-        // Cache miss - get available moves
-        List<MoveView> availableMoves = pokemon.getAvailableMoves();
-        
-        // Store in cache
-        MOVE_CACHE.put(cacheKey, availableMoves);
-        
-        return availableMoves;
+    private List<MoveView> getCachedMoves(int teamIdx, PokemonView pokemon) {
+        return moveIndex.getAvailableMoves(snapshot, teamIdx, pokemon);
     }
     
     /**
@@ -132,7 +246,7 @@ public class GameNode {
         PokemonView opponentPokemon = battleView.getTeamView(1 - myTeamIdx).getActivePokemonView();
         
         // Get available moves
-        List<MoveView> availableMoves = getCachedMoves(activePokemon);
+        List<MoveView> availableMoves = getCachedMoves(myTeamIdx, activePokemon);
         
         // Early return if no moves available
         if (availableMoves.isEmpty()) {
@@ -142,33 +256,8 @@ public class GameNode {
         // Maximum moves to consider for performance
         final int MAX_MOVES = Math.min(3, availableMoves.size());
         
-        // Evaluate moves and sort by potential
-        Map<MoveView, Double> moveScores = new HashMap<>();
-        for (MoveView move : availableMoves) {
-            double score = UtilityCalculator.evaluateMove(move, activePokemon, opponentPokemon);
-            moveScores.put(move, score);
-        }
-        
-        // Sort moves by score (descending)
-        List<MoveView> sortedMoves = new ArrayList<>(availableMoves);
-        sortedMoves.sort((m1, m2) -> Double.compare(moveScores.getOrDefault(m2, 0.0), 
-                                                   moveScores.getOrDefault(m1, 0.0)));
-        
-        // Create CHANCE nodes for top moves only
-        for (int i = 0; i < MAX_MOVES; i++) {
-            if (i >= sortedMoves.size()) break;
-            
-            MoveView move = sortedMoves.get(i);
-            GameNode chanceNode = new GameNode(
-                battleView,
-                NodeType.CHANCE,
-                depth + 1,
-                move,
-                1.0,
-                myTeamIdx
-            );
-            children.add(chanceNode);
-        }
+        // Create CHANCE nodes for the top moves by heuristic score only
+        addTopMoves(children, availableMoves, activePokemon, opponentPokemon, MAX_MOVES);
     }
     
     /**
@@ -181,7 +270,7 @@ public class GameNode {
         PokemonView ourPokemon = battleView.getTeamView(myTeamIdx).getActivePokemonView();
         
         // Get opponent's available moves
-        List<MoveView> availableMoves = getCachedMoves(opponentPokemon);
+        List<MoveView> availableMoves = getCachedMoves(1 - myTeamIdx, opponentPokemon);
         
         // Early return if no moves available
         if (availableMoves.isEmpty()) {
@@ -191,41 +280,90 @@ public class GameNode {
         // Maximum moves to consider for performance
         final int MAX_MOVES = Math.min(2, availableMoves.size());
         
-        // Quick evaluation of opponent moves
-        Map<MoveView, Double> moveScores = new HashMap<>();
-        for (MoveView move : availableMoves) {
-            double score = UtilityCalculator.evaluateMove(move, opponentPokemon, ourPokemon);
-            moveScores.put(move, score);
-        }
-        
-        // Sort moves by score (descending) - opponent wants to use their best moves
-        List<MoveView> sortedMoves = new ArrayList<>(availableMoves);
-        sortedMoves.sort((m1, m2) -> Double.compare(moveScores.getOrDefault(m2, 0.0), 
-                                                   moveScores.getOrDefault(m1, 0.0)));
+        // Create CHANCE nodes for the top moves by heuristic score only
+        addTopMoves(children, availableMoves, opponentPokemon, ourPokemon, MAX_MOVES);
+    }
+    
+    /**
+     * The opponent's most likely moves in this state, best first, in the same order
+     * generateMinNodeChildren considers them
+     */
+    public List<MoveView> getLikelyReplies(int count) {
+        PokemonView opponentPokemon = battleView.getTeamView(1 - myTeamIdx).getActivePokemonView();
+        PokemonView ourPokemon = battleView.getTeamView(myTeamIdx).getActivePokemonView();
+        List<MoveView> availableMoves = getCachedMoves(1 - myTeamIdx, opponentPokemon);
         
-        // Create CHANCE nodes for top moves only
-        for (int i = 0; i < MAX_MOVES; i++) {
-            if (i >= sortedMoves.size()) break;
-            
-            MoveView move = sortedMoves.get(i);
-            GameNode chanceNode = new GameNode(
-                battleView,
-                NodeType.CHANCE,
-                depth + 1,
-                move,
-                1.0,
-                myTeamIdx
-            );
+        List<MoveView> replies = new ArrayList<>();
+        if (availableMoves.isEmpty()) {
+            return replies;
+        }
+        int[] top = selectTopMoves(availableMoves, opponentPokemon, ourPokemon, Math.min(count, availableMoves.size()));
+        for (int idx : top) {
+            replies.add(availableMoves.get(idx));
+        }
+        return replies;
+    }
+    
+    /**
+     * Create CHANCE children for the k best moves by UtilityCalculator.evaluateMove
+     */
+    private void addTopMoves(List<GameNode> children, List<MoveView> availableMoves,
+                             PokemonView attacker, PokemonView defender, int k) {
+        for (int idx : selectTopMoves(availableMoves, attacker, defender, k)) {
+            MoveView move = availableMoves.get(idx);
+            GameNode chanceNode = new GameNode(this, battleView, NodeType.CHANCE, move, 1.0);
             children.add(chanceNode);
         }
     }
     
+    /**
+     * Indices of the k best moves by UtilityCalculator.evaluateMove, best first
+     * - Top-k selection over a primitive score array instead of a map and a full sort
+     * - Ties keep the order of availableMoves, same as the stable sort this replaces
+     */
+    private static int[] selectTopMoves(List<MoveView> availableMoves, PokemonView attacker,
+                                        PokemonView defender, int k) {
+        int[] top = new int[k];
+        double[] topScores = new double[k];
+        int filled = 0;
+        
+        for (int m = 0; m < availableMoves.size(); m++) {
+            double score = UtilityCalculator.evaluateMove(availableMoves.get(m), attacker, defender);
+            
+            // Insert after any equal score so earlier moves win ties
+            int pos = filled;
+            while (pos > 0 && topScores[pos - 1] < score) {
+                pos--;
+            }
+            if (pos >= k) {
+                continue;
+            }
+            for (int j = Math.min(filled, k - 1); j > pos; j--) {
+                top[j] = top[j - 1];
+                topScores[j] = topScores[j - 1];
+            }
+            top[pos] = m;
+            topScores[pos] = score;
+            filled = Math.min(filled + 1, k);
+        }
+        return (filled == k) ? top : Arrays.copyOf(top, filled);
+    }
+    
     /**
      * Generate children for CHANCE nodes
      * - Handles move execution and outcomes
      * - Greatly simplified from original version
      */
     private void generateChanceNodeChildren(List<GameNode> children) {
+        children.addAll(getOutcomes().getAll());
+    }
+    
+    /**
+     * Outcomes of this CHANCE node, to be expanded one first-move outcome at a time
+     * - Works out both moves and their order, and applies the first move right away
+     * - The second move is applied per first-move outcome, only when that group is asked for
+     */
+    public ChanceOutcomes getOutcomes() {
         // Get active Pokémon for both teams
         PokemonView ourPokemon = battleView.getTeamView(myTeamIdx).getActivePokemonView();
         PokemonView opponentPokemon = battleView.getTeamView(1 - myTeamIdx).getActivePokemonView();
@@ -237,10 +375,11 @@ public class GameNode {
         // Our turn's CHANCE node
         if (type == NodeType.CHANCE && depth % 2 == 1) {
             ourMove = lastMove;
+            opponentMove = replyMove;
             
             // Get opponent's move (use first available for simplicity)
-            List<MoveView> opponentMoves = getCachedMoves(opponentPokemon);
-            if (!opponentMoves.isEmpty()) {
+            List<MoveView> opponentMoves = getCachedMoves(1 - myTeamIdx, opponentPokemon);
+            if (opponentMove == null && !opponentMoves.isEmpty()) {
                 // To avoid explosion, only consider opponent's best move
                 double bestScore = -Double.MAX_VALUE;
                 for (MoveView move : opponentMoves) {
@@ -255,10 +394,11 @@ public class GameNode {
         // Opponent's turn CHANCE node
         else if (type == NodeType.CHANCE && depth % 2 == 0) {
             opponentMove = lastMove;
+            ourMove = replyMove;
             
             // Get our move (use first available for simplicity)
-            List<MoveView> ourMoves = getCachedMoves(ourPokemon);
-            if (!ourMoves.isEmpty()) {
+            List<MoveView> ourMoves = getCachedMoves(myTeamIdx, ourPokemon);
+            if (ourMove == null && !ourMoves.isEmpty()) {
                 // To avoid explosion, only consider our best move
                 double bestScore = -Double.MAX_VALUE;
                 for (MoveView move : ourMoves) {
@@ -273,7 +413,7 @@ public class GameNode {
         
         // Skip if we don't have needed moves
         if (ourMove == null && opponentMove == null) {
-            return;
+            return new ChanceOutcomes(Collections.emptyList(), null);
         }
         
         // Determine who goes first based on speed and priority
@@ -281,72 +421,128 @@ public class GameNode {
         
         // First move
         MoveView firstMove = weGoFirst ? ourMove : opponentMove;
-        int firstTeamIdx = weGoFirst ? myTeamIdx : (1 - myTeamIdx);
+        MoveView secondMove = weGoFirst ? opponentMove : ourMove;
+        if (firstMove == null) {
+            return new ChanceOutcomes(Collections.emptyList(), null);
+        }
+        
+        // Get potential outcomes of the first move
+        List<Pair<Double, BattleView>> firstMoveOutcomes = potentialEffects(firstMove, battleView);
         
-        // Apply first move
-        if (firstMove != null) {
-            // Get potential outcomes of the first move
-            List<Pair<Double, BattleView>> firstMoveOutcomes = firstMove.getPotentialEffects(
-                battleView, myTeamIdx, 1 - myTeamIdx);
+        // For performance, limit number of outcomes considered
+        int maxOutcomes = Math.min(firstMoveOutcomes.size(), 2);
+        return new ChanceOutcomes(firstMoveOutcomes.subList(0, maxOutcomes), secondMove);
+    }
+    
+    /**
+     * The children of a CHANCE node, grouped by the outcome of the first move
+     * - Group g holds the states after first-move outcome g and then the second move
+     * - A group is only expanded (second move applied) when it is first asked for, so a
+     *   search that cuts off early never pays for the remaining groups
+     * - Until then, a group's probability mass is bounded by its first-move outcome's
+     *   probability (a move's outcome probabilities sum to at most 1)
+     */
+    public final class ChanceOutcomes {
+        private final List<Pair<Double, BattleView>> firstOutcomes;
+        private final MoveView secondMove;
+        private final List<List<GameNode>> groups;
+        
+        private ChanceOutcomes(List<Pair<Double, BattleView>> firstOutcomes, MoveView secondMove) {
+            this.firstOutcomes = firstOutcomes;
+            this.secondMove = secondMove;
+            this.groups = new ArrayList<>(Collections.nCopies(firstOutcomes.size(), (List<GameNode>) null));
+        }
+        
+        public int groupCount() { return firstOutcomes.size(); }
+        public boolean isExpanded(int group) { return groups.get(group) != null; }
+        
+        /**
+         * Exact probability mass of an expanded group, an upper bound for the others
+         */
+        public double getMassBound(int group) {
+            List<GameNode> nodes = groups.get(group);
+            if (nodes == null) {
+                return firstOutcomes.get(group).getFirst();
+            }
+            double mass = 0.0;
+            for (GameNode node : nodes) {
+                mass += node.getProbability();
+            }
+            return mass;
+        }
+        
+        /**
+         * Children for one first-move outcome, in generation order (expanded on first use)
+         */
+        public List<GameNode> getGroup(int group) {
+            List<GameNode> nodes = groups.get(group);
+            if (nodes == null) {
+                nodes = expandGroup(firstOutcomes.get(group));
+                groups.set(group, nodes);
+            }
+            return nodes;
+        }
+        
+        /**
+         * Every child, expanding all groups
+         */
+        public List<GameNode> getAll() {
+            List<GameNode> children = new ArrayList<>();
+            for (int g = 0; g < groupCount(); g++) {
+                children.addAll(getGroup(g));
+            }
+            return children;
+        }
+        
+        private List<GameNode> expandGroup(Pair<Double, BattleView> outcome) {
+            List<GameNode> nodes = new ArrayList<>(2);
+            double probability = outcome.getFirst();
+            BattleView afterFirstMove = outcome.getSecond();
             
-            // For performance, limit number of outcomes considered
-            int maxOutcomes = Math.min(firstMoveOutcomes.size(), 2);
-            for (int i = 0; i < maxOutcomes; i++) {
-                Pair<Double, BattleView> outcome = firstMoveOutcomes.get(i);
-                double probability = outcome.getFirst();
-                BattleView afterFirstMove = outcome.getSecond();
-                
-                // Check if battle is over after first move
-                if (afterFirstMove.isOver()) {
-                    // Create a terminal node
-                    GameNode terminalNode = createNextNode(afterFirstMove, probability);
-                    children.add(terminalNode);
-                    continue;
-                }
-                
-                // Second move
-                MoveView secondMove = weGoFirst ? opponentMove : ourMove;
-                int secondTeamIdx = weGoFirst ? (1 - myTeamIdx) : myTeamIdx;
+            // Check if battle is over after first move
+            if (afterFirstMove.isOver()) {
+                // Create a terminal node
+                nodes.add(createNextNode(afterFirstMove, probability));
+                return nodes;
+            }
+            
+            // Apply second move if it exists
+            if (secondMove != null) {
+                List<Pair<Double, BattleView>> secondMoveOutcomes = potentialEffects(secondMove, afterFirstMove);
                 
-                // Apply second move if it exists
-                if (secondMove != null) {
-                    List<Pair<Double, BattleView>> secondMoveOutcomes = secondMove.getPotentialEffects(
-                        afterFirstMove, myTeamIdx, 1 - myTeamIdx);
+                // For performance, limit number of outcomes considered
+                int maxSecondOutcomes = Math.min(secondMoveOutcomes.size(), 2);
+                for (int j = 0; j < maxSecondOutcomes; j++) {
+                    Pair<Double, BattleView> secondOutcome = secondMoveOutcomes.get(j);
+                    double secondProbability = secondOutcome.getFirst();
+                    BattleView afterSecondMove = secondOutcome.getSecond();
                     
-                    // For performance, limit number of outcomes considered
-                    int maxSecondOutcomes = Math.min(secondMoveOutcomes.size(), 2);
-                    for (int j = 0; j < maxSecondOutcomes; j++) {
-                        Pair<Double, BattleView> secondOutcome = secondMoveOutcomes.get(j);
-                        double secondProbability = secondOutcome.getFirst();
-                        BattleView afterSecondMove = secondOutcome.getSecond();
-                        
-                        // Create next node after both moves
-                        GameNode nextNode = createNextNode(afterSecondMove, probability * secondProbability);
-                        children.add(nextNode);
-                    }
-                } else {
-                    // No second move
-                    GameNode nextNode = createNextNode(afterFirstMove, probability);
-                    children.add(nextNode);
+                    // Create next node after both moves
+                    nodes.add(createNextNode(afterSecondMove, probability * secondProbability));
                 }
+            } else {
+                // No second move
+                nodes.add(createNextNode(afterFirstMove, probability));
             }
+            return nodes;
         }
     }
     
+    /**
+     * MoveView.getPotentialEffects, counted (see getPotentialEffectsCalls)
+     */
+    private List<Pair<Double, BattleView>> potentialEffects(MoveView move, BattleView state) {
+        POTENTIAL_EFFECTS_CALLS.increment();
+        return move.getPotentialEffects(state, myTeamIdx, 1 - myTeamIdx);
+    }
+    
     /**
      * Create the next node with appropriate type based on game state
      */
     private GameNode createNextNode(BattleView state, double probability) {
         // Game over
         if (state.isOver()) {
-            return new GameNode(
-                state,
-                NodeType.MAX, // Type doesn't matter for terminal nodes
-                depth + 1,
-                null,
-                probability,
-                myTeamIdx
-            );
+            return new GameNode(this, state, NodeType.MAX, null, probability); // Type doesn't matter for terminal nodes
         }
         
         // Check if any Pokémon needs to be replaced
@@ -367,14 +563,7 @@ public class GameNode {
                 nextType = NodeType.MIN;
             }
             
-            return new GameNode(
-                state,
-                nextType,
-                depth + 1,
-                null,
-                probability,
-                myTeamIdx
-            );
+            return new GameNode(this, state, nextType, null, probability);
         }
         
         // Normal turn progression - alternate MAX and MIN
@@ -382,14 +571,7 @@ public class GameNode {
                            (type == NodeType.CHANCE && depth % 2 == 1)) ? 
                            NodeType.MIN : NodeType.MAX;
         
-        return new GameNode(
-            state,
-            nextType,
-            depth + 1,
-            null,
-            probability,
-            myTeamIdx
-        );
+        return new GameNode(this, state, nextType, null, probability);
     }
     
     /**
@@ -429,7 +611,7 @@ public class GameNode {
             return false; // Opponent is faster
         }
         
-        // Same speed, 50/50 chance
-        return RANDOM.nextBoolean();
+        // Same speed, 50/50 chance (seeded by the state so it is reproducible)
+        return ((stateHash ^ tieBreakSeed) * 0x9E3779B97F4A7C15L) < 0;
     }
 }
\ No newline at end of file
@@ -0,0 +1,184 @@
+package src.pas.pokemon.agents;
+
+import edu.bu.pas.pokemon.core.Move.MoveView;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Struct-of-arrays store for an explicit search tree (used by MonteCarloTreeSearcher)
+ * - A node is an index; its fields live in parallel primitive arrays
+ * - The children of a node are one contiguous block (firstChild .. firstChild + childCount)
+ * - reset() empties the store for the next search without freeing the arrays, so once
+ *   they have grown to the size of a search, later searches allocate nothing for the tree
+ * - Only the GameNode payload (needed to expand a node) is an object per node
+ */
+public class GameTreeArena {
+
+    public static final int NO_NODE = -1;
+    public static final int NO_MOVE = -1;
+
+    private static final int INITIAL_CAPACITY = 1 << 12;
+    private static final GameNode.NodeType[] NODE_TYPES = GameNode.NodeType.values();
+
+    private int size = 0;
+    private byte[] type;
+    private int[] depth;
+    private double[] probability;
+    private double[] totalValue;
+    private int[] visits;
+    private int[] parent;
+    private int[] firstChild;
+    private int[] childCount;          // -1 until the node is expanded
+    private int[] moveId;
+    private GameNode[] payload;
+
+    // Move ids, so nodes store an int instead of a MoveView
+    private final Map<String, Integer> moveIds = new HashMap<>();
+    private final List<MoveView> moves = new ArrayList<>();
+
+    // Set while a search owns the arena
+    private final AtomicBoolean inUse = new AtomicBoolean(false);
+
+    public GameTreeArena() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public GameTreeArena(int initialCapacity) {
+        allocate(Math.max(16, initialCapacity));
+    }
+
+    /**
+     * Claim the arena for one search
+     * @return false if another search is still using it
+     */
+    public boolean acquire() {
+        return inUse.compareAndSet(false, true);
+    }
+
+    public void release() {
+        inUse.set(false);
+    }
+
+    /**
+     * Empty the store for a new search (arrays are kept)
+     */
+    public void reset() {
+        Arrays.fill(payload, 0, size, null);
+        size = 0;
+    }
+
+    public int size() { return size; }
+    public int capacity() { return type.length; }
+
+    /**
+     * Add an unexpanded node
+     * @return its index
+     */
+    public int add(GameNode node, int parentIdx) {
+        ensureCapacity(size + 1);
+        int idx = size++;
+        type[idx] = (byte) node.getType().ordinal();
+        depth[idx] = node.getDepth();
+        probability[idx] = node.getProbability();
+        totalValue[idx] = 0.0;
+        visits[idx] = 0;
+        parent[idx] = parentIdx;
+        firstChild[idx] = NO_NODE;
+        childCount[idx] = -1;
+        moveId[idx] = idOf(node.getLastMove());
+        payload[idx] = node;
+        return idx;
+    }
+
+    /**
+     * Store a node's children as one contiguous block
+     * @return the index of the first child
+     */
+    public int addChildren(int parentIdx, List<GameNode> children) {
+        ensureCapacity(size + children.size());
+        int first = size;
+        for (GameNode child : children) {
+            add(child, parentIdx);
+        }
+        firstChild[parentIdx] = children.isEmpty() ? NO_NODE : first;
+        childCount[parentIdx] = children.size();
+        return first;
+    }
+
+    public boolean isExpanded(int idx) { return childCount[idx] >= 0; }
+    public GameNode.NodeType getType(int idx) { return NODE_TYPES[type[idx]]; }
+    public int getDepth(int idx) { return depth[idx]; }
+    public double getProbability(int idx) { return probability[idx]; }
+    public int getVisits(int idx) { return visits[idx]; }
+    public double getTotalValue(int idx) { return totalValue[idx]; }
+    public int getParent(int idx) { return parent[idx]; }
+    public int getFirstChild(int idx) { return firstChild[idx]; }
+    public int getChildCount(int idx) { return Math.max(0, childCount[idx]); }
+    public GameNode getNode(int idx) { return payload[idx]; }
+
+    public double getMeanValue(int idx) {
+        return visits[idx] == 0 ? 0.0 : totalValue[idx] / visits[idx];
+    }
+
+    public MoveView getMove(int idx) {
+        return moveId[idx] == NO_MOVE ? null : moves.get(moveId[idx]);
+    }
+
+    /**
+     * Record one simulation result at a node
+     */
+    public void update(int idx, double value) {
+        visits[idx]++;
+        totalValue[idx] += value;
+    }
+
+    private int idOf(MoveView move) {
+        if (move == null) {
+            return NO_MOVE;
+        }
+        Integer id = moveIds.get(move.getName());
+        if (id == null) {
+            id = moves.size();
+            moveIds.put(move.getName(), id);
+            moves.add(move);
+        }
+        return id;
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed > type.length) {
+            int capacity = type.length;
+            while (capacity < needed) {
+                capacity <<= 1;
+            }
+            type = Arrays.copyOf(type, capacity);
+            depth = Arrays.copyOf(depth, capacity);
+            probability = Arrays.copyOf(probability, capacity);
+            totalValue = Arrays.copyOf(totalValue, capacity);
+            visits = Arrays.copyOf(visits, capacity);
+            parent = Arrays.copyOf(parent, capacity);
+            firstChild = Arrays.copyOf(firstChild, capacity);
+            childCount = Arrays.copyOf(childCount, capacity);
+            moveId = Arrays.copyOf(moveId, capacity);
+            payload = Arrays.copyOf(payload, capacity);
+        }
+    }
+
+    private void allocate(int capacity) {
+        type = new byte[capacity];
+        depth = new int[capacity];
+        probability = new double[capacity];
+        totalValue = new double[capacity];
+        visits = new int[capacity];
+        parent = new int[capacity];
+        firstChild = new int[capacity];
+        childCount = new int[capacity];
+        moveId = new int[capacity];
+        payload = new GameNode[capacity];
+    }
+}
@@ -0,0 +1,52 @@
+package src.pas.pokemon.agents;
+
+import edu.bu.pas.pokemon.core.Battle.BattleView;
+import edu.bu.pas.pokemon.core.Move.MoveView;
+
+/**
+ * TreeTraversalAgent that hands the first state of a real game to one of the tools that
+ * need a real BattleView, then plays the game as usual
+ * - The tools build no battle states themselves (the agents only read the library's views,
+ *   they never construct battles), so they run on the state a real game provides
+ * - The tool is chosen with -Dpas.harness: diagnostics (TimeoutDiagnostic), runner
+ *   (TreeTraversalAgentTestRunner) or tournament (Tournament, with its arguments in
+ *   -Dpas.harness.args, space separated); unset, nothing runs
+ * - The tool runs at the first getMove, before the search, so play that game with a move
+ *   time limit long enough for it
+ */
+public class HarnessAgent extends TreeTraversalAgent {
+
+    private boolean ran = false;
+
+    @Override
+    public MoveView getMove(BattleView battleView) {
+        if (!ran) {
+            ran = true;
+            runTool(System.getProperty("pas.harness", ""), battleView);
+        }
+        return super.getMove(battleView);
+    }
+
+    private static void runTool(String tool, BattleView battleView) {
+        String args = System.getProperty("pas.harness.args", "").trim();
+        try {
+            switch (tool) {
+                case "":
+                    break;
+                case "diagnostics":
+                    TimeoutDiagnostic.run(battleView);
+                    break;
+                case "runner":
+                    TreeTraversalAgentTestRunner.run(battleView);
+                    break;
+                case "tournament":
+                    Tournament.runStandard(battleView, args.isEmpty() ? new String[0] : args.split("\\s+"));
+                    break;
+                default:
+                    SearchLog.warn("Unknown pas.harness tool: " + tool + " (diagnostics, runner or tournament)");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package src.pas.pokemon.agents;
+
+import edu.bu.pas.pokemon.core.Battle.BattleView;
+
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+
+/**
+ * JIT warmup: short throwaway searches so the first real moves run compiled code
+ * - A fresh JVM runs the first getMove calls in the interpreter and C1 code, so they
+ *   reach shallower depths than later moves (and were where timeouts showed up)
+ * - warmUp searches the battle's own state, from both sides, with a scratch agent, one
+ *   depth deeper each round. That runs GameNode expansion, UtilityCalculator and the
+ *   state-key code. It stops when the time limit is spent or when rounds stop triggering
+ *   JIT compilation (C2 has caught up with the hot methods)
+ * - Compiled code is shared by the whole JVM, so this runs at most once per process
+ * - Enabled per agent with TreeTraversalAgent.setJitWarmupMs, which warms up at the
+ *   first chooseNextPokemon
+ */
+public final class JitWarmup {
+
+    static final int FIRST_MEASURED_DEPTH = 3;          // Depth where quiet rounds start to count
+    private static final int MAX_WARMUP_DEPTH = 5;
+    private static final int QUIET_ROUNDS = 2;          // Quiet rounds in a row before stopping
+    private static final double QUIET_COMPILE_SHARE = 0.02; // Compile time / round time below this is quiet
+    private static final int SCRATCH_TT_ENTRIES = 1 << 14;
+
+    private static volatile boolean warmedUp = false;
+    private static volatile long warmupMs = 0;
+
+    private JitWarmup() {}
+
+    public static boolean isWarmedUp() { return warmedUp; }
+
+    /**
+     * Wall time the warmup took (0 if it has not run)
+     */
+    public static long getWarmupMs() { return warmupMs; }
+
+    /**
+     * Warm up the search once per JVM, within limitMs
+     * - battleView is searched as myTeamIdx and as the opponent, by a scratch agent whose
+     *   log output is off (the global SearchLog level is left alone)
+     * - Shared caches (UtilityCalculator's memo, the move catalog) keep what the scratch
+     *   searches put in them: the states are this battle's own
+     * - The JVM only counts as warmed up once a search has completed, so a call with no
+     *   state to search, or one whose limit ran out first, leaves it to the next call
+     * - Returns the time spent; 0 if already warmed up, limitMs is not positive or there is
+     *   no state to search
+     */
+    public static synchronized long warmUp(BattleView battleView, int myTeamIdx, long limitMs) {
+        if (warmedUp || limitMs <= 0 || battleView == null || battleView.isOver()) {
+            return 0;
+        }
+
+        long startTime = System.nanoTime();
+        long deadline = startTime + limitMs * 1_000_000L;
+        int[] teams = { myTeamIdx, 1 - myTeamIdx };
+
+        TreeTraversalAgent scratch = new TreeTraversalAgent();
+        scratch.setSearchReuse(false);
+        scratch.setTranspositionTableEntries(SCRATCH_TT_ENTRIES);
+        scratch.setQuietLog(true);
+        CompilationMXBean jit = ManagementFactory.getCompilationMXBean();
+        boolean compileTimeKnown = jit != null && jit.isCompilationTimeMonitoringSupported();
+        int rounds = 0;
+        int searches = 0;
+        long compileMs = 0;
+        try {
+            int quietRounds = 0;
+            for (int depth = 1; System.nanoTime() < deadline && quietRounds < QUIET_ROUNDS;
+                 depth = Math.min(depth + 1, MAX_WARMUP_DEPTH)) {
+                long compileBefore = compileTimeKnown ? jit.getTotalCompilationTime() : 0;
+                long roundStart = System.nanoTime();
+                for (int team : teams) {
+                    long remainingMs = (deadline - System.nanoTime()) / 1_000_000L;
+                    if (remainingMs <= 0) {
+                        break;
+                    }
+                    scratch.setMaxThinkingTimePerMoveInMS(remainingMs);
+                    scratch.setMyTeamIdx(team);
+                    if (scratch.stochasticTreeSearch(battleView, depth) != null) {
+                        searches++;
+                    }
+                }
+                rounds++;
+                long roundMs = Math.max(1, (System.nanoTime() - roundStart) / 1_000_000L);
+                long roundCompileMs = compileTimeKnown ? jit.getTotalCompilationTime() - compileBefore : 0;
+                compileMs += roundCompileMs;
+                boolean quiet = compileTimeKnown && depth >= FIRST_MEASURED_DEPTH &&
+                                roundCompileMs < roundMs * QUIET_COMPILE_SHARE;
+                quietRounds = quiet ? quietRounds + 1 : 0;
+            }
+        } finally {
+            scratch.shutdown();
+        }
+
+        warmedUp = searches > 0;
+        warmupMs = (System.nanoTime() - startTime) / 1_000_000L;
+        if (SearchLog.isInfo()) {
+            SearchLog.info("JIT warmup: " + searches + " searches in " + rounds + " rounds, " + warmupMs +
+                           "ms (limit " + limitMs + "ms), " + compileMs + "ms JIT compile time");
+        }
+        return warmupMs;
+    }
+}
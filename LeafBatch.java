@@ -0,0 +1,171 @@
+package src.pas.pokemon.agents;
+
+import edu.bu.pas.pokemon.core.enums.Stat;
+
+import java.util.Arrays;
+
+/**
+ * Scores a batch of sibling leaf states in one pass over primitive arrays
+ * - add() copies the snapshot fields calculateUtility reads (active and alive HP, remaining
+ *   counts, ATK/DEF/SPD) into parallel double arrays, one lane per state; only the cached
+ *   type and status terms come from UtilityFeatures
+ * - score() then does the HP ratio, count, stat and weighting arithmetic for every lane in
+ *   one loop with no calls, with calculateUtility's branches as per-lane selects, in the
+ *   same operation order, so each lane gets exactly the value calculateUtility would
+ * - States that are already decided (battle over) or already scored (memoized utility) keep
+ *   a fixed value
+ * - One batch per search thread, reused; the arrays only grow
+ * - Plain loops for HotSpot's superword pass, not the Vector API: jdk.incubator.vector is
+ *   not in the release 11 API the agents compile against (build.gradle), and the course
+ *   harness that compiles and runs these sources would also need --add-modules on both
+ *   javac and java, which the agents can't pass
+ */
+public class LeafBatch {
+
+    // calculateUtility's weights
+    private static final double HP_WEIGHT = 6.0;
+    private static final double COUNT_WEIGHT = 3.0;
+    private static final double TYPE_WEIGHT = 2.0;
+    private static final double STATUS_WEIGHT = 2.0;
+    private static final double STAT_WEIGHT = 1.5;
+
+    // Weights of the early return for a clear advantage or disadvantage
+    private static final double EARLY_HP_WEIGHT = 5.0;
+    private static final double EARLY_COUNT_WEIGHT = 3.0;
+
+    private int size = 0;
+    private double[] myActiveHp = new double[16];
+    private double[] myActiveMaxHp = new double[16];      // 0 when fainted, as getActiveHPRatio treats it
+    private double[] oppActiveHp = new double[16];
+    private double[] oppActiveMaxHp = new double[16];
+    private double[] myAliveHp = new double[16];
+    private double[] myAliveMaxHp = new double[16];
+    private double[] oppAliveHp = new double[16];
+    private double[] oppAliveMaxHp = new double[16];
+    private double[] remainingDiff = new double[16];
+    private double[] remainingSum = new double[16];
+    private double[] atkDiff = new double[16];
+    private double[] defDiff = new double[16];
+    private double[] spdDiff = new double[16];
+    private double[] type = new double[16];
+    private double[] status = new double[16];
+    private double[] fixedValue = new double[16];
+    private boolean[] fixed = new boolean[16];
+    private double[] scores = new double[16];
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int size() { return size; }
+
+    /**
+     * Add a state by its snapshot and cached terms
+     * @return its lane
+     */
+    public int add(UtilityFeatures features) {
+        double known = features.cachedUtility();
+        if (!Double.isNaN(known)) {
+            return addFixed(known);
+        }
+        if (features.isOver()) {
+            return addFixed(features.utility());
+        }
+        int lane = nextLane();
+        BattleSnapshot state = features.getState();
+        int me = features.getMyTeamIdx();
+        int opp = 1 - me;
+        fixed[lane] = false;
+        myActiveHp[lane] = state.getActiveHp(me);
+        myActiveMaxHp[lane] = state.hasActiveFainted(me) ? 0 : state.getActiveMaxHp(me);
+        oppActiveHp[lane] = state.getActiveHp(opp);
+        oppActiveMaxHp[lane] = state.hasActiveFainted(opp) ? 0 : state.getActiveMaxHp(opp);
+        myAliveHp[lane] = state.getAliveHp(me);
+        myAliveMaxHp[lane] = state.getAliveMaxHp(me);
+        oppAliveHp[lane] = state.getAliveHp(opp);
+        oppAliveMaxHp[lane] = state.getAliveMaxHp(opp);
+        remainingDiff[lane] = state.getRemaining(me) - state.getRemaining(opp);
+        remainingSum[lane] = state.getRemaining(me) + state.getRemaining(opp);
+        atkDiff[lane] = state.getActiveStat(me, Stat.ATK) - state.getActiveStat(opp, Stat.ATK);
+        defDiff[lane] = state.getActiveStat(me, Stat.DEF) - state.getActiveStat(opp, Stat.DEF);
+        spdDiff[lane] = state.getActiveStat(me, Stat.SPD) - state.getActiveStat(opp, Stat.SPD);
+        type[lane] = features.typeAdvantage();
+        status[lane] = features.statusAdvantage();
+        return lane;
+    }
+
+    /**
+     * Add a state whose value is already known
+     * @return its lane
+     */
+    public int addFixed(double value) {
+        int lane = nextLane();
+        fixed[lane] = true;
+        fixedValue[lane] = value;
+        return lane;
+    }
+
+    /**
+     * Whether a lane's score was given rather than computed by score()
+     */
+    public boolean isFixed(int lane) { return fixed[lane]; }
+
+    /**
+     * Score every lane
+     * @return the scores, indexed by lane (valid until the next add or score)
+     */
+    public double[] score() {
+        int n = size;
+        double[] out = scores;
+        for (int i = 0; i < n; i++) {
+            // calculateHPRatio
+            double myActive = (myActiveMaxHp[i] == 0) ? 0.0 : myActiveHp[i] / myActiveMaxHp[i];
+            double oppActive = (oppActiveMaxHp[i] == 0) ? 0.0 : oppActiveHp[i] / oppActiveMaxHp[i];
+            double activeAdvantage = myActive - oppActive;
+            double myTeam = (myAliveMaxHp[i] > 0) ? myAliveHp[i] / myAliveMaxHp[i] : 0;
+            double oppTeam = (oppAliveMaxHp[i] > 0) ? oppAliveHp[i] / oppAliveMaxHp[i] : 0;
+            double h = (Math.abs(activeAdvantage) > 0.4) ? activeAdvantage
+                     : (0.7 * activeAdvantage) + (0.3 * (myTeam - oppTeam));
+
+            double c = remainingDiff[i] / remainingSum[i];
+
+            // calculateSimplifiedStatMultipliersAdvantage
+            double stat = 0.0;
+            stat += 0.2 * atkDiff[i];
+            stat += 0.2 * defDiff[i];
+            stat += 0.3 * spdDiff[i];
+
+            double full = HP_WEIGHT * h + COUNT_WEIGHT * c + TYPE_WEIGHT * type[i] +
+                          STATUS_WEIGHT * status[i] + STAT_WEIGHT * stat;
+            boolean early = (h > 0.5 && c > 0.3) || (h < -0.5 && c < -0.3);
+            double value = early ? EARLY_HP_WEIGHT * h + EARLY_COUNT_WEIGHT * c : full;
+            out[i] = fixed[i] ? fixedValue[i] : value;
+        }
+        return out;
+    }
+
+    private int nextLane() {
+        if (size == scores.length) {
+            int capacity = size * 2;
+            myActiveHp = Arrays.copyOf(myActiveHp, capacity);
+            myActiveMaxHp = Arrays.copyOf(myActiveMaxHp, capacity);
+            oppActiveHp = Arrays.copyOf(oppActiveHp, capacity);
+            oppActiveMaxHp = Arrays.copyOf(oppActiveMaxHp, capacity);
+            myAliveHp = Arrays.copyOf(myAliveHp, capacity);
+            myAliveMaxHp = Arrays.copyOf(myAliveMaxHp, capacity);
+            oppAliveHp = Arrays.copyOf(oppAliveHp, capacity);
+            oppAliveMaxHp = Arrays.copyOf(oppAliveMaxHp, capacity);
+            remainingDiff = Arrays.copyOf(remainingDiff, capacity);
+            remainingSum = Arrays.copyOf(remainingSum, capacity);
+            atkDiff = Arrays.copyOf(atkDiff, capacity);
+            defDiff = Arrays.copyOf(defDiff, capacity);
+            spdDiff = Arrays.copyOf(spdDiff, capacity);
+            type = Arrays.copyOf(type, capacity);
+            status = Arrays.copyOf(status, capacity);
+            fixedValue = Arrays.copyOf(fixedValue, capacity);
+            fixed = Arrays.copyOf(fixed, capacity);
+            scores = Arrays.copyOf(scores, capacity);
+        }
+        return size++;
+    }
+}
@@ -0,0 +1,333 @@
+package src.pas.pokemon.agents;
+
+import edu.bu.pas.pokemon.core.Battle.BattleView;
+import edu.bu.pas.pokemon.core.Move.MoveView;
+import edu.bu.pas.pokemon.core.Pokemon.PokemonView;
+import edu.bu.pas.pokemon.utils.Pair;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * UCT / Monte Carlo Tree Search over GameNodes, an alternative to expectiminimax
+ * - The tree lives in a GameTreeArena (parallel primitive arrays), reset per search
+ * - MAX and MIN nodes open one untried child per visit, then pick children by UCT
+ * - CHANCE nodes sample an outcome by its probability (the outcomes come from
+ *   MoveView.getPotentialEffects via GameNode) and only keep the sampled ones
+ * - Rollouts play a few random plies, then the node's UtilityFeatures (calculateUtility)
+ *   scores the cutoff state
+ * - Anytime: runs simulations until the budget is spent and plays the most visited move
+ */
+public class MonteCarloTreeSearcher implements AnytimeSearcher {
+
+    // Exploration constant for UCT (values are in [-1, 1])
+    private static final double EXPLORATION = 1.4;
+
+    // Plies of random play before the rollout is cut off and evaluated
+    private static final int ROLLOUT_DEPTH = 2;
+
+    // Utility values are squashed with tanh(utility / UTILITY_SCALE) into [-1, 1]
+    private static final double UTILITY_SCALE = 10.0;
+
+    private final BattleView rootView;
+    private final int myTeamIdx;
+    private final long budgetMs;
+    private final long maxSimulations;
+    private final Random random;
+    private final GameTreeArena sharedArena;   // Reused between searches when free, may be null
+    private GameTreeArena arena;               // Tree store of the running search
+    private final MoveIndex moveIndex;         // The agent's, or a private one
+    private final long seed;                   // Sampling and speed-tie seed
+
+    private volatile boolean stopped = false;
+    private volatile MoveView bestMoveSoFar = null;
+    private long simulations = 0;
+
+    public MonteCarloTreeSearcher(BattleView rootView, int myTeamIdx, long budgetMs, long seed) {
+        this(rootView, myTeamIdx, budgetMs, Long.MAX_VALUE, seed, null, new MoveIndex());
+    }
+
+    /**
+     * @param maxSimulations stop after this many simulations even if time remains (for benchmarks)
+     */
+    public MonteCarloTreeSearcher(BattleView rootView, int myTeamIdx, long budgetMs, long maxSimulations, long seed) {
+        this(rootView, myTeamIdx, budgetMs, maxSimulations, seed, null, new MoveIndex());
+    }
+
+    /**
+     * @param arena tree store to reuse (reset at the start of the search); a private one is
+     *              used if it is null or another search still holds it
+     * @param moveIndex the searching agent's move index
+     */
+    public MonteCarloTreeSearcher(BattleView rootView, int myTeamIdx, long budgetMs, long maxSimulations, long seed,
+                                  GameTreeArena arena, MoveIndex moveIndex) {
+        this.rootView = rootView;
+        this.myTeamIdx = myTeamIdx;
+        this.budgetMs = budgetMs;
+        this.maxSimulations = maxSimulations;
+        this.random = new Random(seed);
+        this.seed = seed;
+        this.sharedArena = arena;
+        this.moveIndex = moveIndex;
+    }
+
+    public BattleView getRootView() { return this.rootView; }
+    public int getMyTeamIdx() { return this.myTeamIdx; }
+    public long getSimulations() { return this.simulations; }
+
+    @Override
+    public MoveView getBestMoveSoFar() { return this.bestMoveSoFar; }
+
+    @Override
+    public void stop() { this.stopped = true; }
+
+    /**
+     * Run simulations until the budget is spent and return the most visited root move
+     */
+    public MoveView search() {
+        PokemonView activePokemon = rootView.getTeamView(myTeamIdx).getActivePokemonView();
+        List<MoveView> availableMoves = activePokemon.getAvailableMoves();
+        if (availableMoves.isEmpty()) {
+            return null;
+        }
+
+        moveIndex.beginSearch(rootView);
+        boolean shared = sharedArena != null && sharedArena.acquire();
+        arena = shared ? sharedArena : new GameTreeArena();
+        try {
+            arena.reset();
+            return runSimulations(availableMoves);
+        } finally {
+            if (shared) {
+                sharedArena.release();
+            }
+        }
+    }
+
+    private MoveView runSimulations(List<MoveView> availableMoves) {
+        // The root considers every move, not just the top few GameNode keeps at MAX nodes
+        List<GameNode> rootMoves = new ArrayList<>();
+        for (MoveView move : availableMoves) {
+            rootMoves.add(new GameNode(rootView, GameNode.NodeType.CHANCE, 1, move, 1.0, myTeamIdx, moveIndex, seed));
+        }
+        int root = arena.add(new GameNode(rootView, GameNode.NodeType.MAX, 0, null, 1.0, myTeamIdx, moveIndex, seed),
+                             GameTreeArena.NO_NODE);
+        arena.addChildren(root, rootMoves);
+        bestMoveSoFar = availableMoves.get(0);
+
+        SearchBudget budget = new SearchBudget(System.currentTimeMillis(), budgetMs);
+        simulations = 0;
+
+        while (!stopped && !budget.isExpired() && simulations < maxSimulations) {
+            int child = selectUct(root, true);
+            arena.update(root, simulate(child));
+            simulations++;
+
+            // Refresh the anytime answer now and then
+            if ((simulations & 63) == 0) {
+                bestMoveSoFar = arena.getMove(mostVisited(root));
+            }
+        }
+
+        MoveView bestMove = arena.getMove(mostVisited(root));
+        bestMoveSoFar = bestMove;
+
+        if (SearchLog.isInfo()) {
+            SearchLog.info("MCTS: " + simulations + " simulations in " + budget.elapsedMs() + "ms, " + 
+                          arena.size() + " tree nodes");
+        }
+        int first = arena.getFirstChild(root);
+        for (int child = first; child < first + arena.getChildCount(root); child++) {
+            if (SearchLog.isDebug()) {
+                SearchLog.debug("  Move: " + arena.getMove(child).getName() +
+                               ", Visits: " + arena.getVisits(child) +
+                               ", Value: " + String.format("%.3f", arena.getMeanValue(child)));
+            }
+        }
+        return bestMove;
+    }
+
+    /**
+     * One simulation through the tree from this node; returns the result in [-1, 1]
+     */
+    private double simulate(int node) {
+        double value;
+        GameNode gameNode = arena.getNode(node);
+
+        if (gameNode.isTerminal()) {
+            value = evaluate(gameNode);
+        } else if (gameNode.getType() == GameNode.NodeType.CHANCE) {
+            value = simulateChance(node);
+        } else {
+            if (!arena.isExpanded(node)) {
+                arena.addChildren(node, gameNode.getChildren());
+            }
+
+            int first = arena.getFirstChild(node);
+            int count = arena.getChildCount(node);
+            int untried = 0;
+            for (int child = first; child < first + count; child++) {
+                if (arena.getVisits(child) == 0) {
+                    untried++;
+                }
+            }
+
+            if (untried > 0) {
+                // Expansion: open one untried child and roll out from it
+                int opened = nthUntried(first, count, random.nextInt(untried));
+                value = rollout(arena.getNode(opened), ROLLOUT_DEPTH);
+                arena.update(opened, value);
+            } else if (count == 0) {
+                // No moves at all
+                value = evaluate(gameNode);
+            } else {
+                boolean maximizing = gameNode.getType() == GameNode.NodeType.MAX;
+                value = simulate(selectUct(node, maximizing));
+            }
+        }
+
+        arena.update(node, value);
+        return value;
+    }
+
+    /**
+     * CHANCE node: sample an outcome by probability and continue through it
+     */
+    private double simulateChance(int node) {
+        if (!arena.isExpanded(node)) {
+            arena.addChildren(node, arena.getNode(node).getChildren());
+        }
+        int count = arena.getChildCount(node);
+        if (count == 0) {
+            return evaluate(arena.getNode(node));
+        }
+
+        int outcome = sampleOutcome(arena.getFirstChild(node), count);
+        if (arena.getVisits(outcome) == 0) {
+            // First time this outcome comes up: roll out from it instead of descending
+            double value = rollout(arena.getNode(outcome), ROLLOUT_DEPTH);
+            arena.update(outcome, value);
+            return value;
+        }
+        return simulate(outcome);
+    }
+
+    /**
+     * The n-th child (in block order) that has not been visited yet
+     */
+    private int nthUntried(int first, int count, int n) {
+        for (int child = first; child < first + count; child++) {
+            if (arena.getVisits(child) == 0 && n-- == 0) {
+                return child;
+            }
+        }
+        return first;
+    }
+
+    /**
+     * UCT selection over a node's children; MIN nodes pick the child that is worst for us
+     */
+    private int selectUct(int node, boolean maximizing) {
+        int best = GameTreeArena.NO_NODE;
+        double bestScore = Double.NEGATIVE_INFINITY;
+        double logParent = Math.log(Math.max(1, arena.getVisits(node)));
+
+        int first = arena.getFirstChild(node);
+        for (int child = first; child < first + arena.getChildCount(node); child++) {
+            int visits = arena.getVisits(child);
+            if (visits == 0) {
+                return child;
+            }
+            double exploit = maximizing ? arena.getMeanValue(child) : -arena.getMeanValue(child);
+            double score = exploit + EXPLORATION * Math.sqrt(logParent / visits);
+            if (score > bestScore) {
+                bestScore = score;
+                best = child;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Random playout for a few plies, then evaluate the state where it stops
+     */
+    private double rollout(GameNode node, int pliesLeft) {
+        GameNode current = node;
+        while (pliesLeft > 0 && !current.isTerminal() && !stopped) {
+            List<GameNode> children = current.getChildren();
+            if (children.isEmpty()) {
+                break;
+            }
+            current = (current.getType() == GameNode.NodeType.CHANCE)
+                      ? children.get(sampleOutcome(children))
+                      : children.get(random.nextInt(children.size()));
+            pliesLeft--;
+        }
+        return evaluate(current);
+    }
+
+    /**
+     * Pick an outcome index with probability proportional to the outcome's probability
+     */
+    private int sampleOutcome(List<GameNode> outcomes) {
+        double total = 0.0;
+        for (GameNode outcome : outcomes) {
+            total += outcome.getProbability();
+        }
+        double r = random.nextDouble() * total;
+        for (int i = 0; i < outcomes.size(); i++) {
+            r -= outcomes.get(i).getProbability();
+            if (r <= 0) {
+                return i;
+            }
+        }
+        return outcomes.size() - 1;
+    }
+
+    /**
+     * Score a state from our point of view in [-1, 1]
+     */
+    private double evaluate(GameNode node) {
+        double utility = node.getUtilityFeatures().utility();
+        return Math.tanh(utility / UTILITY_SCALE);
+    }
+
+    /**
+     * Pick an outcome among a CHANCE node's children, with probability proportional to theirs
+     */
+    private int sampleOutcome(int first, int count) {
+        double total = 0.0;
+        for (int child = first; child < first + count; child++) {
+            total += arena.getProbability(child);
+        }
+        double r = random.nextDouble() * total;
+        for (int child = first; child < first + count; child++) {
+            r -= arena.getProbability(child);
+            if (r <= 0) {
+                return child;
+            }
+        }
+        return first + count - 1;
+    }
+
+    private int mostVisited(int node) {
+        int first = arena.getFirstChild(node);
+        int best = first;
+        for (int child = first; child < first + arena.getChildCount(node); child++) {
+            if (arena.getVisits(child) > arena.getVisits(best) ||
+                (arena.getVisits(child) == arena.getVisits(best) && arena.getMeanValue(child) > arena.getMeanValue(best))) {
+                best = child;
+            }
+        }
+        return best;
+    }
+
+    @Override
+    public Pair<MoveView, Long> call() throws Exception {
+        double startTime = System.nanoTime();
+        MoveView move = this.search();
+        double endTime = System.nanoTime();
+        return new Pair<MoveView, Long>(move, (long)((endTime-startTime)/1000000));
+    }
+}
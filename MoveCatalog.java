@@ -0,0 +1,110 @@
+package src.pas.pokemon.agents;
+
+import edu.bu.pas.pokemon.core.Move.MoveView;
+import edu.bu.pas.pokemon.core.enums.Type;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Numeric ids for moves, with the metadata the evaluators need read out once
+ * - A move gets its id the first time it is seen (by name, which is fixed for a move);
+ *   after that, idOf is one map lookup on the name's cached hash and allocates nothing
+ * - Category, power, accuracy, type, priority and status-effect class live in primitive
+ *   arrays indexed by id, so evaluation never goes back to String checks
+ * - Only primitive metadata is kept: no MoveView outlives the agent that read it (the
+ *   views themselves live in each agent's MoveIndex)
+ * - Safe for concurrent search threads: metadata is written before the id is published
+ */
+public final class MoveCatalog {
+
+    // Returned for null moves and once the catalog is full
+    public static final int NO_ID = -1;
+
+    // At most this many distinct moves get ids (the Gen 1 move list is far smaller)
+    public static final int MAX_MOVES = 1024;
+
+    // Status-effect classes of STATUS moves, matched on the move name at registration
+    public static final byte EFFECT_NONE = 0;
+    public static final byte EFFECT_STAT_BOOST = 1;       // Sharpen, Growth, Swords Dance
+    public static final byte EFFECT_FOCUS_ENERGY = 2;
+    public static final byte EFFECT_RECOVERY = 3;         // Recover, Rest
+    public static final byte EFFECT_STATUS = 4;           // Sleep, Paralyze, Poison
+
+    // Power and accuracy of moves that have none
+    public static final int NONE = -1;
+
+    private static final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private static final boolean[] statusCategory = new boolean[MAX_MOVES];
+    private static final int[] power = new int[MAX_MOVES];
+    private static final int[] accuracy = new int[MAX_MOVES];
+    private static final Type[] type = new Type[MAX_MOVES];
+    private static final int[] priority = new int[MAX_MOVES];
+    private static final byte[] effect = new byte[MAX_MOVES];
+    private static int size = 0;
+
+    private MoveCatalog() {}
+
+    /**
+     * Id of a move, registering it on first sight
+     * @return NO_ID for null, or if the catalog is full
+     */
+    public static int idOf(MoveView move) {
+        if (move == null) {
+            return NO_ID;
+        }
+        Integer id = ids.get(move.getName());
+        return id != null ? id : register(move);
+    }
+
+    private static synchronized int register(MoveView move) {
+        String name = move.getName();
+        Integer existing = ids.get(name);
+        if (existing != null) {
+            return existing;
+        }
+        if (size == MAX_MOVES) {
+            return NO_ID;
+        }
+
+        int id = size++;
+        statusCategory[id] = isStatusCategory(move);
+        power[id] = move.getPower() != null ? move.getPower() : NONE;
+        accuracy[id] = move.getAccuracy() != null ? move.getAccuracy() : NONE;
+        type[id] = move.getType();
+        priority[id] = move.getPriority();
+        effect[id] = statusCategory[id] ? effectOf(name) : EFFECT_NONE;
+
+        // Publishing through the map makes the metadata above visible to readers of the id
+        ids.put(name, id);
+        return id;
+    }
+
+    static boolean isStatusCategory(MoveView move) {
+        return move.getCategory() != null && move.getCategory().toString().equals("STATUS");
+    }
+
+    static byte effectOf(String name) {
+        if (name.contains("Sharpen") || name.contains("Growth") || name.contains("Swords Dance")) {
+            return EFFECT_STAT_BOOST;
+        } else if (name.contains("Focus Energy")) {
+            return EFFECT_FOCUS_ENERGY;
+        } else if (name.contains("Recover") || name.contains("Rest")) {
+            return EFFECT_RECOVERY;
+        } else if (name.contains("Sleep") || name.contains("Paralyze") || name.contains("Poison")) {
+            return EFFECT_STATUS;
+        }
+        return EFFECT_NONE;
+    }
+
+    /**
+     * Number of moves with an id
+     */
+    public static synchronized int size() { return size; }
+
+    public static boolean isStatus(int id) { return statusCategory[id]; }
+    public static int getPower(int id) { return power[id]; }
+    public static int getAccuracy(int id) { return accuracy[id]; }
+    public static Type getType(int id) { return type[id]; }
+    public static int getPriority(int id) { return priority[id]; }
+    public static byte getEffect(int id) { return effect[id]; }
+}
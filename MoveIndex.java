@@ -0,0 +1,237 @@
+package src.pas.pokemon.agents;
+
+import edu.bu.pas.pokemon.core.Battle.BattleView;
+import edu.bu.pas.pokemon.core.Move.MoveView;
+import edu.bu.pas.pokemon.core.Pokemon.PokemonView;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-battle index of the moves each Pokémon can use
+ * - Owned by an agent (see TreeTraversalAgent.getMoveIndex) and shared by its search
+ *   threads; beginSearch forgets everything when the root's teams change (a new battle)
+ * - Every Pokémon seen on a team gets a moveset: the MoveCatalog ids of the moves it has
+ *   been seen with, and the MoveViews getAvailableMoves gave for them (the moveset, like
+ *   the index, belongs to one agent; nothing static holds a MoveView)
+ * - Which of them are usable in a state (PP left, not disabled) is a bitmask over that
+ *   moveset, read once per state from getAvailableMoves and kept in the BattleSnapshot, so
+ *   nodes sharing a state never ask again and states that differ in PP never mix
+ * - The move list for a (moveset, mask) pair is the list getAvailableMoves returned the
+ *   first time, in the library's order, and is shared from then on
+ * - Lookups are a scan of one team's few entries; no String is built or hashed
+ */
+public class MoveIndex {
+
+    // Mask bits per moveset; a Pokémon that shows more distinct moves is not indexed
+    private static final int MAX_MOVES = 16;
+    private static final int MASK_BITS = (1 << MAX_MOVES) - 1;
+    private static final int EPOCH_SHIFT = MAX_MOVES;
+    private static final int EPOCH_MASK = 0x7FFF;        // Keeps stored masks non-negative
+
+    /**
+     * The moveset of one Pokémon (identified by its species name hash within a team)
+     */
+    private static final class Moveset {
+        final int nameHash;
+        volatile int[] moveIds = new int[0];
+        volatile MoveView[] moves = new MoveView[0];   // Same order as moveIds
+        final Map<Integer, List<MoveView>> lists = new ConcurrentHashMap<>();
+
+        Moveset(int nameHash) {
+            this.nameHash = nameHash;
+        }
+    }
+
+    /**
+     * Everything known about one battle; clear() swaps in a new one, so a lookup that reads
+     * the generation once sees an epoch and movesets that belong together
+     */
+    private static final class Generation {
+        // Kept in the snapshot's mask so masks over forgotten movesets are ignored
+        final int epoch;
+        // Identifies the battle: both teams' species (see rosterOf)
+        final long roster;
+        // Per team, replaced (never changed in place) when a Pokémon is added
+        final AtomicReferenceArray<Moveset[]> teams = new AtomicReferenceArray<>(2);
+
+        Generation(int epoch, long roster) {
+            this.epoch = epoch;
+            this.roster = roster;
+            teams.set(0, new Moveset[0]);
+            teams.set(1, new Moveset[0]);
+        }
+    }
+
+    private volatile Generation current = new Generation(0, 0L);
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Usable moves of a team's active Pokémon in the given state
+     * @param active that Pokémon's view, asked for getAvailableMoves only the first time
+     *               a state is looked up
+     */
+    public List<MoveView> getAvailableMoves(BattleSnapshot state, int team, PokemonView active) {
+        Generation generation = current;
+        Moveset moveset = movesetOf(generation, team, state.getActiveNameHash(team));
+        int stored = state.getAvailableMoveMask(team);
+        if (stored != BattleSnapshot.UNKNOWN_MOVES && (stored >>> EPOCH_SHIFT) == generation.epoch) {
+            hits.increment();
+            return listOf(moveset, stored & MASK_BITS);
+        }
+
+        misses.increment();
+        List<MoveView> moves = active.getAvailableMoves();
+        int mask = maskOf(moveset, moves);
+        if (mask == BattleSnapshot.UNKNOWN_MOVES) {
+            return moves;                      // Moveset too large to index
+        }
+        List<MoveView> list = moveset.lists.putIfAbsent(mask, Collections.unmodifiableList(new ArrayList<>(moves)));
+        if (list == null) {
+            list = moveset.lists.get(mask);
+        }
+        // Published after the list, so a state with this mask always finds it
+        state.setAvailableMoveMask(team, mask | (generation.epoch << EPOCH_SHIFT));
+        return list;
+    }
+
+    /**
+     * Call at the start of each search: a root whose teams are not the indexed battle's
+     * starts a new battle
+     */
+    public void beginSearch(BattleView root) {
+        long roster = rosterOf(root);
+        if (roster != current.roster) {
+            reset(roster);
+        }
+    }
+
+    /**
+     * Forget every moveset
+     */
+    public void clear() {
+        reset(current.roster);
+    }
+
+    private synchronized void reset(long roster) {
+        current = new Generation((current.epoch + 1) & EPOCH_MASK, roster);
+    }
+
+    /**
+     * Hash of both teams' species, in team order
+     */
+    private static long rosterOf(BattleView battleView) {
+        long roster = 1L;
+        for (int team = 0; team < 2; team++) {
+            for (int i = 0; i < battleView.getTeamView(team).size(); i++) {
+                roster = roster * 31L + battleView.getTeamView(team).getPokemonView(i).getName().hashCode();
+            }
+            roster = roster * 31L + team;
+        }
+        return roster;
+    }
+
+    /**
+     * One-line summary: indexed Pokémon and how often a state's moves were already known
+     */
+    public String stats() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        Generation generation = current;
+        return "moveIndex: " + (generation.teams.get(0).length + generation.teams.get(1).length) + " movesets, hit rate " +
+               String.format("%.3f", total > 0 ? (double) h / total : 0.0) + " (" + h + "/" + total + ")";
+    }
+
+    private static Moveset movesetOf(Generation generation, int team, int nameHash) {
+        for (Moveset moveset : generation.teams.get(team)) {
+            if (moveset.nameHash == nameHash) {
+                return moveset;
+            }
+        }
+        synchronized (generation) {
+            Moveset[] known = generation.teams.get(team);
+            for (Moveset moveset : known) {
+                if (moveset.nameHash == nameHash) {
+                    return moveset;
+                }
+            }
+            Moveset added = new Moveset(nameHash);
+            Moveset[] grown = Arrays.copyOf(known, known.length + 1);
+            grown[known.length] = added;
+            generation.teams.set(team, grown);
+            return added;
+        }
+    }
+
+    /**
+     * Bitmask of the given moves over the moveset, adding moves it hasn't seen yet
+     */
+    private int maskOf(Moveset moveset, List<MoveView> moves) {
+        int mask = 0;
+        for (MoveView move : moves) {
+            int id = MoveCatalog.idOf(move);
+            int bit = bitOf(moveset, id);
+            if (bit < 0) {
+                synchronized (moveset) {
+                    bit = bitOf(moveset, id);
+                    if (bit < 0) {
+                        int[] ids = moveset.moveIds;
+                        if (id == MoveCatalog.NO_ID || ids.length == MAX_MOVES) {
+                            return BattleSnapshot.UNKNOWN_MOVES;
+                        }
+                        MoveView[] views = Arrays.copyOf(moveset.moves, ids.length + 1);
+                        views[ids.length] = move;
+                        moveset.moves = views;
+                        int[] grown = Arrays.copyOf(ids, ids.length + 1);
+                        grown[ids.length] = id;
+                        moveset.moveIds = grown;
+                        bit = ids.length;
+                    }
+                }
+            }
+            mask |= 1 << bit;
+        }
+        return mask;
+    }
+
+    private static int bitOf(Moveset moveset, int id) {
+        int[] ids = moveset.moveIds;
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i] == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * The shared list for a mask; it was stored before any state got the mask, so building
+     * one from the moveset (in bit order) is only a fallback
+     */
+    private static List<MoveView> listOf(Moveset moveset, int mask) {
+        List<MoveView> list = moveset.lists.get(mask);
+        if (list == null) {
+            MoveView[] views = moveset.moves;
+            List<MoveView> moves = new ArrayList<>(Integer.bitCount(mask));
+            for (int bit = 0; bit < views.length; bit++) {
+                if ((mask & (1 << bit)) != 0) {
+                    moves.add(views[bit]);
+                }
+            }
+            list = Collections.unmodifiableList(moves);
+            List<MoveView> existing = moveset.lists.putIfAbsent(mask, list);
+            if (existing != null) {
+                list = existing;
+            }
+        }
+        return list;
+    }
+}
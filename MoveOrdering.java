@@ -0,0 +1,125 @@
+package src.pas.pokemon.agents;
+
+import edu.bu.pas.pokemon.core.Move.MoveView;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * History and killer-move tables for ordering MAX/MIN children within one search
+ * - Moves are identified by their name hash, so the same move in different states shares history
+ * - History: how much a move has caused cutoffs, weighted by depth squared
+ * - Killers: the last two moves that caused a cutoff at each ply
+ * - Produces a visiting order only; the generated child order (and so the
+ *   transposition table's best child index) is left alone
+ */
+public class MoveOrdering {
+
+    private static final int SIDES = 2;              // 0 = our moves (MAX), 1 = opponent's (MIN)
+    private static final int HISTORY_SIZE = 1024;
+    private static final int MAX_PLY = 64;
+    private static final int KILLERS_PER_PLY = 2;
+    private static final int MAX_CHILDREN = 16;
+
+    // Scores used to rank the move classes
+    private static final long TT_MOVE_SCORE = Long.MAX_VALUE;
+    private static final long KILLER_SCORE = 1L << 40;
+
+    private final int[][] history = new int[SIDES][HISTORY_SIZE];
+    private final int[][][] killers = new int[SIDES][MAX_PLY][KILLERS_PER_PLY];
+    private final boolean[][][] killerSet = new boolean[SIDES][MAX_PLY][KILLERS_PER_PLY];
+
+    // Per-ply scratch so ordering never allocates
+    private final int[][] orderScratch = new int[MAX_PLY][MAX_CHILDREN];
+    private final long[][] scoreScratch = new long[MAX_PLY][MAX_CHILDREN];
+
+    /**
+     * Compute the visiting order of MAX/MIN children
+     * - The transposition table's best child first, then killers, then by history,
+     *   ties broken by generated order
+     * @return an array whose first children.size() entries are child indices; only valid
+     *         until the next call for the same ply
+     */
+    public int[] order(List<GameNode> children, int ply, boolean maximizing, int ttBestMove) {
+        int size = children.size();
+        int p = clampPly(ply);
+        int side = maximizing ? 0 : 1;
+        
+        // Nested nodes are always at deeper plies, so one scratch row per ply is enough;
+        // anything that doesn't fit gets its own arrays
+        boolean fits = ply < MAX_PLY && size <= MAX_CHILDREN;
+        int[] order = fits ? orderScratch[p] : new int[size];
+        long[] scores = fits ? scoreScratch[p] : new long[size];
+
+        for (int i = 0; i < size; i++) {
+            order[i] = i;
+            if (i == ttBestMove) {
+                scores[i] = TT_MOVE_SCORE;
+                continue;
+            }
+            int key = keyOf(children.get(i).getLastMove());
+            long score = history[side][key & (HISTORY_SIZE - 1)];
+            for (int k = 0; k < KILLERS_PER_PLY; k++) {
+                if (killerSet[side][p][k] && killers[side][p][k] == key) {
+                    score += KILLER_SCORE >> k;
+                }
+            }
+            scores[i] = score;
+        }
+
+        // Insertion sort, descending and stable (a handful of children at most)
+        for (int i = 1; i < size; i++) {
+            int idx = order[i];
+            long score = scores[idx];
+            int j = i - 1;
+            while (j >= 0 && scores[order[j]] < score) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = idx;
+        }
+        return order;
+    }
+
+    /**
+     * Record that a move caused a cutoff at the given ply and remaining depth
+     */
+    public void recordCutoff(MoveView move, int ply, int depth, boolean maximizing) {
+        if (move == null) {
+            return;
+        }
+        int side = maximizing ? 0 : 1;
+        int key = keyOf(move);
+        int slot = key & (HISTORY_SIZE - 1);
+        history[side][slot] = (int) Math.min(Integer.MAX_VALUE, (long) history[side][slot] + (long) depth * depth);
+
+        // Keep two distinct killers per ply, newest first
+        int p = clampPly(ply);
+        if (!(killerSet[side][p][0] && killers[side][p][0] == key)) {
+            killers[side][p][1] = killers[side][p][0];
+            killerSet[side][p][1] = killerSet[side][p][0];
+            killers[side][p][0] = key;
+            killerSet[side][p][0] = true;
+        }
+    }
+
+    /**
+     * Forget everything (start of a new search)
+     */
+    public void clear() {
+        for (int side = 0; side < SIDES; side++) {
+            Arrays.fill(history[side], 0);
+            for (int p = 0; p < MAX_PLY; p++) {
+                Arrays.fill(killerSet[side][p], false);
+            }
+        }
+    }
+
+    private static int keyOf(MoveView move) {
+        return move == null ? 0 : move.getName().hashCode();
+    }
+
+    private static int clampPly(int ply) {
+        return Math.max(0, Math.min(ply, MAX_PLY - 1));
+    }
+}
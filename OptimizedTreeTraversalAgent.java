@@ -9,10 +9,7 @@ import edu.bu.pas.pokemon.utils.Pair;
 import edu.bu.pas.pokemon.core.enums.Stat;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -25,6 +22,12 @@ public class OptimizedTreeTraversalAgent extends TreeTraversalAgent {
     // Override the maxDepth to limit the search depth
     private final int MAX_DEPTH = 4;  // Reduced from 1000
     
+    // Transposition table size per search (entries, rounded up to a power of two)
+    private static final int TT_ENTRIES = 1 << 18;
+    
+    // Fraction of the per-move time limit the search may use
+    private static final double SEARCH_TIME_FRACTION = 0.9;
+    
     @Override
     public int getMaxDepth() {
         return MAX_DEPTH;  // Use our custom depth limit
@@ -32,15 +35,17 @@ public class OptimizedTreeTraversalAgent extends TreeTraversalAgent {
     
     @Override
     public MoveView getMove(BattleView battleView) {
-        // Create our optimized searcher instead of the default one
-        OptimizedStochasticTreeSearcher searcherObject = new OptimizedStochasticTreeSearcher(
-            battleView,
-            this.getMaxDepth(),
-            this.getMyTeamIdx()
-        );
+        // Create our optimized searcher instead of the default one (unless MCTS was selected)
+        AnytimeSearcher searcherObject = (this.getSearchEngine() == SearchEngine.MCTS)
+            ? this.createMonteCarloSearcher(battleView)
+            : new OptimizedStochasticTreeSearcher(
+                battleView,
+                this.getMaxDepth(),
+                this.getMyTeamIdx()
+            );
         
         // Run the search with timeout
-        ExecutorService executor = Executors.newSingleThreadExecutor();
+        ExecutorService executor = this.getSearchExecutor();
         Future<Pair<MoveView, Long>> future = executor.submit(searcherObject);
         
         MoveView move = null;
@@ -56,16 +61,30 @@ public class OptimizedTreeTraversalAgent extends TreeTraversalAgent {
             move = moveAndDuration.getFirst();
             durationInMs = moveAndDuration.getSecond();
             
-            System.out.println("Move selected in " + durationInMs + "ms: " + 
+            if (logsInfo()) {
+                SearchLog.info("Move selected in " + durationInMs + "ms: " + 
                               (move != null ? move.getName() : "null"));
+            }
         } catch (Exception e) {
-            System.err.println("Error in search: " + e.getMessage());
+            if (SearchLog.isWarn()) {
+                SearchLog.warn("Error in search: " + e.getMessage());
+            }
             
-            // Try to get any available move
-            move = getFirstAvailableMove(battleView);
+            // Prefer the best move of the last completed iteration, then any available move
+            searcherObject.stop();
+            future.cancel(true);
+            move = searcherObject.getBestMoveSoFar();
+            if (move == null) {
+                move = getFirstAvailableMove(battleView);
+            }
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            if (move == null) {
+                return this.forfeit("No move after: " + e.getMessage(), e);
+            }
         }
         
-        executor.shutdownNow();
         return move;
     }
     
@@ -84,18 +103,26 @@ public class OptimizedTreeTraversalAgent extends TreeTraversalAgent {
     }
 
     private class OptimizedStochasticTreeSearcher extends Object
-        implements Callable<Pair<MoveView, Long>> {
+        implements AnytimeSearcher {
 
         private final BattleView rootView;
         private final int maxDepth;
         private final int myTeamIdx;
         
-        // Cache for evaluated states to avoid redundant computation
-        private Map<String, Double> stateCache;
+        // Transposition table for evaluated states to avoid redundant computation
+        private TranspositionTable transpositionTable;
+        private final TranspositionTable.Entry ttEntry = new TranspositionTable.Entry();
         
         // Time tracking to prevent timeouts
         private long startTimeMs;
         private long timeoutThresholdMs;
+        private volatile boolean stopped = false;
+        
+        // Iterative deepening state
+        private long nodesEvaluated = 0;
+        private long ttProbes = 0;
+        private long ttHits = 0;
+        private volatile MoveView bestMoveSoFar = null; // Best move of the last completed iteration
         
         // Maximum number of children to consider at MAX and MIN nodes
         private final int MAX_BRANCHING = 4;
@@ -107,25 +134,34 @@ public class OptimizedTreeTraversalAgent extends TreeTraversalAgent {
             this.rootView = rootView;
             this.maxDepth = maxDepth; // This should be set to 3-5, not 1000
             this.myTeamIdx = myTeamIdx;
-            this.stateCache = new HashMap<>();
+            this.transpositionTable = new TranspositionTable(TT_ENTRIES);
             this.startTimeMs = System.currentTimeMillis();
-            this.timeoutThresholdMs = 90000; // 90 seconds (half the allowed time)
+            // Leave a margin of the per-move limit for thread hand-off
+            this.timeoutThresholdMs = (long) (OptimizedTreeTraversalAgent.this.getMaxThinkingTimePerMoveInMS() * SEARCH_TIME_FRACTION);
         }
 
         public BattleView getRootView() { return this.rootView; }
         public int getMaxDepth() { return this.maxDepth; }
         public int getMyTeamIdx() { return this.myTeamIdx; }
+        
+        @Override
+        public MoveView getBestMoveSoFar() { return this.bestMoveSoFar; }
+        
+        @Override
+        public void stop() { this.stopped = true; }
 
         /**
          * Optimized stochastic tree search implementation
          */
         public MoveView stochasticTreeSearch(BattleView rootView) {
             // Reset cache and start time
-            stateCache.clear();
+            transpositionTable.clear();
             startTimeMs = System.currentTimeMillis();
-            
-            // Create the root node
-            GameNode rootNode = new GameNode(rootView, GameNode.NodeType.MAX, 0, null, 1.0, this.getMyTeamIdx());
+            nodesEvaluated = 0;
+            ttProbes = 0;
+            ttHits = 0;
+            long effectsCallsAtStart = GameNode.getPotentialEffectsCalls();
+            getMoveIndex().beginSearch(rootView);
             
             // Get available moves for our active Pokémon
             PokemonView activePokemon = rootView.getTeamView(this.getMyTeamIdx()).getActivePokemonView();
@@ -136,29 +172,90 @@ public class OptimizedTreeTraversalAgent extends TreeTraversalAgent {
             }
             
             MoveView bestMove = availableMoves.get(0);
-            double bestValue = Double.NEGATIVE_INFINITY;
-            
-            // For each available move
-            for (MoveView move : availableMoves) {
-                // Check if search is taking too long
-                if (isTimeRunningOut()) {
-                    System.out.println("Search taking too long, returning best move found so far");
-                    return bestMove;
+            bestMoveSoFar = bestMove;
+            
+            // Iterative deepening up to the depth limit, stopping early when the next
+            // ply is predicted not to fit in the remaining budget
+            SearchBudget budget = new SearchBudget(startTimeMs, timeoutThresholdMs);
+            List<Long> iterationMs = new ArrayList<>();
+            int depthReached = 0;
+            for (int depth = 1; depth <= this.getMaxDepth(); depth++) {
+                if (budget.getCompletedIterations() > 0 && !budget.canAffordNextIteration()) {
+                    break;
                 }
                 
-                // Create a node for this move
-                GameNode moveNode = new GameNode(rootView, GameNode.NodeType.CHANCE, 1, move, 1.0, this.getMyTeamIdx());
+                long nodesBefore = nodesEvaluated;
+                budget.startIteration();
+                SearchEvents.Iteration iterationEvent = new SearchEvents.Iteration();
+                iterationEvent.begin();
+                
+                MoveView iterationBestMove = null;
+                double iterationBestValue = Double.NEGATIVE_INFINITY;
+                
+                // For each available move
+                for (MoveView move : availableMoves) {
+                    // Create a node for this move
+                    GameNode moveNode = new GameNode(rootView, GameNode.NodeType.CHANCE, 1, move, 1.0, this.getMyTeamIdx(),
+                                                     getMoveIndex(), getSearchSeed());
+                    
+                    // Calculate the expected value of this move
+                    SearchEvents.RootMove moveEvent = new SearchEvents.RootMove();
+                    moveEvent.begin();
+                    long moveNodesBefore = nodesEvaluated;
+                    double value = expectiminimax(moveNode, depth);
+                    if (moveEvent.shouldCommit()) {
+                        moveEvent.engine = "optimized";
+                        moveEvent.depth = depth;
+                        moveEvent.move = move.getName();
+                        moveEvent.value = value;
+                        moveEvent.nodes = nodesEvaluated - moveNodesBefore;
+                        moveEvent.commit();
+                    }
+                    
+                    // Update best move if this one is better
+                    if (value > iterationBestValue) {
+                        iterationBestValue = value;
+                        iterationBestMove = move;
+                    }
+                    
+                    // Check if search is taking too long
+                    if (isTimeRunningOut()) {
+                        break;
+                    }
+                }
                 
-                // Calculate the expected value of this move
-                double value = expectiminimax(moveNode, this.getMaxDepth());
+                // Only a completed iteration replaces the previous answer
+                if (isTimeRunningOut()) {
+                    if (logsInfo()) {
+                        SearchLog.info("Search taking too long, returning best move found so far");
+                    }
+                    break;
+                }
                 
-                // Update best move if this one is better
-                if (value > bestValue) {
-                    bestValue = value;
-                    bestMove = move;
+                bestMove = iterationBestMove;
+                bestMoveSoFar = bestMove;
+                budget.finishIteration(nodesEvaluated - nodesBefore);
+                iterationMs.add(budget.getLastIterationMs());
+                depthReached = depth;
+                if (iterationEvent.shouldCommit()) {
+                    iterationEvent.engine = "optimized";
+                    iterationEvent.depth = depth;
+                    iterationEvent.nodes = nodesEvaluated - nodesBefore;
+                    iterationEvent.effectiveBranchingFactor = budget.getEffectiveBranchingFactor();
+                    iterationEvent.bestMove = bestMove.getName();
+                    iterationEvent.commit();
                 }
             }
             
+            // No alpha-beta here, so there are no cutoffs to report
+            long[] iterations = new long[iterationMs.size()];
+            for (int i = 0; i < iterations.length; i++) {
+                iterations[i] = iterationMs.get(i);
+            }
+            setLastSearchMetrics(new SearchMetrics(
+                "optimized", depthReached, nodesEvaluated, System.currentTimeMillis() - startTimeMs,
+                ttProbes, ttHits, 0, 0, 0, 0, budget.getEffectiveBranchingFactor(), iterations,
+                GameNode.getPotentialEffectsCalls() - effectsCallsAtStart));
             return bestMove;
         }
 
@@ -166,6 +263,9 @@ public class OptimizedTreeTraversalAgent extends TreeTraversalAgent {
          * Check if we're approaching the time limit
          */
         private boolean isTimeRunningOut() {
+            if (stopped) {
+                return true;
+            }
             long currentTime = System.currentTimeMillis();
             return (currentTime - startTimeMs) > timeoutThresholdMs;
         }
@@ -174,21 +274,25 @@ public class OptimizedTreeTraversalAgent extends TreeTraversalAgent {
          * Optimized expectiminimax algorithm with caching and pruning
          */
         private double expectiminimax(GameNode node, int depth) {
+            nodesEvaluated++;
+            
             // Check if we're running out of time
             if (isTimeRunningOut()) {
                 return evaluateNode(node);
             }
             
             // Check cache first
-            String stateKey = generateStateKey(node);
-            if (stateCache.containsKey(stateKey)) {
-                return stateCache.get(stateKey);
+            long key = node.getHash();
+            ttProbes++;
+            if (transpositionTable.probe(key, ttEntry) && ttEntry.depth >= depth) {
+                ttHits++;
+                return ttEntry.value;
             }
             
             // Base cases: terminal node or maximum depth reached
             if (node.isTerminal() || depth <= 0) {
                 double value = evaluateNode(node);
-                stateCache.put(stateKey, value);
+                transpositionTable.store(key, value, depth, TranspositionTable.EXACT, TranspositionTable.NO_MOVE);
                 return value;
             }
             
@@ -198,7 +302,7 @@ public class OptimizedTreeTraversalAgent extends TreeTraversalAgent {
             // If no children, evaluate current node
             if (children.isEmpty()) {
                 double value = evaluateNode(node);
-                stateCache.put(stateKey, value);
+                transpositionTable.store(key, value, depth, TranspositionTable.EXACT, TranspositionTable.NO_MOVE);
                 return value;
             }
             
@@ -225,8 +329,13 @@ public class OptimizedTreeTraversalAgent extends TreeTraversalAgent {
                     throw new IllegalStateException("Unknown node type");
             }
             
-            // Cache the result
-            stateCache.put(stateKey, result);
+            // An aborted subtree is not a real result
+            if (isTimeRunningOut()) {
+                return result;
+            }
+            
+            // Cache the result (no alpha-beta here, so every value is exact)
+            transpositionTable.store(key, result, depth, TranspositionTable.EXACT, TranspositionTable.NO_MOVE);
             return result;
         }
         
@@ -322,65 +431,15 @@ public class OptimizedTreeTraversalAgent extends TreeTraversalAgent {
             
             // Normalize probabilities to sum to 1.0
             if (totalProbability > 0) {
-                for (GameNode child : limitedChildren) {
-                    double normalizedProbability = child.getProbability() / totalProbability;
-                    // We can't modify the probability directly, so create a new node
-                    // This is a workaround - ideally we'd modify the existing node
-                    GameNode normalizedNode = new GameNode(
-                        child.getBattleView(),
-                        child.getType(),
-                        child.getDepth(),
-                        child.getLastMove(),
-                        normalizedProbability,
-                        child.getMyTeamIdx()
-                    );
-                    // Replace the old node with the normalized one
-                    int index = limitedChildren.indexOf(child);
-                    limitedChildren.set(index, normalizedNode);
+                for (int i = 0; i < limitedChildren.size(); i++) {
+                    GameNode child = limitedChildren.get(i);
+                    limitedChildren.set(i, child.withProbability(child.getProbability() / totalProbability));
                 }
             }
             
             return limitedChildren;
         }
         
-        /**
-         * Generate a unique key for a game state for caching
-         */
-        private String generateStateKey(GameNode node) {
-            BattleView state = node.getBattleView();
-            StringBuilder key = new StringBuilder();
-            
-            // Add node type and depth
-            key.append(node.getType()).append("|")
-               .append(node.getDepth()).append("|");
-            
-            // Add simplified battle state representation
-            for (int teamIdx = 0; teamIdx < 2; teamIdx++) {
-                TeamView team = state.getTeamView(teamIdx);
-                
-                // Active Pokémon info
-                PokemonView activePokemon = team.getActivePokemonView();
-                key.append(activePokemon.getName())
-                   .append(",")
-                   .append(activePokemon.getCurrentStat(Stat.HP))
-                   .append(",")
-                   .append(activePokemon.getNonVolatileStatus());
-                
-                // Count remaining Pokémon
-                int remainingCount = 0;
-                for (int i = 0; i < team.size(); i++) {
-                    if (!team.getPokemonView(i).hasFainted()) {
-                        remainingCount++;
-                    }
-                }
-                key.append(",").append(remainingCount);
-                
-                key.append(";");
-            }
-            
-            return key.toString();
-        }
-        
         /**
          * Handle MAX node in Expectiminimax
          */
@@ -448,7 +507,7 @@ public class OptimizedTreeTraversalAgent extends TreeTraversalAgent {
             }
             
             // For non-terminal nodes, use the utility heuristic
-            return UtilityCalculator.calculateUtility(node.getBattleView(), this.getMyTeamIdx());
+            return node.getUtilityFeatures().utility();
         }
         
         /**
@@ -466,6 +525,14 @@ public class OptimizedTreeTraversalAgent extends TreeTraversalAgent {
             
             return true; // All opponent Pokémon have fainted
         }
+        
+        @Override
+        public Pair<MoveView, Long> call() throws Exception {
+            double startTime = System.nanoTime();
+            MoveView move = this.stochasticTreeSearch(this.getRootView());
+            double endTime = System.nanoTime();
+            return new Pair<MoveView, Long>(move, (long)((endTime-startTime)/1000000));
+        }
 
     }
 
@@ -0,0 +1,156 @@
+package src.pas.pokemon.agents;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free memo from packed long keys to double values, for the evaluators' hot paths
+ * - Open addressing: a key lives in its home slot or one of the next PROBE_LIMIT - 1 slots
+ * - When all of them are taken by other keys, one is evicted by second chance (CLOCK): a hit
+ *   marks its slot referenced, and the first unreferenced slot of the window goes, clearing
+ *   the marks of the referenced ones passed over. An entry read since it was stored or last
+ *   passed over survives one more eviction than one never read again (the probation and
+ *   protected segments of the BoundedCache LRU this memo replaced, per probe window)
+ * - Each slot is three atomic longs: key ^ value bits, the value bits and the referenced
+ *   mark. A slot torn by two concurrent writers fails verification and reads as a miss (as
+ *   in TranspositionTable); a lost mark only makes an eviction less exact
+ * - Keys must be non-zero (an empty slot reads as key 0)
+ * - get and put never allocate
+ */
+public class PackedKeyMemo {
+
+    private static final int WORDS = 3;
+    private static final int PROBE_LIMIT = 4;
+
+    private final String name;
+    private volatile AtomicLongArray slots;
+    private volatile int mask;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder inserts = new LongAdder();
+
+    /**
+     * @param minEntries capacity, rounded up to a power of two
+     */
+    public PackedKeyMemo(String name, int minEntries) {
+        this.name = name;
+        allocate(minEntries);
+    }
+
+    private void allocate(int minEntries) {
+        int capacity = Integer.highestOneBit(Math.max(PROBE_LIMIT, minEntries) - 1) << 1;
+        this.slots = new AtomicLongArray(capacity * WORDS);
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * @return the memoized value, or NaN on a miss
+     */
+    public double get(long key) {
+        AtomicLongArray table = slots;
+        int slotMask = table.length() / WORDS - 1;
+        int home = index(key, slotMask);
+        for (int i = 0; i < PROBE_LIMIT; i++) {
+            int base = ((home + i) & slotMask) * WORDS;
+            long valueBits = table.get(base + 1);
+            long check = table.get(base);
+            if ((check ^ valueBits) == key) {
+                hits.increment();
+                if (table.get(base + 2) == 0) {
+                    table.lazySet(base + 2, 1);
+                }
+                return Double.longBitsToDouble(valueBits);
+            }
+            if (check == 0 && valueBits == 0) {
+                break;                       // Empty slot, the key was never stored further on
+            }
+        }
+        misses.increment();
+        return Double.NaN;
+    }
+
+    /**
+     * Memoize a value (the first free probe slot, else the slot second chance evicts)
+     */
+    public void put(long key, double value) {
+        AtomicLongArray table = slots;
+        int slotMask = table.length() / WORDS - 1;
+        int home = index(key, slotMask);
+        long valueBits = Double.doubleToRawLongBits(value);
+        int target = -1;
+        for (int i = 0; i < PROBE_LIMIT; i++) {
+            int slot = (home + i) & slotMask;
+            long check = table.get(slot * WORDS);
+            long bits = table.get(slot * WORDS + 1);
+            if (check == 0 && bits == 0) {
+                target = slot;
+                inserts.increment();
+                break;
+            }
+            if ((check ^ bits) == key) {
+                return;                      // Already there
+            }
+        }
+        if (target < 0) {
+            target = victim(table, home, slotMask);
+            evictions.increment();
+        }
+        table.set(target * WORDS + 2, 0);
+        table.set(target * WORDS + 1, valueBits);
+        table.set(target * WORDS, key ^ valueBits);
+    }
+
+    /**
+     * The first unreferenced slot of a full probe window, clearing the marks of the ones
+     * before it; the home slot if every slot was referenced
+     */
+    private static int victim(AtomicLongArray table, int home, int slotMask) {
+        for (int i = 0; i < PROBE_LIMIT; i++) {
+            int slot = (home + i) & slotMask;
+            if (table.get(slot * WORDS + 2) == 0) {
+                return slot;
+            }
+            table.set(slot * WORDS + 2, 0);
+        }
+        return home;
+    }
+
+    /**
+     * Replace the table with an empty one of the given capacity
+     */
+    public void setMaxEntries(int maxEntries) {
+        allocate(maxEntries);
+        inserts.reset();
+    }
+
+    /**
+     * Drop every entry (counters other than the size are kept)
+     */
+    public void clear() {
+        allocate(capacity());
+        inserts.reset();
+    }
+
+    public int capacity() { return mask + 1; }
+    public long getHits() { return hits.sum(); }
+    public long getMisses() { return misses.sum(); }
+    public long getEvictions() { return evictions.sum(); }
+
+    /**
+     * One-line summary: size, capacity, hit rate and evictions
+     */
+    public String stats() {
+        long h = getHits();
+        long total = h + getMisses();
+        return name + ": " + Math.min(inserts.sum(), capacity()) + "/" + capacity() + " entries, hit rate " +
+               String.format("%.3f", total > 0 ? (double) h / total : 0.0) + " (" + h + "/" + total + "), " +
+               getEvictions() + " evictions";
+    }
+
+    private static int index(long key, int slotMask) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32) & slotMask;
+    }
+}
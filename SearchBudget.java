@@ -0,0 +1,77 @@
+package src.pas.pokemon.agents;
+
+/**
+ * Time budget for an iterative deepening search
+ * - Tracks the deadline for one move
+ * - Measures each completed iteration and predicts the cost of the next one from
+ *   the effective branching factor (nodes at depth d / nodes at depth d-1)
+ */
+public class SearchBudget {
+
+    private final long startTimeMs;
+    private final long budgetMs;
+
+    private long iterationStartMs;
+    private long lastIterationMs = 0;
+    private long lastIterationNodes = 0;
+    private double effectiveBranchingFactor = 0.0;
+    private int completedIterations = 0;
+
+    public SearchBudget(long startTimeMs, long budgetMs) {
+        this.startTimeMs = startTimeMs;
+        this.budgetMs = budgetMs;
+        this.iterationStartMs = startTimeMs;
+    }
+
+    public long getBudgetMs() { return budgetMs; }
+    public long getLastIterationMs() { return lastIterationMs; }
+    public double getEffectiveBranchingFactor() { return effectiveBranchingFactor; }
+    public int getCompletedIterations() { return completedIterations; }
+
+    public long elapsedMs() {
+        return System.currentTimeMillis() - startTimeMs;
+    }
+
+    public long remainingMs() {
+        return budgetMs - elapsedMs();
+    }
+
+    public boolean isExpired() {
+        return remainingMs() <= 0;
+    }
+
+    /**
+     * Mark the start of a new iteration
+     */
+    public void startIteration() {
+        iterationStartMs = System.currentTimeMillis();
+    }
+
+    /**
+     * Record a completed iteration and the number of nodes it searched
+     */
+    public void finishIteration(long nodes) {
+        lastIterationMs = System.currentTimeMillis() - iterationStartMs;
+        if (lastIterationNodes > 0) {
+            effectiveBranchingFactor = (double) nodes / lastIterationNodes;
+        }
+        lastIterationNodes = nodes;
+        completedIterations++;
+    }
+
+    /**
+     * Predicted duration of the next (one ply deeper) iteration
+     */
+    public long predictNextIterationMs() {
+        // Until two iterations are measured, assume the next one costs as much again
+        double factor = (completedIterations >= 2) ? Math.max(1.0, effectiveBranchingFactor) : 2.0;
+        return (long) Math.ceil(Math.max(1, lastIterationMs) * factor);
+    }
+
+    /**
+     * Whether the remaining budget is large enough for one more ply
+     */
+    public boolean canAffordNextIteration() {
+        return predictNextIterationMs() < remainingMs();
+    }
+}
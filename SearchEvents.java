@@ -0,0 +1,66 @@
+package src.pas.pokemon.agents;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JDK Flight Recorder events emitted by the searchers
+ * - Disabled events cost a shouldCommit() check; fields are only filled in when recording
+ * - Enable with e.g. -XX:StartFlightRecording:filename=search.jfr and read them under
+ *   "Pokemon Agent / Search" in JDK Mission Control, or with `jfr print --events SearchIteration`
+ */
+final class SearchEvents {
+
+    private SearchEvents() {}
+
+    /**
+     * One completed iterative deepening iteration
+     */
+    @Name("src.pas.pokemon.agents.SearchIteration")
+    @Label("Search Iteration")
+    @Category({ "Pokemon Agent", "Search" })
+    @Description("One completed iterative deepening iteration")
+    static final class Iteration extends Event {
+        @Label("Engine")
+        String engine;
+
+        @Label("Depth")
+        int depth;
+
+        @Label("Nodes")
+        long nodes;
+
+        @Label("Effective Branching Factor")
+        double effectiveBranchingFactor;
+
+        @Label("Best Move")
+        String bestMove;
+    }
+
+    /**
+     * The search of one root move at one depth
+     */
+    @Name("src.pas.pokemon.agents.SearchRootMove")
+    @Label("Search Root Move")
+    @Category({ "Pokemon Agent", "Search" })
+    @Description("The search of one root move at one depth")
+    static final class RootMove extends Event {
+        @Label("Engine")
+        String engine;
+
+        @Label("Depth")
+        int depth;
+
+        @Label("Move")
+        String move;
+
+        @Label("Value")
+        double value;
+
+        @Label("Nodes")
+        long nodes;
+    }
+}
@@ -0,0 +1,172 @@
+package src.pas.pokemon.agents;
+
+import java.io.PrintStream;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Console logging for the agents that stays off the search's timed path
+ * - Levels: OFF, WARN, INFO, DEBUG (per-iteration and per-move detail, everything the
+ *   agents print); the default is DEBUG. INFO is one summary line per searched move
+ *   (move, depth, node and cutoff counts, getPotentialEffects calls, cache stats), plus a
+ *   line for the occasional event: a reused or pondered search, a move cut short, a
+ *   Pokémon choice, the JIT warmup
+ * - Call sites check the level first, e.g. if (SearchLog.isDebug()) SearchLog.debug("..." + x),
+ *   so a disabled message never builds its string
+ * - Messages go into a preallocated ring buffer that a background daemon thread drains to
+ *   the console in order, so searching threads never wait on System.out's lock; when the
+ *   buffer is full, messages are dropped and counted rather than blocking the search
+ * - setAsync(false) prints on the calling thread instead (e.g. to interleave with other output)
+ */
+public final class SearchLog {
+
+    public enum Level {
+        OFF, WARN, INFO, DEBUG
+    }
+
+    private static final int CAPACITY = 1 << 13;
+    private static final int MASK = CAPACITY - 1;
+    private static final long IDLE_PARK_NS = 5_000_000L;
+
+    private static volatile Level level = Level.DEBUG;
+    private static volatile boolean async = true;
+
+    // Slot seq & MASK holds message seq; its level is written before the message is published
+    private static final AtomicReferenceArray<String> messages = new AtomicReferenceArray<>(CAPACITY);
+    private static final Level[] levels = new Level[CAPACITY];
+    private static final AtomicLong head = new AtomicLong();      // Next sequence to claim
+    private static volatile long tail = 0;                        // Next sequence to drain
+    private static volatile long printed = 0;                     // Sequences before this are on the console
+    private static final LongAdder dropped = new LongAdder();
+    private static volatile Thread drainer;
+
+    private SearchLog() {}
+
+    public static Level getLevel() { return level; }
+    public static void setLevel(Level newLevel) { level = newLevel; }
+    public static boolean isAsync() { return async; }
+
+    /**
+     * Queue messages for the drain thread (true) or print them on the calling thread (false)
+     */
+    public static void setAsync(boolean enabled) {
+        if (!enabled) {
+            flush();
+        }
+        async = enabled;
+    }
+
+    public static boolean isWarn() { return level.compareTo(Level.WARN) >= 0; }
+    public static boolean isInfo() { return level.compareTo(Level.INFO) >= 0; }
+    public static boolean isDebug() { return level.compareTo(Level.DEBUG) >= 0; }
+
+    public static void warn(String message) { log(Level.WARN, message); }
+    public static void info(String message) { log(Level.INFO, message); }
+    public static void debug(String message) { log(Level.DEBUG, message); }
+
+    /**
+     * Messages dropped because the buffer was full
+     */
+    public static long getDropped() { return dropped.sum(); }
+
+    private static void log(Level messageLevel, String message) {
+        if (level.compareTo(messageLevel) < 0) {
+            return;
+        }
+        if (!async) {
+            streamFor(messageLevel).println(message);
+            return;
+        }
+
+        long seq;
+        do {
+            seq = head.get();
+            if (seq - tail >= CAPACITY) {
+                dropped.increment();
+                return;
+            }
+        } while (!head.compareAndSet(seq, seq + 1));
+        int slot = (int) (seq & MASK);
+        levels[slot] = messageLevel;
+        messages.set(slot, message);
+
+        Thread thread = drainer;
+        if (thread == null) {
+            thread = startDrainer();
+        }
+        LockSupport.unpark(thread);
+    }
+
+    /**
+     * Wait (up to a second) until everything logged so far has been printed
+     */
+    public static void flush() {
+        long target = head.get();
+        long deadline = System.nanoTime() + 1_000_000_000L;
+        while (printed < target && drainer != null && System.nanoTime() < deadline) {
+            LockSupport.unpark(drainer);
+            LockSupport.parkNanos(100_000L);
+        }
+        System.out.flush();
+    }
+
+    private static synchronized Thread startDrainer() {
+        if (drainer == null) {
+            Thread thread = new Thread(SearchLog::drain, "search-log");
+            thread.setDaemon(true);
+            thread.start();
+            Runtime.getRuntime().addShutdownHook(new Thread(SearchLog::flush, "search-log-flush"));
+            drainer = thread;
+        }
+        return drainer;
+    }
+
+    /**
+     * Drain loop: print messages in sequence order, parking when there are none
+     */
+    private static void drain() {
+        StringBuilder out = new StringBuilder(4096);
+        StringBuilder err = new StringBuilder(256);
+        while (true) {
+            long seq = tail;
+            int slot = (int) (seq & MASK);
+            String message = messages.get(slot);
+            if (message == null) {
+                print(out, err);
+                printed = seq;
+                if (head.get() == seq) {
+                    LockSupport.parkNanos(IDLE_PARK_NS);
+                } else {
+                    Thread.onSpinWait();              // Claimed but not written yet
+                }
+                continue;
+            }
+            Level messageLevel = levels[slot];
+            messages.set(slot, null);
+            tail = seq + 1;
+            (messageLevel == Level.WARN ? err : out).append(message).append('\n');
+            if (out.length() >= 4096) {
+                print(out, err);
+                printed = seq + 1;
+            }
+        }
+    }
+
+    private static void print(StringBuilder out, StringBuilder err) {
+        if (out.length() > 0) {
+            System.out.print(out);
+            System.out.flush();
+            out.setLength(0);
+        }
+        if (err.length() > 0) {
+            System.err.print(err);
+            err.setLength(0);
+        }
+    }
+
+    private static PrintStream streamFor(Level messageLevel) {
+        return messageLevel == Level.WARN ? System.err : System.out;
+    }
+}
@@ -0,0 +1,93 @@
+package src.pas.pokemon.agents;
+
+import java.util.Arrays;
+
+/**
+ * What one search did, readable after getMove (see TreeTraversalAgent.getLastSearchMetrics)
+ * - Counts are totals over every iteration and every root move searcher
+ * - Cutoffs are kept per node type: MAX (beta), MIN (alpha) and CHANCE (Star1/Star2)
+ * - Immutable, so a caller on another thread can hold on to it safely
+ */
+public final class SearchMetrics {
+
+    private final String engine;
+    private final int depthReached;
+    private final long nodes;
+    private final long elapsedMs;
+    private final long ttProbes;
+    private final long ttHits;
+    private final long maxCutoffs;
+    private final long minCutoffs;
+    private final long chanceCutoffs;
+    private final long maxMinNodes;
+    private final double effectiveBranchingFactor;
+    private final long[] iterationMs;
+    private final long potentialEffectsCalls;
+
+    SearchMetrics(String engine, int depthReached, long nodes, long elapsedMs, long ttProbes, long ttHits,
+                  long maxCutoffs, long minCutoffs, long chanceCutoffs, long maxMinNodes,
+                  double effectiveBranchingFactor, long[] iterationMs, long potentialEffectsCalls) {
+        this.engine = engine;
+        this.depthReached = depthReached;
+        this.nodes = nodes;
+        this.elapsedMs = elapsedMs;
+        this.ttProbes = ttProbes;
+        this.ttHits = ttHits;
+        this.maxCutoffs = maxCutoffs;
+        this.minCutoffs = minCutoffs;
+        this.chanceCutoffs = chanceCutoffs;
+        this.maxMinNodes = maxMinNodes;
+        this.effectiveBranchingFactor = effectiveBranchingFactor;
+        this.iterationMs = iterationMs.clone();
+        this.potentialEffectsCalls = potentialEffectsCalls;
+    }
+
+    /**
+     * Which searcher produced these (e.g. "expectiminimax", "optimized")
+     */
+    public String getEngine() { return engine; }
+
+    /**
+     * Deepest iteration that completed (0 if none did)
+     */
+    public int getDepthReached() { return depthReached; }
+    public long getNodes() { return nodes; }
+    public long getElapsedMs() { return elapsedMs; }
+    public long getTtProbes() { return ttProbes; }
+    public long getTtHits() { return ttHits; }
+    public long getMaxCutoffs() { return maxCutoffs; }
+    public long getMinCutoffs() { return minCutoffs; }
+    public long getChanceCutoffs() { return chanceCutoffs; }
+    public double getEffectiveBranchingFactor() { return effectiveBranchingFactor; }
+    public long getPotentialEffectsCalls() { return potentialEffectsCalls; }
+
+    /**
+     * Wall time of each completed iteration, shallowest first
+     */
+    public long[] getIterationMs() { return iterationMs.clone(); }
+
+    public long getNodesPerSecond() {
+        return nodes * 1000L / Math.max(1, elapsedMs);
+    }
+
+    public double getTtHitRate() {
+        return ttProbes > 0 ? (double) ttHits / ttProbes : 0.0;
+    }
+
+    /**
+     * Fraction of expanded MAX/MIN nodes that ended in a cutoff
+     */
+    public double getMaxMinCutoffRate() {
+        return maxMinNodes > 0 ? (double) (maxCutoffs + minCutoffs) / maxMinNodes : 0.0;
+    }
+
+    @Override
+    public String toString() {
+        return engine + ": depth " + depthReached + ", " + nodes + " nodes in " + elapsedMs + "ms (" +
+               getNodesPerSecond() + "/s), TT hit rate " + String.format("%.3f", getTtHitRate()) +
+               ", cutoffs MAX/MIN/CHANCE " + maxCutoffs + "/" + minCutoffs + "/" + chanceCutoffs +
+               ", EBF " + String.format("%.2f", effectiveBranchingFactor) +
+               ", iterations " + Arrays.toString(iterationMs) + "ms" +
+               ", getPotentialEffects calls " + potentialEffectsCalls;
+    }
+}
@@ -3,22 +3,72 @@ package src.pas.pokemon.agents;
 import edu.bu.pas.pokemon.core.Battle.BattleView;
 import edu.bu.pas.pokemon.core.Move.MoveView;
 import edu.bu.pas.pokemon.core.Pokemon.PokemonView;
+import edu.bu.pas.pokemon.core.enums.Type;
 import edu.bu.pas.pokemon.utils.Pair;
 
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
 import java.util.ArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * This class contains diagnostic tests to help identify performance issues
  * in the TreeTraversalAgent implementation.
+ * Correctness checks (values that must match, counts that must agree) go through expect();
+ * any failed check, or an exception, fails the run (main exits with status 1, run() returns
+ * the failure count).
+ * The tests run on a real battle state handed to run(); this class builds no BattleViews.
  */
 public class TimeoutDiagnostic {
     
+    // Failed expect() checks so far
+    private static int failures = 0;
+    
+    // The state the tests run on (see run)
+    private static BattleView state;
+    
+    // Per-move limit and fixed depth for the tests that run whole searches, so each one
+    // takes seconds rather than the agent's default limit
+    private static final long TEST_MOVE_TIME_MS = 5000;
+    private static final int TEST_DEPTH = 3;
+    
     /**
      * Main method to run diagnostics
+     * - Only the tests that need no battle state run from here: the diagnostics don't build
+     *   BattleViews themselves, the rest run on a real game's state through run(), e.g. by
+     *   playing a game with HarnessAgent (-Dpas.harness=diagnostics)
      */
     public static void main(String[] args) {
-        // Run a series of tests with increasing complexity
+        System.out.println("Starting diagnostics for TreeTraversalAgent (no battle state: state tests skipped)...");
+        failures = 0;
+        try {
+            // Test 14: Every type effectiveness path agrees with the shared TypeChart
+            testTypeChart();
+        } catch (Exception e) {
+            System.err.println("Diagnostic failed with exception: " + e.getMessage());
+            e.printStackTrace();
+            System.exit(1);
+        }
+        if (failures > 0) {
+            System.err.println(failures + " diagnostic check(s) FAILED");
+            System.exit(1);
+        }
+        System.out.println("All diagnostics completed successfully!");
+    }
+    
+    /**
+     * Run every diagnostic on a real battle state, searched for team 0
+     * @return the number of failed checks (an exception counts as one)
+     */
+    public static int run(BattleView battleView) {
+        state = battleView;
+        failures = 0;
         try {
             System.out.println("Starting diagnostics for TreeTraversalAgent...");
             
@@ -31,11 +81,130 @@ public class TimeoutDiagnostic {
             // Test 3: Expectiminimax algorithm
             testExpectiminimaxAlgorithm();
             
-            System.out.println("All diagnostics completed successfully!");
+            // Test 4: Parallel root-split scaling
+            testRootSplitSpeedup();
+            
+            // Test 5: Lazy SMP scaling
+            testLazySmpScaling();
+            
+            // Test 6: Star1/Star2 pruning must not change CHANCE node values
+            testChancePruningEquivalence();
+            
+            // Test 7: MCTS against the expectiminimax searchers
+            testSearchEngineComparison();
+            
+            // Test 8: History/killer ordering at MAX/MIN nodes
+            testMoveOrdering();
+            
+            // Test 9: Reusing the last turn's tables for the next turn
+            testSearchReuse();
+            
+            // Test 10: Pondering on the opponent's time
+            testPondering();
+            
+            // Test 11: Leaf evaluation from BattleView getters vs a BattleSnapshot
+            testSnapshotEvaluation();
+            
+            // Test 12: MCTS tree store allocation, fresh vs reused arena
+            testArenaAllocation();
+            
+            // Test 13: Lazy CHANCE expansion, getPotentialEffects calls saved
+            testLazyChanceExpansion();
+            
+            // Test 14: Every type effectiveness path agrees with the shared TypeChart
+            testTypeChart();
+            
+            // Test 15: evaluateMove memo, allocation and time per call
+            testMoveEvaluationMemo();
+            
+            // Test 16: Per-state move lists from the move index
+            testMoveIndex();
+            
+            // Test 17: Incremental utility terms against calculateUtility
+            testIncrementalEvaluation();
+            
+            // Test 18: Batched leaf evaluation, throughput and search values
+            testBatchLeafEvaluation();
+            
+            // Test 19: Search metrics after each search, for both searchers
+            testSearchMetrics();
+            
+            // Test 20: Bytes allocated and time per search at each log level
+            testLoggingOverhead();
+            
+            // Test 21: Persistent search executor, hand-off cost and thread count over many battles
+            testSearchExecutor();
+            
         } catch (Exception e) {
             System.err.println("Diagnostic failed with exception: " + e.getMessage());
             e.printStackTrace();
+            failures++;
+        }
+        if (failures > 0) {
+            System.err.println(failures + " diagnostic check(s) FAILED");
+        } else {
+            System.out.println("All diagnostics completed successfully!");
         }
+        return failures;
+    }
+    
+    /**
+     * Record a correctness check; a failed one is printed and fails the run
+     */
+    private static void expect(boolean ok, String failure) {
+        if (!ok) {
+            failures++;
+            System.out.println("FAILED: " + failure);
+        }
+    }
+    
+    /**
+     * One way of valuing a root move node to a depth (see compareRootMoveValues)
+     */
+    private interface Valuation {
+        double value(GameNode moveNode, int depth);
+    }
+    
+    /**
+     * Value every root move of the state at each depth from minDepth to maxDepth with each
+     * valuation, and expect every value to match the first valuation's
+     * - Prints, per depth, the time and getPotentialEffects calls each valuation took
+     */
+    private static void compareRootMoveValues(BattleView state, int myTeamIdx, int minDepth, int maxDepth,
+                                              String[] names, Valuation... valuations) {
+        List<MoveView> moves = state.getTeamView(myTeamIdx).getActivePokemonView().getAvailableMoves();
+        int mismatches = 0;
+        for (int depth = minDepth; depth <= maxDepth; depth++) {
+            long[] elapsedNs = new long[valuations.length];
+            long[] calls = new long[valuations.length];
+            
+            for (MoveView move : moves) {
+                GameNode moveNode = new GameNode(state, GameNode.NodeType.CHANCE, 1, move, 1.0, myTeamIdx);
+                double[] values = new double[valuations.length];
+                for (int v = 0; v < valuations.length; v++) {
+                    long callsBefore = GameNode.getPotentialEffectsCalls();
+                    long startTime = System.nanoTime();
+                    values[v] = valuations[v].value(moveNode, depth);
+                    elapsedNs[v] += System.nanoTime() - startTime;
+                    calls[v] += GameNode.getPotentialEffectsCalls() - callsBefore;
+                }
+                for (int v = 1; v < valuations.length; v++) {
+                    if (!(Math.abs(values[0] - values[v]) <= 1e-6)) {  // NaN counts as a mismatch
+                        mismatches++;
+                        System.out.println("MISMATCH at depth " + depth + " for " + move.getName() + ": " + 
+                                          names[0] + " " + values[0] + ", " + names[v] + " " + values[v]);
+                    }
+                }
+            }
+            
+            StringBuilder line = new StringBuilder("Depth " + depth + ":");
+            for (int v = 0; v < valuations.length; v++) {
+                line.append(v > 0 ? "," : "").append(' ').append(names[v]).append(' ')
+                    .append(elapsedNs[v] / 1000000).append("ms (").append(calls[v]).append(" calls)");
+            }
+            System.out.println(line);
+        }
+        expect(mismatches == 0, mismatches + " root move values differ from " + names[0]);
     }
     
     /**
@@ -126,43 +295,913 @@ public class TimeoutDiagnostic {
     }
     
     /**
-     * Test 3: Measure the performance of the expectiminimax algorithm
+     * Test 3: A time-limited search must return a move within the per-move limit
+     * - TEST_MOVE_TIME_MS instead of the agent's default, with a second of slack for the
+     *   search to notice the deadline and unwind
      */
     private static void testExpectiminimaxAlgorithm() {
         System.out.println("\n=== Testing Expectiminimax Algorithm ===");
         
-        // Create a TreeTraversalAgent
         TreeTraversalAgent agent = new TreeTraversalAgent();
+        agent.setMaxThinkingTimePerMoveInMS(TEST_MOVE_TIME_MS);
+        BattleView mockBattleView = createMockBattleView();
+        
+        long startTime = System.currentTimeMillis();
+        MoveView move = agent.stochasticTreeSearch(mockBattleView);
+        long duration = System.currentTimeMillis() - startTime;
+        
+        System.out.println("Full stochasticTreeSearch completed in " + duration + "ms (limit " + TEST_MOVE_TIME_MS + 
+                          "ms), depth " + agent.getLastSearchDepth() + ", move " + 
+                          (move != null ? move.getName() : "null"));
+        expect(move != null, "the search returned no move");
+        expect(duration <= TEST_MOVE_TIME_MS + 1000, "the search took " + duration + "ms, over the " + 
+               TEST_MOVE_TIME_MS + "ms limit");
+    }
+    
+    /**
+     * Test 4: Speedup of the parallel root-split search with 1, 2 and 4 threads
+     * - Fixed-depth searches, so every thread count searches the same tree; each root move's
+     *   value at each depth must match the serial search's
+     */
+    private static void testRootSplitSpeedup() {
+        System.out.println("\n=== Testing Root-Split Speedup ===");
+        
+        BattleView mockBattleView = createMockBattleView();
+        int maxThreads = Math.min(4, Runtime.getRuntime().availableProcessors());
+        List<Integer> threadCounts = new ArrayList<>();
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            threadCounts.add(threads);
+        }
+        
+        TreeTraversalAgent agent = new TreeTraversalAgent();
+        agent.setSearchSeed(42L);
+        agent.stochasticTreeSearch(mockBattleView, 1);
+        if (agent.getLastSearchDepth() == 0) {
+            System.out.println("Search picked its move without searching, nothing to compare");
+            return;
+        }
+        
+        String[] names = new String[threadCounts.size()];
+        Valuation[] valuations = new Valuation[threadCounts.size()];
+        for (int i = 0; i < threadCounts.size(); i++) {
+            names[i] = threadCounts.get(i) + " thread(s)";
+            valuations[i] = rootSplitValuation(agent, mockBattleView, threadCounts.get(i));
+        }
+        compareRootMoveValues(mockBattleView, 0, 1, 3, names, valuations);
+        
+        agent.setSearchParallelism(1);
+    }
+    
+    /**
+     * Root move values from one fixed-depth search with the given thread count per depth
+     * - The search runs when a depth is first asked for; the other root moves of that depth
+     *   read its results
+     */
+    private static Valuation rootSplitValuation(TreeTraversalAgent agent, BattleView state, int threads) {
+        Map<Integer, Map<String, Double>> valuesByDepth = new HashMap<>();
+        return (node, depth) -> valuesByDepth.computeIfAbsent(depth, d -> {
+            agent.setSearchParallelism(threads);
+            agent.stochasticTreeSearch(state, d);
+            return agent.getLastRootValues();
+        }).getOrDefault(node.getLastMove().getName(), Double.NaN);
+    }
+    
+    /**
+     * Test 5: Lazy SMP with 1, 2 and 4 threads on a TEST_DEPTH search
+     * - Prints each run's time; Lazy SMP values are not deterministic (helpers search deeper
+     *   into the shared table), so only a move is required of each run
+     */
+    private static void testLazySmpScaling() {
+        System.out.println("\n=== Testing Lazy SMP Scaling ===");
+        
+        BattleView mockBattleView = createMockBattleView();
+        int maxThreads = Math.min(4, Runtime.getRuntime().availableProcessors());
+        
+        TreeTraversalAgent agent = new TreeTraversalAgent();
+        agent.setMaxThinkingTimePerMoveInMS(TEST_MOVE_TIME_MS);
+        agent.setParallelMode(TreeTraversalAgent.ParallelMode.LAZY_SMP);
+        
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            agent.setSearchParallelism(threads);
+            
+            long startTime = System.currentTimeMillis();
+            MoveView move = agent.stochasticTreeSearch(mockBattleView, TEST_DEPTH);
+            long duration = System.currentTimeMillis() - startTime;
+            
+            System.out.println("Threads: " + threads + ", time: " + duration + "ms" + 
+                              ", move: " + (move != null ? move.getName() : "null"));
+            expect(move != null, "Lazy SMP with " + threads + " thread(s) returned no move");
+        }
+        
+        agent.setSearchParallelism(1);
+    }
+    
+    /**
+     * Test 6: CHANCE node pruning (Star1/Star2) against plain expectimax
+     * Every root move is evaluated at depths 1..4 with pruning on and off; both values must
+     * match referenceExpectimax, which searches the full tree without windows or a table
+     */
+    private static void testChancePruningEquivalence() {
+        System.out.println("\n=== Testing CHANCE Node Pruning Equivalence ===");
+        
+        TreeTraversalAgent agent = new TreeTraversalAgent();
+        compareRootMoveValues(createMockBattleView(), 0, 1, 4, new String[] { "reference", "plain", "pruned" },
+            TimeoutDiagnostic::referenceExpectimax,
+            (node, depth) -> {
+                agent.setChanceNodePruning(false);
+                return agent.expectiminimax(node, depth);
+            },
+            (node, depth) -> {
+                agent.setChanceNodePruning(true);
+                return agent.expectiminimax(node, depth);
+            });
+    }
+    
+    /**
+     * Unpruned, untruncated expectimax for the equivalence tests
+     * - No alpha-beta, no CHANCE windows, no transposition table, no early exits
+     * - Leaves are scored the way the searcher scores them: ±10000 for a decided battle,
+     *   otherwise the utility clamped to [-10000, 10000]
+     */
+    private static double referenceExpectimax(GameNode node, int depth) {
+        if (node.isTerminal()) {
+            BattleView battleView = node.getBattleView();
+            if (allFainted(battleView, 1 - node.getMyTeamIdx())) return 10000.0;
+            if (allFainted(battleView, node.getMyTeamIdx())) return -10000.0;
+            return 0.0;
+        }
+        boolean chance = node.getType() == GameNode.NodeType.CHANCE;
+        List<GameNode> children = (depth <= 0) ? null : (chance ? node.getOutcomes().getAll() : node.getChildren());
+        if (children == null || children.isEmpty()) {
+            return Math.max(-10000.0, Math.min(10000.0, node.getUtilityFeatures().utility()));
+        }
+        
+        if (chance) {
+            double totalProbability = 0.0;
+            double weightedSum = 0.0;
+            for (GameNode child : children) {
+                if (child.getProbability() > 0) {
+                    totalProbability += child.getProbability();
+                    weightedSum += child.getProbability() * referenceExpectimax(child, depth - 1);
+                }
+            }
+            return totalProbability > 0 ? weightedSum / totalProbability : 0.0;
+        }
+        boolean max = node.getType() == GameNode.NodeType.MAX;
+        double best = max ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+        for (GameNode child : children) {
+            double value = referenceExpectimax(child, depth - 1);
+            best = max ? Math.max(best, value) : Math.min(best, value);
+        }
+        return best;
+    }
+    
+    private static boolean allFainted(BattleView battleView, int teamIdx) {
+        for (int i = 0; i < battleView.getTeamView(teamIdx).size(); i++) {
+            if (!battleView.getTeamView(teamIdx).getPokemonView(i).hasFainted()) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Test 7: The search engines on the same position
+     * - Expectiminimax to TEST_DEPTH, MCTS for the same wall time, and the optimized agent
+     *   through its getMove with TEST_MOVE_TIME_MS; each must return a move (which move is
+     *   printed, not compared: the engines differ by design)
+     */
+    private static void testSearchEngineComparison() {
+        System.out.println("\n=== Comparing Search Engines ===");
+        
+        BattleView mockBattleView = createMockBattleView();
+        
+        // Expectiminimax (TreeTraversalAgent)
+        TreeTraversalAgent agent = new TreeTraversalAgent();
+        agent.setMaxThinkingTimePerMoveInMS(TEST_MOVE_TIME_MS);
+        long startTime = System.currentTimeMillis();
+        MoveView expectiminimaxMove = agent.stochasticTreeSearch(mockBattleView, TEST_DEPTH);
+        long expectiminimaxTime = System.currentTimeMillis() - startTime;
+        
+        // MCTS with the same wall time the expectiminimax search used
+        MonteCarloTreeSearcher mcts = new MonteCarloTreeSearcher(mockBattleView, 0, Math.max(1, expectiminimaxTime), 42L);
+        startTime = System.currentTimeMillis();
+        MoveView mctsMove = mcts.search();
+        long mctsTime = Math.max(1, System.currentTimeMillis() - startTime);
+        
+        // Optimized agent through its own getMove
+        OptimizedTreeTraversalAgent optimizedAgent = new OptimizedTreeTraversalAgent();
+        optimizedAgent.setMaxThinkingTimePerMoveInMS(TEST_MOVE_TIME_MS);
+        startTime = System.currentTimeMillis();
+        MoveView optimizedMove = optimizedAgent.getMove(mockBattleView);
+        long optimizedTime = System.currentTimeMillis() - startTime;
+        
+        System.out.println("Expectiminimax: " + (expectiminimaxMove != null ? expectiminimaxMove.getName() : "null") + 
+                          " in " + expectiminimaxTime + "ms");
+        System.out.println("Optimized:      " + (optimizedMove != null ? optimizedMove.getName() : "null") + 
+                          " in " + optimizedTime + "ms");
+        System.out.println("MCTS:           " + (mctsMove != null ? mctsMove.getName() : "null") + 
+                          " in " + mctsTime + "ms (" + (mcts.getSimulations() * 1000 / mctsTime) + " simulations/sec)");
+        expect(expectiminimaxMove != null, "expectiminimax returned no move");
+        expect(optimizedMove != null, "the optimized agent returned no move");
+        expect(mctsMove != null, "MCTS returned no move");
+    }
+    
+    /**
+     * Test 8: History/killer move ordering must not change any root move's value
+     * - Each root move is searched with a full window, so ordering only changes which
+     *   branches are cut; compareRootMoveValues prints the time each way took
+     */
+    private static void testMoveOrdering() {
+        System.out.println("\n=== Testing Move Ordering ===");
+        
+        TreeTraversalAgent agent = new TreeTraversalAgent();
+        compareRootMoveValues(createMockBattleView(), 0, 1, TEST_DEPTH, new String[] { "unordered", "ordered" },
+            (node, depth) -> {
+                agent.setMoveOrdering(false);
+                return agent.expectiminimax(node, depth);
+            },
+            (node, depth) -> {
+                agent.setMoveOrdering(true);
+                return agent.expectiminimax(node, depth);
+            });
+    }
+    
+    /**
+     * Test 9: Play one turn, then search a state that follows from the played move,
+     * once cold and once warm-started from the first turn's tables
+     * - The first turn searches two plies deeper than the second, so its entries for the
+     *   next state are deep enough to answer the second search's probes; warm-started, the
+     *   second search must not visit more nodes than cold
+     */
+    private static void testSearchReuse() {
+        System.out.println("\n=== Testing Search Reuse Across Turns ===");
+        
+        BattleView mockBattleView = createMockBattleView();
+        int myTeamIdx = 0;
+        int secondDepth = TEST_DEPTH - 1;
+        TreeTraversalAgent agent = new TreeTraversalAgent();
+        agent.setMaxThinkingTimePerMoveInMS(TEST_MOVE_TIME_MS);
+        
+        MoveView played = agent.stochasticTreeSearch(mockBattleView, secondDepth + 2);
+        if (played == null) {
+            System.out.println("No move to play, skipping");
+            return;
+        }
+        
+        // Next turn's state: the first outcome of the move we played
+        GameNode playedNode = new GameNode(mockBattleView, GameNode.NodeType.CHANCE, 1, played, 1.0, myTeamIdx);
+        List<GameNode> outcomes = playedNode.getChildren();
+        if (outcomes.isEmpty()) {
+            System.out.println("Played move has no outcomes, skipping");
+            return;
+        }
+        BattleView nextView = outcomes.get(0).getBattleView();
+        
+        // Cold: nothing recorded as played, so the tables start empty
+        MoveView coldMove = agent.stochasticTreeSearch(nextView, secondDepth);
+        SearchMetrics cold = agent.getLastSearchMetrics();
+        
+        // Warm: replay the first turn and record the move so the second search reuses it
+        agent.stochasticTreeSearch(mockBattleView, secondDepth + 2);
+        agent.recordPlayedMove(played);
+        MoveView warmMove = agent.stochasticTreeSearch(nextView, secondDepth);
+        SearchMetrics warm = agent.getLastSearchMetrics();
+        
+        System.out.println("Cold: " + (coldMove != null ? coldMove.getName() : "null") + " in " + 
+                          cold.getElapsedMs() + "ms, " + cold.getNodes() + " nodes");
+        System.out.println("Warm: " + (warmMove != null ? warmMove.getName() : "null") + " in " + 
+                          warm.getElapsedMs() + "ms, " + warm.getNodes() + " nodes");
+        expect(warm.getNodes() <= cold.getNodes(), "warm-started search visited " + warm.getNodes() + 
+               " nodes, more than the cold search's " + cold.getNodes());
+    }
+    
+    /**
+     * Test 10: Same per-move time for the second turn, with and without pondering in between
+     * Pondering should let the second search complete a deeper iteration
+     */
+    private static void testPondering() throws InterruptedException {
+        System.out.println("\n=== Testing Pondering ===");
+        
+        BattleView mockBattleView = createMockBattleView();
+        long moveTimeMs = 2000;
+        long opponentTimeMs = 2000;
+        
+        int[] depths = new int[2];
+        for (int run = 0; run < 2; run++) {
+            boolean ponder = (run == 1);
+            TreeTraversalAgent agent = new TreeTraversalAgent();
+            agent.setMaxThinkingTimePerMoveInMS(moveTimeMs);
+            
+            MoveView played = agent.stochasticTreeSearch(mockBattleView);
+            if (played == null) {
+                System.out.println("No move to play, skipping");
+                return;
+            }
+            agent.recordPlayedMove(played);
+            
+            // The opponent's turn: either idle or pondering for the same time
+            if (ponder) {
+                agent.startPondering(mockBattleView, played);
+            }
+            Thread.sleep(opponentTimeMs);
+            if (ponder) {
+                agent.stopPondering();
+            }
+            
+            GameNode playedNode = new GameNode(mockBattleView, GameNode.NodeType.CHANCE, 1, played, 1.0, 0);
+            List<GameNode> outcomes = playedNode.getChildren();
+            if (outcomes.isEmpty()) {
+                System.out.println("Played move has no outcomes, skipping");
+                return;
+            }
+            agent.stochasticTreeSearch(outcomes.get(0).getBattleView());
+            depths[run] = agent.getLastSearchDepth();
+        }
+        
+        System.out.println("Completed depth in " + moveTimeMs + "ms: without pondering " + depths[0] + 
+                          ", with pondering " + depths[1]);
+    }
+    
+    /**
+     * Test 11: Leaf evaluation through the BattleView getters against the compact snapshot
+     * Both must give the same utility; the snapshot path should be several times faster
+     */
+    private static void testSnapshotEvaluation() {
+        System.out.println("\n=== Benchmarking Snapshot Evaluation ===");
+        
+        BattleView mockBattleView = createMockBattleView();
+        int myTeamIdx = 0;
+        int iterations = 100000;
+        
+        // A few distinct leaf states: the root and the outcomes of each root move
+        List<BattleView> states = new ArrayList<>();
+        states.add(mockBattleView);
+        GameNode rootNode = new GameNode(mockBattleView, GameNode.NodeType.MAX, 0, null, 1.0, myTeamIdx);
+        for (GameNode moveNode : rootNode.getChildren()) {
+            for (GameNode outcome : moveNode.getChildren()) {
+                states.add(outcome.getBattleView());
+            }
+        }
+        List<BattleSnapshot> snapshots = new ArrayList<>();
+        for (BattleView state : states) {
+            snapshots.add(BattleSnapshot.of(state));
+        }
+        
+        int mismatches = 0;
+        for (int i = 0; i < states.size(); i++) {
+            double fromView = UtilityCalculator.calculateUtility(states.get(i), myTeamIdx);
+            double fromSnapshot = UtilityCalculator.calculateUtility(snapshots.get(i), myTeamIdx);
+            if (fromView != fromSnapshot) {
+                mismatches++;
+            }
+        }
+        
+        // Warm up both paths, then time them
+        double sink = 0;
+        for (int i = 0; i < iterations; i++) {
+            sink += UtilityCalculator.calculateUtility(states.get(i % states.size()), myTeamIdx);
+            sink += UtilityCalculator.calculateUtility(snapshots.get(i % snapshots.size()), myTeamIdx);
+        }
+        
+        long startTime = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += UtilityCalculator.calculateUtility(states.get(i % states.size()), myTeamIdx);
+        }
+        long viewNs = System.nanoTime() - startTime;
+        
+        startTime = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += UtilityCalculator.calculateUtility(snapshots.get(i % snapshots.size()), myTeamIdx);
+        }
+        long snapshotNs = System.nanoTime() - startTime;
+        
+        System.out.println(states.size() + " states, " + mismatches + " mismatches (checksum " + sink + ")");
+        expect(mismatches == 0, mismatches + " snapshot utilities differ from the BattleView ones");
+        System.out.println("BattleView (snapshot taken per call): " + (viewNs / iterations) + "ns/eval");
+        System.out.println("Snapshot (taken once per node):       " + (snapshotNs / iterations) + "ns/eval");
+        System.out.println("Snapshot size: ~" + snapshots.get(0).sizeInBytes() + " bytes");
+    }
+    
+    /**
+     * Test 12: Bytes allocated and GC time per MCTS search, first with a fresh arena, then
+     * with the same arena reused (its arrays already grown)
+     */
+    private static void testArenaAllocation() {
+        System.out.println("\n=== Testing Tree Arena Allocation ===");
+        
+        BattleView mockBattleView = createMockBattleView();
+        long simulationsPerSearch = 20000;
+        com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        GameTreeArena arena = new GameTreeArena();
+        MoveIndex moveIndex = new MoveIndex();
+        
+        for (int run = 0; run < 3; run++) {
+            MonteCarloTreeSearcher mcts = new MonteCarloTreeSearcher(mockBattleView, 0, Long.MAX_VALUE,
+                                                                     simulationsPerSearch, 42L, arena, moveIndex);
+            long gcBefore = totalGcMillis();
+            long bytesBefore = threads.getThreadAllocatedBytes(threadId);
+            mcts.search();
+            long bytes = threads.getThreadAllocatedBytes(threadId) - bytesBefore;
+            long gcMs = totalGcMillis() - gcBefore;
+            
+            System.out.println((run == 0 ? "Fresh arena:  " : "Reused arena: ") + 
+                              (bytes / Math.max(1, mcts.getSimulations())) + " bytes/simulation, " + 
+                              arena.size() + " nodes (capacity " + arena.capacity() + "), GC " + gcMs + "ms");
+        }
+    }
+    
+    /**
+     * Test 13: Search each root move with CHANCE outcome groups expanded up front and lazily;
+     * the values must match, lazily there should be fewer getPotentialEffects calls
+     */
+    private static void testLazyChanceExpansion() {
+        System.out.println("\n=== Testing Lazy CHANCE Expansion ===");
+        
+        TreeTraversalAgent agent = new TreeTraversalAgent();
+        compareRootMoveValues(createMockBattleView(), 0, 1, 4, new String[] { "eager", "lazy" },
+            (node, depth) -> {
+                agent.setLazyChanceExpansion(false);
+                return agent.expectiminimax(node, depth);
+            },
+            (node, depth) -> {
+                agent.setLazyChanceExpansion(true);
+                return agent.expectiminimax(node, depth);
+            });
+    }
+    
+    // The chart the if-chains in UtilityCalculator.getTypeEffectiveness encoded before
+    // TypeChart replaced them: rows are attack types, columns defender types, both in
+    // BASELINE_TYPES order (by name, so the check doesn't depend on the enum's order)
+    private static final String[] BASELINE_TYPES = {
+        "NORMAL", "FIRE", "WATER", "ELECTRIC", "GRASS", "ICE", "FIGHTING", "POISON",
+        "GROUND", "FLYING", "PSYCHIC", "BUG", "ROCK", "GHOST", "DRAGON"
+    };
+    private static final double[][] BASELINE_CHART = {
+        { 1.0, 1.0, 1.0, 1.0, 1.0, 1.0, 1.0, 1.0, 1.0, 1.0, 1.0, 1.0, 0.5, 0.0, 1.0 },  // NORMAL
+        { 1.0, 0.5, 0.5, 1.0, 2.0, 2.0, 1.0, 1.0, 1.0, 1.0, 1.0, 2.0, 0.5, 1.0, 0.5 },  // FIRE
+        { 1.0, 2.0, 0.5, 1.0, 0.5, 1.0, 1.0, 1.0, 2.0, 1.0, 1.0, 1.0, 2.0, 1.0, 0.5 },  // WATER
+        { 1.0, 1.0, 2.0, 0.5, 0.5, 1.0, 1.0, 1.0, 0.0, 2.0, 1.0, 1.0, 1.0, 1.0, 0.5 },  // ELECTRIC
+        { 1.0, 0.5, 2.0, 1.0, 0.5, 1.0, 1.0, 0.5, 2.0, 0.5, 1.0, 0.5, 2.0, 1.0, 0.5 },  // GRASS
+        { 1.0, 0.5, 0.5, 1.0, 2.0, 0.5, 1.0, 1.0, 2.0, 2.0, 1.0, 1.0, 1.0, 1.0, 2.0 },  // ICE
+        { 2.0, 1.0, 1.0, 1.0, 1.0, 2.0, 1.0, 0.5, 1.0, 0.5, 0.5, 0.5, 2.0, 0.0, 1.0 },  // FIGHTING
+        { 1.0, 1.0, 1.0, 1.0, 2.0, 1.0, 1.0, 0.5, 0.5, 1.0, 1.0, 1.0, 0.5, 0.5, 1.0 },  // POISON
+        { 1.0, 2.0, 1.0, 2.0, 0.5, 1.0, 1.0, 2.0, 1.0, 0.0, 1.0, 0.5, 2.0, 1.0, 1.0 },  // GROUND
+        { 1.0, 1.0, 1.0, 0.5, 2.0, 1.0, 2.0, 1.0, 1.0, 1.0, 1.0, 2.0, 0.5, 1.0, 1.0 },  // FLYING
+        { 1.0, 1.0, 1.0, 1.0, 1.0, 1.0, 2.0, 2.0, 1.0, 1.0, 0.5, 1.0, 1.0, 1.0, 1.0 },  // PSYCHIC
+        { 1.0, 0.5, 1.0, 1.0, 2.0, 1.0, 0.5, 0.5, 1.0, 0.5, 2.0, 1.0, 1.0, 0.5, 1.0 },  // BUG
+        { 1.0, 2.0, 1.0, 1.0, 1.0, 2.0, 0.5, 1.0, 0.5, 2.0, 1.0, 2.0, 1.0, 1.0, 1.0 },  // ROCK
+        { 0.0, 1.0, 1.0, 1.0, 1.0, 1.0, 1.0, 1.0, 1.0, 1.0, 2.0, 1.0, 1.0, 2.0, 1.0 },  // GHOST
+        { 1.0, 1.0, 1.0, 1.0, 1.0, 1.0, 1.0, 1.0, 1.0, 1.0, 1.0, 1.0, 1.0, 1.0, 2.0 }   // DRAGON
+    };
+    
+    /**
+     * Test 14: TypeChart, UtilityCalculator and TreeTraversalAgent must match the chart the
+     * old if-chains encoded (BASELINE_CHART) for every attack type against every single and
+     * dual-type defender (including no second type), and lookups must not allocate
+     */
+    private static void testTypeChart() {
+        System.out.println("\n=== Testing Type Chart ===");
+        
+        TreeTraversalAgent agent = new TreeTraversalAgent();
+        Type[] types = Type.values();
+        Type[] defenders = Arrays.copyOf(types, types.length + 1);   // Last one is null (no type)
+        int mismatches = 0;
+        int checked = 0;
+        
+        for (int a = 0; a < BASELINE_TYPES.length; a++) {
+            Type attack = Type.valueOf(BASELINE_TYPES[a]);
+            for (int d1 = 0; d1 < BASELINE_TYPES.length; d1++) {
+                Type defender1 = Type.valueOf(BASELINE_TYPES[d1]);
+                double single = BASELINE_CHART[a][d1];
+                if (TypeChart.get(attack, defender1) != single ||
+                    UtilityCalculator.getTypeEffectiveness(attack, defender1) != single ||
+                    agent.getTypeEffectiveness(attack, defender1) != single) {
+                    mismatches++;
+                    System.out.println("MISMATCH: " + attack + " vs " + defender1 + ", expected " + single);
+                }
+                for (int d2 = 0; d2 <= BASELINE_TYPES.length; d2++) {
+                    Type defender2 = (d2 < BASELINE_TYPES.length) ? Type.valueOf(BASELINE_TYPES[d2]) : null;
+                    double expected = single * (defender2 != null ? BASELINE_CHART[a][d2] : 1.0);
+                    if (TypeChart.get(attack, defender1, defender2) != expected ||
+                        UtilityCalculator.calculateTypeEffectiveness(attack, defender1, defender2) != expected ||
+                        agent.calculateSingleTypeEffectiveness(attack, defender1, defender2) != expected) {
+                        mismatches++;
+                        System.out.println("MISMATCH: " + attack + " vs " + defender1 + "/" + defender2 + 
+                                          ", expected " + expected);
+                    }
+                    checked++;
+                }
+            }
+        }
+        
+        // Allocation and speed of dual-type lookups
+        com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        int iterations = 1000000;
+        double sink = 0.0;
+        long bytesBefore = threads.getThreadAllocatedBytes(threadId);
+        long startTime = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += TypeChart.get(types[i % types.length], types[(i / 3) % types.length], defenders[i % defenders.length]);
+        }
+        long elapsedNs = System.nanoTime() - startTime;
+        long bytes = threads.getThreadAllocatedBytes(threadId) - bytesBefore;
+        
+        System.out.println(checked + " dual-type matchups checked, " + mismatches + " mismatches");
+        expect(mismatches == 0, mismatches + " type effectiveness values differ from BASELINE_CHART");
+        System.out.println("Lookup: " + String.format("%.1f", (double) elapsedNs / iterations) + "ns, " + 
+                          bytes + " bytes allocated for " + iterations + " lookups (checksum " + sink + ")");
+    }
+    
+    /**
+     * Test 15: Time and bytes allocated per UtilityCalculator.evaluateMove call, once the
+     * moves have ids and the memo is warm (the steady state inside a search)
+     */
+    private static void testMoveEvaluationMemo() {
+        System.out.println("\n=== Testing Move Evaluation Memo ===");
+        
+        BattleView mockBattleView = createMockBattleView();
+        PokemonView ourPokemon = mockBattleView.getTeamView(0).getActivePokemonView();
+        PokemonView opponentPokemon = mockBattleView.getTeamView(1).getActivePokemonView();
+        List<MoveView> moves = new ArrayList<>(ourPokemon.getAvailableMoves());
+        moves.addAll(opponentPokemon.getAvailableMoves());
+        
+        com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        int iterations = 1000000;
+        double sink = 0.0;
+        
+        // Warm up: register the moves, fill the memo, let the JIT compile the path
+        for (int i = 0; i < 100000; i++) {
+            sink += UtilityCalculator.evaluateMove(moves.get(i % moves.size()), ourPokemon, opponentPokemon);
+        }
+        
+        long bytesBefore = threads.getThreadAllocatedBytes(threadId);
+        long startTime = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += UtilityCalculator.evaluateMove(moves.get(i % moves.size()), ourPokemon, opponentPokemon);
+        }
+        long elapsedNs = System.nanoTime() - startTime;
+        long bytes = threads.getThreadAllocatedBytes(threadId) - bytesBefore;
+        
+        System.out.println(MoveCatalog.size() + " moves in the catalog");
+        System.out.println("evaluateMove: " + String.format("%.1f", (double) elapsedNs / iterations) + "ns, " + 
+                          String.format("%.3f", (double) bytes / iterations) + " bytes/call (checksum " + sink + ")");
+        System.out.println(UtilityCalculator.cacheStats());
+    }
+    
+    /**
+     * Test 16: Every node asks the move index for its moves; the library's getAvailableMoves
+     * should only be called once per distinct state and team (the misses)
+     */
+    private static void testMoveIndex() {
+        System.out.println("\n=== Testing Move Index ===");
         
-        // Test the stochasticTreeSearch method with timing
         BattleView mockBattleView = createMockBattleView();
+        TreeTraversalAgent agent = new TreeTraversalAgent();
+        agent.getMoveIndex().clear();
         
         long startTime = System.currentTimeMillis();
         MoveView move = agent.stochasticTreeSearch(mockBattleView);
-        long endTime = System.currentTimeMillis();
+        long elapsed = System.currentTimeMillis() - startTime;
+        
+        System.out.println("Search picked " + (move != null ? move.getName() : "null") + " in " + elapsed + "ms");
+        System.out.println(agent.getMoveIndex().stats());
         
-        System.out.println("Full stochasticTreeSearch completed in " + (endTime - startTime) + "ms");
-        System.out.println("Selected move: " + (move != null ? move.getName() : "null"));
+        // The index must give exactly the moves the library reports for the root state
+        GameNode root = new GameNode(mockBattleView, GameNode.NodeType.MAX, 0, null, 1.0, 0, agent.getMoveIndex());
+        List<String> expected = new ArrayList<>();
+        for (MoveView available : mockBattleView.getTeamView(1).getActivePokemonView().getAvailableMoves()) {
+            expected.add(available.getName());
+        }
+        List<String> indexed = new ArrayList<>();
+        for (MoveView reply : root.getLikelyReplies(Integer.MAX_VALUE)) {
+            indexed.add(reply.getName());
+        }
+        expected.sort(null);
+        indexed.sort(null);
+        System.out.println("Indexed opponent moves: " + indexed);
+        expect(expected.equals(indexed), "index gives " + indexed + ", library " + expected);
+    }
+    
+    /**
+     * Test 17: Random walks down the search tree, from both teams' point of view; at every
+     * node the incrementally derived utility must equal calculateUtility bit for bit.
+     * Then leaf evaluation is timed both ways over the states the walks reached
+     */
+    private static void testIncrementalEvaluation() {
+        System.out.println("\n=== Testing Incremental Evaluation ===");
+        
+        BattleView mockBattleView = createMockBattleView();
+        Random random = new Random(17);
+        int walks = 500;
+        int maxPlies = 8;
+        int checked = 0;
+        int mismatches = 0;
+        List<UtilityFeatures> parents = new ArrayList<>();
+        List<BattleSnapshot> leaves = new ArrayList<>();
+        
+        for (int walk = 0; walk < walks; walk++) {
+            int myTeamIdx = walk % 2;
+            GameNode node = new GameNode(mockBattleView, GameNode.NodeType.MAX, 0, null, 1.0, myTeamIdx);
+            for (int ply = 0; ply < maxPlies && !node.isTerminal(); ply++) {
+                List<GameNode> children = node.getChildren();
+                if (children.isEmpty()) {
+                    break;
+                }
+                GameNode child = children.get(random.nextInt(children.size()));
+                
+                double incremental = child.getUtilityFeatures().utility();
+                double reference = UtilityCalculator.calculateUtility(child.getSnapshot(), myTeamIdx);
+                checked++;
+                if (Double.compare(incremental, reference) != 0) {
+                    mismatches++;
+                    System.out.println("MISMATCH at ply " + ply + ": incremental " + incremental + 
+                                      ", calculateUtility " + reference);
+                }
+                if (child.getSnapshot() != node.getSnapshot() && myTeamIdx == 0) {
+                    parents.add(node.getUtilityFeatures());
+                    leaves.add(child.getSnapshot());
+                }
+                node = child;
+            }
+        }
+        System.out.println(checked + " nodes checked, " + mismatches + " mismatches");
+        expect(mismatches == 0, mismatches + " incremental utilities differ from calculateUtility");
+        if (leaves.isEmpty()) {
+            return;
+        }
+        
+        // Leaf evaluation: from scratch vs derived from the parent (derive included)
+        int iterations = 1000000;
+        double sink = 0.0;
+        for (int i = 0; i < iterations / 10; i++) {
+            int k = i % leaves.size();
+            sink += UtilityCalculator.calculateUtility(leaves.get(k), 0);
+            sink += parents.get(k).derive(leaves.get(k)).utility();
+        }
+        long startTime = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += UtilityCalculator.calculateUtility(leaves.get(i % leaves.size()), 0);
+        }
+        long scratchNs = System.nanoTime() - startTime;
+        startTime = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            int k = i % leaves.size();
+            sink += parents.get(k).derive(leaves.get(k)).utility();
+        }
+        long incrementalNs = System.nanoTime() - startTime;
+        
+        System.out.println("calculateUtility: " + String.format("%.1f", (double) scratchNs / iterations) + "ns/eval");
+        System.out.println("Incremental:      " + String.format("%.1f", (double) incrementalNs / iterations) + 
+                          "ns/eval (" + String.format("%.2f", (double) scratchNs / Math.max(1, incrementalNs)) + 
+                          "x, checksum " + sink + ")");
+    }
+    
+    /**
+     * Test 18: Leaf evaluations per second, one at a time vs sibling leaves scored as a
+     * LeafBatch (scores must be identical), then root move values with batching on and off
+     */
+    private static void testBatchLeafEvaluation() {
+        System.out.println("\n=== Testing Batched Leaf Evaluation ===");
+        
+        BattleView mockBattleView = createMockBattleView();
+        int myTeamIdx = 0;
+        
+        // Sibling leaves: the outcomes of each CHANCE node two plies down
+        List<GameNode> parents = new ArrayList<>();
+        List<List<GameNode>> siblings = new ArrayList<>();
+        GameNode root = new GameNode(mockBattleView, GameNode.NodeType.MAX, 0, null, 1.0, myTeamIdx);
+        for (GameNode moveNode : root.getChildren()) {
+            for (GameNode outcome : moveNode.getChildren()) {
+                for (GameNode reply : outcome.getChildren()) {
+                    List<GameNode> leaves = reply.getChildren();
+                    if (!leaves.isEmpty()) {
+                        parents.add(reply);
+                        siblings.add(leaves);
+                    }
+                }
+            }
+        }
+        if (siblings.isEmpty()) {
+            System.out.println("No leaf groups to score");
+            return;
+        }
         
-        // If it took more than 30 seconds, it's likely to time out in the real environment
-        if (endTime - startTime > 30000) {
-            System.out.println("WARNING: Search took more than 30 seconds! Will likely time out in autograder.");
-            System.out.println("Recommendations:");
-            System.out.println("1. Reduce maximum depth (currently: " + agent.getMaxDepth() + ")");
-            System.out.println("2. Implement more aggressive pruning");
-            System.out.println("3. Cache repeated states");
-            System.out.println("4. Optimize node generation");
+        // Same scores both ways
+        LeafBatch batch = new LeafBatch();
+        int mismatches = 0;
+        int leafCount = 0;
+        for (List<GameNode> leaves : siblings) {
+            batch.clear();
+            for (GameNode leaf : leaves) {
+                batch.add(leaf.getUtilityFeatures());
+            }
+            double[] scores = batch.score();
+            for (int i = 0; i < leaves.size(); i++) {
+                leafCount++;
+                if (Double.compare(scores[i], UtilityCalculator.calculateUtility(leaves.get(i).getSnapshot(), myTeamIdx)) != 0) {
+                    mismatches++;
+                }
+            }
+        }
+        System.out.println(siblings.size() + " sibling groups, " + leafCount + " leaves, " + mismatches + " mismatches");
+        expect(mismatches == 0, mismatches + " batched scores differ from calculateUtility");
+        
+        // Throughput, terms derived from the parent each time in both modes
+        int rounds = 20000;
+        double sink = 0.0;
+        long[] elapsed = new long[2];
+        for (int pass = 0; pass < 2; pass++) {              // First pass warms up
+            long startTime = System.nanoTime();
+            for (int round = 0; round < rounds; round++) {
+                for (int g = 0; g < siblings.size(); g++) {
+                    UtilityFeatures parent = parents.get(g).getUtilityFeatures();
+                    for (GameNode leaf : siblings.get(g)) {
+                        sink += parent.derive(leaf.getSnapshot()).utility();
+                    }
+                }
+            }
+            elapsed[0] = System.nanoTime() - startTime;
+            
+            startTime = System.nanoTime();
+            for (int round = 0; round < rounds; round++) {
+                for (int g = 0; g < siblings.size(); g++) {
+                    UtilityFeatures parent = parents.get(g).getUtilityFeatures();
+                    batch.clear();
+                    for (GameNode leaf : siblings.get(g)) {
+                        batch.add(parent.derive(leaf.getSnapshot()));
+                    }
+                    double[] scores = batch.score();
+                    for (int i = 0; i < batch.size(); i++) {
+                        sink += scores[i];
+                    }
+                }
+            }
+            elapsed[1] = System.nanoTime() - startTime;
+        }
+        long evaluations = (long) rounds * leafCount;
+        System.out.println("One at a time: " + (evaluations * 1000000000L / Math.max(1, elapsed[0])) + " evals/sec");
+        System.out.println("Batched:       " + (evaluations * 1000000000L / Math.max(1, elapsed[1])) + 
+                          " evals/sec (checksum " + sink + ")");
+        
+        // Searches give the same root values with batching on and off
+        TreeTraversalAgent agent = new TreeTraversalAgent();
+        compareRootMoveValues(mockBattleView, myTeamIdx, 3, 3, new String[] { "plain", "batched" },
+            (node, depth) -> {
+                agent.setBatchLeafEvaluation(false);
+                return agent.expectiminimax(node, depth);
+            },
+            (node, depth) -> {
+                agent.setBatchLeafEvaluation(true);
+                return agent.expectiminimax(node, depth);
+            });
+    }
+    
+    /**
+     * Test 19: The metrics each searcher leaves behind
+     * - Counts must be consistent: hits never exceed probes, one time per completed iteration
+     */
+    private static void testSearchMetrics() {
+        System.out.println("\n=== Testing Search Metrics ===");
+        
+        BattleView mockBattleView = createMockBattleView();
+        TreeTraversalAgent[] agents = { new TreeTraversalAgent(), new OptimizedTreeTraversalAgent() };
+        for (TreeTraversalAgent agent : agents) {
+            agent.setMaxThinkingTimePerMoveInMS(5000);
+            agent.getMove(mockBattleView);
+            SearchMetrics metrics = agent.getLastSearchMetrics();
+            expect(metrics != null, agent.getClass().getSimpleName() + " left no metrics");
+            if (metrics == null) {
+                continue;
+            }
+            System.out.println(metrics);
+            
+            boolean consistent = metrics.getTtHits() <= metrics.getTtProbes()
+                              && metrics.getTtProbes() <= metrics.getNodes()
+                              && (metrics.getDepthReached() == 0 || metrics.getIterationMs().length > 0);
+            expect(consistent, agent.getClass().getSimpleName() + " metrics are inconsistent");
+        }
+    }
+    
+    /**
+     * Test 20: What logging costs the search thread, per log level
+     * - With logging OFF no message string is built, so a search allocates only what the
+     *   search itself needs; the DEBUG/INFO rows show what the messages add on top
+     */
+    private static void testLoggingOverhead() {
+        System.out.println("\n=== Testing Logging Overhead ===");
+        
+        BattleView mockBattleView = createMockBattleView();
+        TreeTraversalAgent agent = new TreeTraversalAgent();
+        com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        int searches = 20;
+        SearchLog.Level original = SearchLog.getLevel();
+        
+        SearchLog.Level[] levels = { SearchLog.Level.DEBUG, SearchLog.Level.INFO, SearchLog.Level.OFF };
+        long[] bytes = new long[levels.length];
+        long[] nanos = new long[levels.length];
+        for (int pass = 0; pass < 2; pass++) {              // First pass warms up
+            for (int l = 0; l < levels.length; l++) {
+                SearchLog.setLevel(levels[l]);
+                long bytesBefore = threads.getThreadAllocatedBytes(threadId);
+                long startTime = System.nanoTime();
+                for (int i = 0; i < searches; i++) {
+                    agent.stochasticTreeSearch(mockBattleView, 3);
+                }
+                nanos[l] = System.nanoTime() - startTime;
+                bytes[l] = threads.getThreadAllocatedBytes(threadId) - bytesBefore;
+            }
+        }
+        SearchLog.setLevel(original);
+        SearchLog.flush();
+        
+        for (int l = 0; l < levels.length; l++) {
+            System.out.println(String.format("%-5s: %8.2fms, %10d bytes per search", levels[l],
+                                             nanos[l] / 1e6 / searches, bytes[l] / searches));
+        }
+        System.out.println("Logging adds " + (bytes[0] - bytes[2]) / searches + " bytes per search at DEBUG, " +
+                           (bytes[1] - bytes[2]) / searches + " at INFO; " + SearchLog.getDropped() + " messages dropped");
+    }
+    
+    /**
+     * Test 21: getMove's search thread
+     * - Hand-off cost per move: a new single-thread executor per move (as getMove used to
+     *   do) vs the agent's persistent executor
+     * - Thread count over 1000 short battles, each with a fresh agent shut down at the end
+     */
+    private static void testSearchExecutor() throws Exception {
+        System.out.println("\n=== Testing Persistent Search Executor ===");
+        
+        int moves = 1000;
+        java.util.concurrent.Callable<Integer> trivial = () -> 1;
+        TreeTraversalAgent agent = new TreeTraversalAgent();
+        long[] elapsed = new long[2];
+        for (int pass = 0; pass < 2; pass++) {              // First pass warms up
+            List<ExecutorService> perMove = new ArrayList<>();
+            long startTime = System.nanoTime();
+            for (int i = 0; i < moves; i++) {
+                ExecutorService executor = Executors.newSingleThreadExecutor();
+                perMove.add(executor);
+                executor.submit(trivial).get();
+            }
+            elapsed[0] = System.nanoTime() - startTime;
+            for (ExecutorService executor : perMove) {
+                executor.shutdown();
+            }
+            
+            startTime = System.nanoTime();
+            for (int i = 0; i < moves; i++) {
+                agent.getSearchExecutor().submit(trivial).get();
+            }
+            elapsed[1] = System.nanoTime() - startTime;
+        }
+        agent.shutdown();
+        System.out.println(String.format("Per-move hand-off: new executor %.1fus, persistent executor %.1fus",
+                                         elapsed[0] / 1e3 / moves, elapsed[1] / 1e3 / moves));
+        
+        BattleView mockBattleView = createMockBattleView();
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        SearchLog.Level original = SearchLog.getLevel();
+        SearchLog.setLevel(SearchLog.Level.OFF);
+        int battles = 1000;
+        int startThreads = threads.getThreadCount();
+        int maxThreads = startThreads;
+        for (int battle = 1; battle <= battles; battle++) {
+            TreeTraversalAgent battleAgent = new TreeTraversalAgent();
+            battleAgent.setMaxThinkingTimePerMoveInMS(10);
+            battleAgent.getMove(mockBattleView);
+            battleAgent.getMove(mockBattleView);
+            battleAgent.shutdown();
+            maxThreads = Math.max(maxThreads, threads.getThreadCount());
+            if (battle % 250 == 0) {
+                System.out.println("After " + battle + " battles: " + threads.getThreadCount() + " threads");
+            }
+        }
+        SearchLog.setLevel(original);
+        System.out.println("Threads: " + startThreads + " at start, at most " + maxThreads + " during " + battles + " battles");
+    }
+    
+    private static long totalGcMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionTime());
         }
+        return total;
     }
     
     /**
-     * Create a mock BattleView for testing
-     * This is a placeholder - you would need to implement a proper mock or use the real BattleView
+     * The BattleView the tests run on: the real game state given to run()
      */
     private static BattleView createMockBattleView() {
-        // This is just a placeholder - you need to implement a proper mock
-        // or obtain a real BattleView instance for testing
-        return null; // Replace with actual implementation
+        return state;
     }
     
     /**
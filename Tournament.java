@@ -0,0 +1,519 @@
+package src.pas.pokemon.agents;
+
+import edu.bu.pas.pokemon.core.Agent;
+import edu.bu.pas.pokemon.core.Battle.BattleView;
+import edu.bu.pas.pokemon.core.Move.MoveView;
+import edu.bu.pas.pokemon.core.Pokemon.PokemonView;
+import edu.bu.pas.pokemon.core.enums.NonVolatileStatus;
+import edu.bu.pas.pokemon.core.enums.Stat;
+import edu.bu.pas.pokemon.utils.Pair;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Model self-play tournament between search engines, many battles at a time
+ * - Positions come from a real game's state (handed over by HarnessAgent; the tournament
+ *   builds no BattleViews itself): each game starts from it after a seeded random opening
+ *   of OPENING_PLIES moves. Every pair of registered engines plays gamesPerPair such
+ *   positions once from each side, so a run is reproducible and neither engine gets the
+ *   better half of the positions
+ * - Each battle runs on its own virtual thread when the JVM running it is 21+ (a pool of
+ *   platform threads on older JVMs; the report says which), at most battlesInFlight at a
+ *   time so the engines' tables stay bounded;
+ *   engine searches are bounded by a shared permit per core and root-split on one shared
+ *   ForkJoinPool, so more battles in flight never oversubscribe the CPU
+ * - Model self-play, not library battles: agents only get BattleViews, with no API to step
+ *   a Battle from them, so turns are refereed with the transition model the engines search
+ *   with. Both engines pick a move, priority then speed decides the order, and each move's
+ *   outcome is sampled from getPotentialEffects. A battle ends at the first knockout, won
+ *   by the side still standing: bringing in a replacement takes the library's battle engine
+ * - An engine that forfeits (getMove throws a ForfeitException: out of time with no move,
+ *   or its search failed) loses that battle; forfeits are reported per engine
+ * - Reports battles/hour, per-move latency percentiles per engine, and Elo with 95%
+ *   confidence intervals, per pairing and overall
+ * - Run with HarnessAgent and -Dpas.harness=tournament; -Dpas.harness.args takes
+ *   [gamesPerPair] [battlesInFlight] [moveTimeMs] [seed]
+ */
+public class Tournament {
+
+    // A battle still going after this many turns is a draw
+    private static final int MAX_TURNS = 300;
+
+    // Random moves played from the start state before the engines take over
+    private static final int OPENING_PLIES = 4;
+
+    // Executors.newVirtualThreadPerTaskExecutor, null before JDK 21
+    private static final Method VIRTUAL_THREADS = virtualThreadFactory();
+
+    private static final double Z_95 = 1.96;
+    private static final double ELO_BASE = 1500.0;
+
+    private final Map<String, Supplier<Agent>> engines = new LinkedHashMap<>();
+    private final int cores = Runtime.getRuntime().availableProcessors();
+    private int gamesPerPair = 50;
+    private int battlesInFlight = 2 * cores;
+    private long seed = 1L;
+    private BattleView start;
+
+    // Shared by every engine in the run
+    private ForkJoinPool searchPool;
+    private Semaphore searchPermits;
+
+    // Results, indexed by engine: points[a][b] counts a win as 2 and a draw as 1
+    private int[][] points;
+    private int[][] games;
+    private long[][] latencies;
+    private int[] latencyCounts;
+    private int[] forfeits;
+    private final AtomicInteger errors = new AtomicInteger();
+
+    /**
+     * Add an engine; the factory is called once per battle, so engines never share state
+     */
+    public void register(String name, Supplier<Agent> factory) {
+        engines.put(name, factory);
+    }
+
+    public void setGamesPerPair(int gamesPerPair) { this.gamesPerPair = gamesPerPair; }
+    public void setBattlesInFlight(int battlesInFlight) { this.battlesInFlight = Math.max(1, battlesInFlight); }
+    public void setSeed(long seed) { this.seed = seed; }
+
+    /**
+     * The standard tournament (both tree-search agents) from a real game's state
+     * - args: [gamesPerPair] [battlesInFlight] [moveTimeMs] [seed]
+     */
+    public static void runStandard(BattleView start, String[] args) throws InterruptedException {
+        int gamesPerPair = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+        int battlesInFlight = args.length > 1 ? Integer.parseInt(args[1]) : 2 * Runtime.getRuntime().availableProcessors();
+        long moveTimeMs = args.length > 2 ? Long.parseLong(args[2]) : 2000L;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 1L;
+
+        // Per-move search logging from many battles at once is unreadable; keep warnings only
+        SearchLog.Level level = SearchLog.getLevel();
+        SearchLog.setLevel(SearchLog.Level.WARN);
+        
+        Tournament tournament = new Tournament();
+        tournament.setGamesPerPair(gamesPerPair);
+        tournament.setBattlesInFlight(battlesInFlight);
+        tournament.setSeed(seed);
+        tournament.register("TreeTraversalAgent", () -> {
+            TreeTraversalAgent agent = new TreeTraversalAgent();
+            agent.setMaxThinkingTimePerMoveInMS(moveTimeMs);
+            return agent;
+        });
+        tournament.register("OptimizedTreeTraversalAgent", () -> {
+            OptimizedTreeTraversalAgent agent = new OptimizedTreeTraversalAgent();
+            agent.setMaxThinkingTimePerMoveInMS(moveTimeMs);
+            return agent;
+        });
+        try {
+            tournament.run(start);
+        } finally {
+            SearchLog.setLevel(level);
+        }
+    }
+
+    /**
+     * Play every pairing from positions opened out of the start state, then print the report
+     */
+    public void run(BattleView start) throws InterruptedException {
+        List<String> names = new ArrayList<>(engines.keySet());
+        int n = names.size();
+        if (n < 2) {
+            System.out.println("A tournament needs at least two engines");
+            return;
+        }
+        points = new int[n][n];
+        games = new int[n][n];
+        latencies = new long[n][1024];
+        latencyCounts = new int[n];
+        forfeits = new int[n];
+        errors.set(0);
+        this.start = start;
+        searchPool = new ForkJoinPool(cores);
+        searchPermits = new Semaphore(cores);
+
+        System.out.println("Tournament (model self-play): " + n + " engines, " + gamesPerPair +
+                           " positions per pairing (both sides), " + battlesInFlight + " battles in flight on " +
+                           (VIRTUAL_THREADS != null ? "virtual threads"
+                                                    : "platform threads (virtual threads need a JDK 21+ runtime, this is " +
+                                                      System.getProperty("java.version") + ")") +
+                           ", " + cores + " search permits");
+
+        ExecutorService battles = battleExecutor();
+        Semaphore inFlight = new Semaphore(battlesInFlight);
+        int threadsAtStart = ManagementFactory.getThreadMXBean().getThreadCount();
+        long startTime = System.nanoTime();
+        int scheduled = 0;
+        for (int a = 0; a < n; a++) {
+            for (int b = a + 1; b < n; b++) {
+                for (int g = 0; g < gamesPerPair; g++) {
+                    long gameSeed = seed * 1_000_003L + (long) a * 10_007L + (long) b * 101L + g;
+                    for (int side = 0; side < 2; side++) {
+                        int engine0 = (side == 0) ? a : b;
+                        int engine1 = (side == 0) ? b : a;
+                        inFlight.acquire();
+                        battles.execute(() -> {
+                            try {
+                                playAndRecord(names, engine0, engine1, gameSeed);
+                            } finally {
+                                inFlight.release();
+                            }
+                        });
+                        scheduled++;
+                    }
+                }
+            }
+        }
+        battles.shutdown();
+        battles.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        long elapsedNs = System.nanoTime() - startTime;
+        searchPool.shutdown();
+
+        printReport(names, scheduled, elapsedNs);
+        System.out.println("\nThreads: " + threadsAtStart + " at start, peak " +
+                           ManagementFactory.getThreadMXBean().getPeakThreadCount() + ", " +
+                           ManagementFactory.getThreadMXBean().getThreadCount() + " at end");
+    }
+
+    /**
+     * One virtual thread per battle where the JDK has them (21+), else a pool of
+     * battlesInFlight platform threads
+     * - Looked up reflectively so the class still compiles for the older JDKs the agents
+     *   target
+     */
+    private ExecutorService battleExecutor() {
+        if (VIRTUAL_THREADS != null) {
+            try {
+                return (ExecutorService) VIRTUAL_THREADS.invoke(null);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Executors.newVirtualThreadPerTaskExecutor failed", e);
+            }
+        }
+        return Executors.newFixedThreadPool(battlesInFlight);
+    }
+
+    private static Method virtualThreadFactory() {
+        try {
+            return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private void playAndRecord(List<String> names, int engine0, int engine1, long gameSeed) {
+        try {
+            int winner;
+            try {
+                winner = playBattle(names, new int[] { engine0, engine1 }, gameSeed);
+            } catch (TreeTraversalAgent.ForfeitException e) {
+                winner = 1 - e.getTeamIdx();
+                synchronized (this) {
+                    forfeits[e.getTeamIdx() == 0 ? engine0 : engine1]++;
+                }
+            }
+            synchronized (this) {
+                games[engine0][engine1]++;
+                games[engine1][engine0]++;
+                if (winner == 0) {
+                    points[engine0][engine1] += 2;
+                } else if (winner == 1) {
+                    points[engine1][engine0] += 2;
+                } else {
+                    points[engine0][engine1]++;
+                    points[engine1][engine0]++;
+                }
+            }
+        } catch (RuntimeException e) {
+            errors.incrementAndGet();
+            System.out.println("Battle " + names.get(engine0) + " vs " + names.get(engine1) +
+                               " (seed " + gameSeed + ") failed: " + e);
+        }
+    }
+
+    /**
+     * Play one battle to the end
+     * @return the winning team, or -1 for a draw
+     */
+    private int playBattle(List<String> names, int[] engineIdx, long gameSeed) {
+        Agent[] agents = new Agent[2];
+        for (int t = 0; t < 2; t++) {
+            agents[t] = engines.get(names.get(engineIdx[t])).get();
+            agents[t].setMyTeamIdx(t);
+            if (agents[t] instanceof TreeTraversalAgent) {
+                TreeTraversalAgent searcher = (TreeTraversalAgent) agents[t];
+                searcher.setSearchPool(searchPool);
+                searcher.setPondering(false);
+                searcher.setExitOnForfeit(false);
+            }
+        }
+
+        try {
+            return playTurns(agents, engineIdx, gameSeed);
+        } finally {
+            // Battle over: release the engines' search threads so the thread count stays flat
+            for (Agent agent : agents) {
+                if (agent instanceof TreeTraversalAgent) {
+                    ((TreeTraversalAgent) agent).shutdown();
+                }
+            }
+        }
+    }
+
+    private int playTurns(Agent[] agents, int[] engineIdx, long gameSeed) {
+        Random random = new Random(gameSeed);
+        BattleView state = opening(start, random);
+        for (int turn = 0; turn < MAX_TURNS && !isDecided(state); turn++) {
+            MoveView[] moves = new MoveView[2];
+            for (int t = 0; t < 2; t++) {
+                moves[t] = timedMove(engineIdx[t], agents[t], state);
+            }
+
+            int first = movesFirst(state, moves, random);
+            for (int k = 0; k < 2 && !isDecided(state); k++) {
+                int t = (k == 0) ? first : 1 - first;
+                if (moves[t] == null) {
+                    continue;
+                }
+                state = sample(moves[t].getPotentialEffects(state, t, 1 - t), random, state);
+            }
+        }
+        return winnerOf(state);
+    }
+
+    /**
+     * The start state after OPENING_PLIES random moves, the teams taking turns (stops early
+     * at a knockout)
+     */
+    private static BattleView opening(BattleView start, Random random) {
+        BattleView state = start;
+        for (int ply = 0; ply < OPENING_PLIES && !isDecided(state); ply++) {
+            int t = ply % 2;
+            List<MoveView> moves = state.getTeamView(t).getActivePokemonView().getAvailableMoves();
+            if (!moves.isEmpty()) {
+                MoveView move = moves.get(random.nextInt(moves.size()));
+                state = sample(move.getPotentialEffects(state, t, 1 - t), random, state);
+            }
+        }
+        return state;
+    }
+
+    /**
+     * Over, or an active Pokémon has fainted (the battle ends at the first knockout)
+     */
+    private static boolean isDecided(BattleView state) {
+        return state.isOver() || state.getTeamView(0).getActivePokemonView().hasFainted()
+                              || state.getTeamView(1).getActivePokemonView().hasFainted();
+    }
+
+    /**
+     * getMove under a search permit, timed into the engine's latency log
+     */
+    private MoveView timedMove(int engine, Agent agent, BattleView state) {
+        searchPermits.acquireUninterruptibly();
+        long startTime = System.nanoTime();
+        try {
+            return agent.getMove(state);
+        } finally {
+            long duration = System.nanoTime() - startTime;
+            searchPermits.release();
+            recordLatency(engine, duration);
+        }
+    }
+
+    private synchronized void recordLatency(int engine, long durationNs) {
+        if (latencyCounts[engine] == latencies[engine].length) {
+            latencies[engine] = Arrays.copyOf(latencies[engine], latencyCounts[engine] * 2);
+        }
+        latencies[engine][latencyCounts[engine]++] = durationNs;
+    }
+
+    /**
+     * Team whose move goes first: higher priority, then higher speed (paralysis quarters
+     * it off), then a coin flip
+     */
+    private static int movesFirst(BattleView state, MoveView[] moves, Random random) {
+        if (moves[0] == null || moves[1] == null) {
+            return moves[0] != null ? 0 : 1;
+        }
+        if (moves[0].getPriority() != moves[1].getPriority()) {
+            return moves[0].getPriority() > moves[1].getPriority() ? 0 : 1;
+        }
+        int speed0 = speedOf(state.getTeamView(0).getActivePokemonView());
+        int speed1 = speedOf(state.getTeamView(1).getActivePokemonView());
+        if (speed0 != speed1) {
+            return speed0 > speed1 ? 0 : 1;
+        }
+        return random.nextBoolean() ? 0 : 1;
+    }
+
+    private static int speedOf(PokemonView pokemon) {
+        int speed = pokemon.getCurrentStat(Stat.SPD);
+        return pokemon.getNonVolatileStatus() == NonVolatileStatus.PARALYSIS ? (int) (speed * 0.75) : speed;
+    }
+
+    /**
+     * One outcome, drawn by its probability (the state is kept if there are none)
+     */
+    private static BattleView sample(List<Pair<Double, BattleView>> outcomes, Random random, BattleView state) {
+        if (outcomes == null || outcomes.isEmpty()) {
+            return state;
+        }
+        double total = 0.0;
+        for (Pair<Double, BattleView> outcome : outcomes) {
+            total += outcome.getFirst();
+        }
+        double r = random.nextDouble() * total;
+        for (Pair<Double, BattleView> outcome : outcomes) {
+            r -= outcome.getFirst();
+            if (r < 0.0) {
+                return outcome.getSecond();
+            }
+        }
+        return outcomes.get(outcomes.size() - 1).getSecond();
+    }
+
+    /**
+     * The team still standing, or -1 for a draw (both down, or no knockout in MAX_TURNS)
+     */
+    private static int winnerOf(BattleView state) {
+        boolean down0 = state.getTeamView(0).getActivePokemonView().hasFainted();
+        boolean down1 = state.getTeamView(1).getActivePokemonView().hasFainted();
+        return down0 == down1 ? -1 : down0 ? 1 : 0;
+    }
+
+    private void printReport(List<String> names, int scheduled, long elapsedNs) {
+        int n = names.size();
+        int played = scheduled - errors.get();
+        double hours = elapsedNs / 3.6e12;
+        System.out.println("\n=== Tournament results (model self-play) ===");
+        System.out.println(String.format("%d battles in %.1fs (%d failed): %.0f battles/hour",
+                                         played, elapsedNs / 1e9, errors.get(), played / hours));
+
+        System.out.println("\nPer-move latency (ms):");
+        System.out.println(String.format("  %-30s %8s %8s %8s %8s %8s %8s", "engine", "moves", "p50", "p90", "p99", "max",
+                                         "forfeits"));
+        for (int e = 0; e < n; e++) {
+            long[] sorted = Arrays.copyOf(latencies[e], latencyCounts[e]);
+            Arrays.sort(sorted);
+            System.out.println(String.format("  %-30s %8d %8.1f %8.1f %8.1f %8.1f %8d", names.get(e), sorted.length,
+                                             percentile(sorted, 0.50), percentile(sorted, 0.90),
+                                             percentile(sorted, 0.99), percentile(sorted, 1.0), forfeits[e]));
+        }
+
+        System.out.println("\nPairings (Elo difference, 95% interval):");
+        for (int a = 0; a < n; a++) {
+            for (int b = a + 1; b < n; b++) {
+                int total = games[a][b];
+                if (total == 0) {
+                    continue;
+                }
+                double score = points[a][b] / (2.0 * total);
+                double[] interval = eloInterval(score, total);
+                System.out.println(String.format("  %s vs %s: %d games, score %.3f, Elo %+.0f [%+.0f, %+.0f]",
+                                                 names.get(a), names.get(b), total, score,
+                                                 eloOf(clampScore(score, total)), interval[0], interval[1]));
+            }
+        }
+
+        double[] ratings = ratings(n);
+        System.out.println("\nRatings (Bradley-Terry, 95% interval from each engine's score against the field):");
+        for (int e = 0; e < n; e++) {
+            int total = 0;
+            int scored = 0;
+            for (int o = 0; o < n; o++) {
+                total += games[e][o];
+                scored += points[e][o];
+            }
+            double halfWidth = 0.0;
+            if (total > 0) {
+                double score = clampScore(scored / (2.0 * total), total);
+                halfWidth = Z_95 * 400.0 / (Math.log(10) * Math.sqrt(total * score * (1.0 - score)));
+            }
+            System.out.println(String.format("  %-30s %6.0f ± %.0f", names.get(e), ratings[e], halfWidth));
+        }
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0.0;
+        }
+        int rank = (int) Math.ceil(p * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))] / 1e6;
+    }
+
+    /**
+     * Elo difference implied by an expected score
+     */
+    private static double eloOf(double score) {
+        return -400.0 * Math.log10(1.0 / score - 1.0);
+    }
+
+    /**
+     * Keeps a perfect or zero score finite (as if half a game went the other way)
+     */
+    private static double clampScore(double score, int games) {
+        double margin = 0.5 / games;
+        return Math.max(margin, Math.min(1.0 - margin, score));
+    }
+
+    /**
+     * 95% interval of the Elo difference, from the normal interval of the score
+     */
+    private static double[] eloInterval(double score, int games) {
+        double s = clampScore(score, games);
+        double halfWidth = Z_95 * Math.sqrt(s * (1.0 - s) / games);
+        return new double[] { eloOf(clampScore(s - halfWidth, games)), eloOf(clampScore(s + halfWidth, games)) };
+    }
+
+    /**
+     * Bradley-Terry ratings by minorization-maximization, centred on ELO_BASE
+     * - Every pairing that was played gets one extra virtual draw, so a winless engine
+     *   still has a finite rating
+     */
+    private double[] ratings(int n) {
+        double[] strength = new double[n];
+        Arrays.fill(strength, 1.0);
+        for (int iteration = 0; iteration < 200; iteration++) {
+            double[] next = new double[n];
+            for (int e = 0; e < n; e++) {
+                double won = 0.0;
+                double denominator = 0.0;
+                for (int o = 0; o < n; o++) {
+                    if (o == e || games[e][o] == 0) {
+                        continue;
+                    }
+                    won += points[e][o] / 2.0 + 0.5;
+                    denominator += (games[e][o] + 1) / (strength[e] + strength[o]);
+                }
+                next[e] = denominator > 0.0 ? won / denominator : strength[e];
+            }
+            strength = next;
+        }
+
+        double[] ratings = new double[n];
+        double mean = 0.0;
+        for (int e = 0; e < n; e++) {
+            ratings[e] = 400.0 * Math.log10(strength[e]);
+            mean += ratings[e] / n;
+        }
+        for (int e = 0; e < n; e++) {
+            ratings[e] += ELO_BASE - mean;
+        }
+        return ratings;
+    }
+}
@@ -0,0 +1,219 @@
+package src.pas.pokemon.agents;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-size, lock-free transposition table keyed on the 64-bit Zobrist hash of a node
+ * - Two slots per bucket: a depth-preferred slot that only gives way to an equal or
+ *   deeper search (or to an entry from an older search), and an always-replace slot
+ * - Each slot is three atomic longs: a check word, the value bits and a packed
+ *   generation/depth/bound/best-move word. The check word is key ^ value ^ meta, so a
+ *   slot torn by two concurrent writers fails verification and reads as a miss
+ * - Safe to share between search threads; probing and storing never allocate
+ * - Counts probes, hits, stores and evictions (a different key overwritten)
+ */
+public class TranspositionTable {
+
+    // Bound types (0 marks an empty slot)
+    public static final byte EMPTY = 0;
+    public static final byte EXACT = 1;
+    public static final byte LOWER_BOUND = 2;
+    public static final byte UPPER_BOUND = 3;
+
+    // Best move marker when a node has no preferred child
+    public static final int NO_MOVE = -1;
+
+    // Words per slot
+    private static final int CHECK = 0;
+    private static final int VALUE = 1;
+    private static final int META = 2;
+    private static final int WORDS = 3;
+    private static final int SLOTS_PER_BUCKET = 2;
+    
+    // Layout of the meta word
+    private static final int GENERATION_SHIFT = 32;
+
+    private final AtomicLongArray slots;
+    private final int mask;                  // Bucket mask
+    private volatile int generation = 1;     // Bumped by newSearch(), ages old entries
+    
+    private final LongAdder probes = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder stores = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Caller-owned holder for a probed entry, so probing returns a consistent snapshot
+     * without allocating
+     */
+    public static final class Entry {
+        public double value;
+        public int depth;
+        public byte bound;
+        public int bestMove;
+
+        /**
+         * Check whether this entry can stand in for a search of the given depth and window
+         */
+        public boolean isUsable(int depth, double alpha, double beta) {
+            if (this.depth < depth) {
+                return false;
+            }
+            switch (bound) {
+                case EXACT:
+                    return true;
+                case LOWER_BOUND:
+                    return value >= beta;
+                case UPPER_BOUND:
+                    return value <= alpha;
+                default:
+                    return false;
+            }
+        }
+    }
+
+    /**
+     * Create a table with at least the requested number of entries (rounded up to a power of two)
+     */
+    public TranspositionTable(int minEntries) {
+        int capacity = Integer.highestOneBit(Math.max(SLOTS_PER_BUCKET * 2, minEntries) - 1) << 1;
+        this.slots = new AtomicLongArray(capacity * WORDS);
+        this.mask = capacity / SLOTS_PER_BUCKET - 1;
+    }
+
+    public int capacity() { return (mask + 1) * SLOTS_PER_BUCKET; }
+    public long getProbes() { return probes.sum(); }
+    public long getHits() { return hits.sum(); }
+    public long getStores() { return stores.sum(); }
+    public long getEvictions() { return evictions.sum(); }
+
+    /**
+     * Start a new search: entries from earlier searches stay readable, but no longer
+     * hold on to the depth-preferred slots
+     */
+    public void newSearch() {
+        generation = (generation & 0xFF) + 1;
+    }
+
+    /**
+     * Look up a key
+     * @return true and fills {@code out} if a verified entry for this key is stored
+     */
+    public boolean probe(long key, Entry out) {
+        probes.increment();
+        int bucket = bucketOf(key);
+        for (int s = 0; s < SLOTS_PER_BUCKET; s++) {
+            int base = (bucket + s) * WORDS;
+            long meta = slots.get(base + META);
+            long valueBits = slots.get(base + VALUE);
+            long check = slots.get(base + CHECK);
+
+            if (meta == 0 || (check ^ valueBits ^ meta) != key) {
+                continue;
+            }
+            out.value = Double.longBitsToDouble(valueBits);
+            out.depth = (short) (meta >>> 16);
+            out.bound = (byte) (meta >>> 8);
+            out.bestMove = (byte) meta;
+            hits.increment();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Store a search result
+     * - Same key already stored: overwrite it in place, unless that entry is from this
+     *   search and deeper (the key only encodes depth parity, so a shallower result for the
+     *   same state can arrive from another ply or a Lazy SMP helper), or as deep and EXACT
+     *   while the new result is only a bound
+     * - Otherwise the depth-preferred slot if this search is at least as deep as its
+     *   entry (or that entry is from an older search), else the always-replace slot
+     */
+    public void store(long key, double value, int depth, byte bound, int bestMove) {
+        int bucket = bucketOf(key);
+        int deepBase = bucket * WORDS;
+        int recentBase = (bucket + 1) * WORDS;
+        long valueBits = Double.doubleToRawLongBits(value);
+        long meta = ((long) (generation & 0xFF) << GENERATION_SHIFT) | ((long) (depth & 0xFFFF) << 16) 
+                  | ((bound & 0xFFL) << 8) | (bestMove & 0xFFL);
+
+        int base;
+        long oldMeta;
+        long deepMeta = slots.get(deepBase + META);
+        if (holds(deepBase, key)) {
+            if (keepsExisting(deepMeta, depth, bound)) {
+                return;
+            }
+            base = deepBase;
+            oldMeta = 0;
+        } else if (holds(recentBase, key)) {
+            if (keepsExisting(slots.get(recentBase + META), depth, bound)) {
+                return;
+            }
+            base = recentBase;
+            oldMeta = 0;
+        } else if (deepMeta == 0 || (int) (deepMeta >>> GENERATION_SHIFT) != (generation & 0xFF) 
+                   || depth >= (short) (deepMeta >>> 16)) {
+            base = deepBase;
+            oldMeta = deepMeta;
+        } else {
+            base = recentBase;
+            oldMeta = slots.get(recentBase + META);
+        }
+        if (oldMeta != 0) {
+            evictions.increment();
+        }
+        stores.increment();
+
+        slots.set(base + VALUE, valueBits);
+        slots.set(base + META, meta);
+        slots.set(base + CHECK, key ^ valueBits ^ meta);
+    }
+
+    /**
+     * Whether a stored entry for the same key is worth more than a new result
+     */
+    private boolean keepsExisting(long oldMeta, int depth, byte bound) {
+        if ((int) (oldMeta >>> GENERATION_SHIFT) != (generation & 0xFF)) {
+            return false;
+        }
+        int oldDepth = (short) (oldMeta >>> 16);
+        byte oldBound = (byte) (oldMeta >>> 8);
+        return oldDepth > depth || (oldDepth == depth && oldBound == EXACT && bound != EXACT);
+    }
+
+    /**
+     * Bound type for a fail-soft result searched with the window (alpha, beta)
+     */
+    public static byte boundFor(double value, double alpha, double beta) {
+        if (value <= alpha) return UPPER_BOUND;
+        if (value >= beta) return LOWER_BOUND;
+        return EXACT;
+    }
+
+    /**
+     * Drop every entry (not safe to call while other threads are searching)
+     */
+    public void clear() {
+        for (int i = 0; i < slots.length(); i++) {
+            slots.lazySet(i, 0L);
+        }
+    }
+
+    /**
+     * Whether the slot at base holds a verified entry for key
+     */
+    private boolean holds(int base, long key) {
+        long meta = slots.get(base + META);
+        return meta != 0 && (slots.get(base + CHECK) ^ slots.get(base + VALUE) ^ meta) == key;
+    }
+
+    /**
+     * First slot of the key's bucket
+     */
+    private int bucketOf(long key) {
+        return ((int) (key ^ (key >>> 32)) & mask) * SLOTS_PER_BUCKET;
+    }
+}
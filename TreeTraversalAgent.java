@@ -17,23 +17,29 @@ import edu.bu.pas.pokemon.core.enums.Flag;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
-import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class TreeTraversalAgent extends Agent {
 
     private class StochasticTreeSearcher
         extends Object
-        implements Callable<Pair<MoveView, Long>>
+        implements AnytimeSearcher
     {
         // Fields - keep required fields
         private final BattleView rootView;
@@ -41,49 +47,86 @@ public class TreeTraversalAgent extends Agent {
         private final int myTeamIdx;
 
         // Optimization fields
-        private final Map<String, Double> stateCache = new HashMap<>();
-        private final Map<String, List<GameNode>> childrenCache = new HashMap<>();
+        private TranspositionTable transpositionTable; // Created on first use unless shared; root searchers never need one
+        private TranspositionTable carriedTable;        // Last turn's table for the move we played, read-only
+        private final TranspositionTable.Entry ttEntry = new TranspositionTable.Entry();
+        private volatile boolean stopped = false;       // Set by the main search to stop a Lazy SMP helper
         private long startTimeMs;
-        private final long timeoutThresholdMs = 75000; // 75 seconds - reduced for safety
-        private int adaptiveMaxDepth = 2;
+        private final long timeoutThresholdMs;          // Search budget, a safe fraction of the per-move limit
+        private int adaptiveMaxDepth = MIN_SEARCH_DEPTH;
+        private long lastIterationNodes = 0;
+        private int lastCompletedDepth = 0;
+        private volatile MoveView bestMoveSoFar = null; // Best move of the last completed iteration (anytime result)
+        private volatile int ponderDepth = 0;           // Deepest ponder pass completed
         private final int MAX_BRANCHING = 2;
         private final Random random = new Random();
         private int nodesEvaluated = 0;
+        private int ttProbes = 0;
         private int cacheHits = 0;
+        private int carriedHits = 0;                    // Cache hits answered by last turn's table
         private int betaCutoffs = 0;
         private int alphaCutoffs = 0;
+        private int chanceCutoffs = 0;
+        private int maxMinNodes = 0;                    // MAX/MIN nodes expanded, for the cutoff rate
+        private int skippedGroups = 0;                  // CHANCE outcome groups a cutoff left unexpanded
+        private final MoveOrdering moveOrdering = new MoveOrdering();
+        private int bestChildIdx = TranspositionTable.NO_MOVE; // Best child of the last maxValue/minValue call
+        
+        // One searcher per root move, each with its own table and counters, so root moves
+        // can be searched in parallel and still give the same values as a serial run
+        private StochasticTreeSearcher[] rootMoveSearchers;
 
         // Constructor
         public StochasticTreeSearcher(BattleView rootView, int maxDepth, int myTeamIdx) {
+            this(rootView, maxDepth, myTeamIdx, null);
+        }
+        
+        /**
+         * Constructor for worker searchers that share a transposition table
+         */
+        public StochasticTreeSearcher(BattleView rootView, int maxDepth, int myTeamIdx,
+                                      TranspositionTable transpositionTable) {
             this.rootView = rootView;
             this.maxDepth = maxDepth;
             this.myTeamIdx = myTeamIdx;
+            this.transpositionTable = transpositionTable;
             this.startTimeMs = System.currentTimeMillis();
+            this.timeoutThresholdMs = (long) (TreeTraversalAgent.this.getMaxThinkingTimePerMoveInMS() * SEARCH_TIME_FRACTION);
         }
 
         // Getters
         public BattleView getRootView() { return this.rootView; }
         public int getMaxDepth() { return this.maxDepth; }
         public int getMyTeamIdx() { return this.myTeamIdx; }
+        public MoveIndex getMoveIndex() { return TreeTraversalAgent.this.moveIndex; }
+        public long getSearchSeed() { return TreeTraversalAgent.this.searchSeed; }
+        @Override
+        public MoveView getBestMoveSoFar() { return this.bestMoveSoFar; }
+        
+        /**
+         * Ask the search to wind down (its best move so far stays available)
+         */
+        @Override
+        public void stop() {
+            this.stopped = true;
+            if (rootMoveSearchers != null) {
+                for (StochasticTreeSearcher searcher : rootMoveSearchers) {
+                    searcher.stopped = true;
+                }
+            }
+        }
 
         /**
          * Check if we're approaching the time limit
          */
         private boolean isTimeRunningOut() {
+            if (stopped) {
+                return true;
+            }
             long currentTime = System.currentTimeMillis();
             return (currentTime - startTimeMs) > timeoutThresholdMs;
         }
 
-        /**
-         * Aggressive checking for early termination
-         */
-        private boolean shouldTerminateEarly(double value, boolean isMax) {
-            // Terminate early if we found a very good or very bad position
-            if (isMax && value > 5000) return true;  // Winning for us
-            if (!isMax && value < -5000) return true; // Winning for opponent
-            return false;
-        }
-
         /**
          * Print battle info for debugging
          */
@@ -91,23 +134,23 @@ public class TreeTraversalAgent extends Agent {
             TeamView myTeam = battleView.getTeamView(this.getMyTeamIdx());
             TeamView opponentTeam = battleView.getTeamView(1 - this.getMyTeamIdx());
             
-            System.out.println("\n=== BATTLE INFO ===");
+            SearchLog.debug("\n=== BATTLE INFO ===");
             
             // Our team
             PokemonView myActive = myTeam.getActivePokemonView();
-            System.out.println("OUR ACTIVE: " + myActive.getName() + 
-                              " (HP: " + myActive.getCurrentStat(Stat.HP) + "/" + myActive.getBaseStat(Stat.HP) + 
-                              ", Types: " + myActive.getCurrentType1() + 
-                              (myActive.getCurrentType2() != null ? "/" + myActive.getCurrentType2() : "") + 
-                              ", Status: " + myActive.getNonVolatileStatus() + ")");
+            SearchLog.debug("OUR ACTIVE: " + myActive.getName() + 
+                           " (HP: " + myActive.getCurrentStat(Stat.HP) + "/" + myActive.getBaseStat(Stat.HP) + 
+                           ", Types: " + myActive.getCurrentType1() + 
+                           (myActive.getCurrentType2() != null ? "/" + myActive.getCurrentType2() : "") + 
+                           ", Status: " + myActive.getNonVolatileStatus() + ")");
             
             // Opponent team
             PokemonView oppActive = opponentTeam.getActivePokemonView();
-            System.out.println("OPP ACTIVE: " + oppActive.getName() + 
-                              " (HP: " + oppActive.getCurrentStat(Stat.HP) + "/" + oppActive.getBaseStat(Stat.HP) + 
-                              ", Types: " + oppActive.getCurrentType1() + 
-                              (oppActive.getCurrentType2() != null ? "/" + oppActive.getCurrentType2() : "") + 
-                              ", Status: " + oppActive.getNonVolatileStatus() + ")");
+            SearchLog.debug("OPP ACTIVE: " + oppActive.getName() + 
+                           " (HP: " + oppActive.getCurrentStat(Stat.HP) + "/" + oppActive.getBaseStat(Stat.HP) + 
+                           ", Types: " + oppActive.getCurrentType1() + 
+                           (oppActive.getCurrentType2() != null ? "/" + oppActive.getCurrentType2() : "") + 
+                           ", Status: " + oppActive.getNonVolatileStatus() + ")");
             
             // Count remaining Pokémon for both teams
             int myRemaining = 0;
@@ -125,8 +168,8 @@ public class TreeTraversalAgent extends Agent {
                 }
             }
             
-            System.out.println("REMAINING: Us: " + myRemaining + ", Opponent: " + oppRemaining);
-            System.out.println("===================\n");
+            SearchLog.debug("REMAINING: Us: " + myRemaining + ", Opponent: " + oppRemaining);
+            SearchLog.debug("===================\n");
         }
 
         /**
@@ -135,35 +178,55 @@ public class TreeTraversalAgent extends Agent {
          */
         public MoveView stochasticTreeSearch(BattleView rootView) {
             // Reset state
-            stateCache.clear();
-            childrenCache.clear();
+            if (transpositionTable != null) {
+                transpositionTable.clear();
+            }
             startTimeMs = System.currentTimeMillis();
             nodesEvaluated = 0;
+            ttProbes = 0;
             cacheHits = 0;
             alphaCutoffs = 0;
             betaCutoffs = 0;
+            chanceCutoffs = 0;
+            maxMinNodes = 0;
+            skippedGroups = 0;
+            moveOrdering.clear();
+            long effectsCallsAtStart = GameNode.getPotentialEffectsCalls();
+            
+            carriedHits = 0;
+            TreeTraversalAgent.this.lastRootValues = new HashMap<>();
             
             // Print useful battle information
-            printBattleInfo(rootView);
+            if (logsDebug()) {
+                printBattleInfo(rootView);
+            }
             
             // Get our active Pokémon
             PokemonView activePokemon = rootView.getTeamView(this.getMyTeamIdx()).getActivePokemonView();
             List<MoveView> availableMoves = activePokemon.getAvailableMoves();
             
             if (availableMoves.isEmpty()) {
-                System.out.println("No moves available - likely need to switch Pokémon");
+                if (logsInfo()) {
+                    SearchLog.info("No moves available - likely need to switch Pokémon");
+                }
                 return null;
             }
+            
+            // Warm start from last turn's tables when we are continuing the line we played
+            prepareSearchTables(availableMoves);
+            getMoveIndex().beginSearch(rootView);
 
             // Print available moves
-            System.out.println("Available moves for " + activePokemon.getName() + ":");
-            for (MoveView move : availableMoves) {
-                String powerStr = move.getPower() != null ? move.getPower().toString() : "N/A"; 
-                String accuracyStr = move.getAccuracy() != null ? move.getAccuracy().toString() : "N/A";
-                System.out.println("  - " + move.getName() + 
-                                  " (Type: " + move.getType() + 
-                                  ", Power: " + powerStr + 
-                                  ", Accuracy: " + accuracyStr + ")");
+            if (logsDebug()) {
+                SearchLog.debug("Available moves for " + activePokemon.getName() + ":");
+                for (MoveView move : availableMoves) {
+                    String powerStr = move.getPower() != null ? move.getPower().toString() : "N/A"; 
+                    String accuracyStr = move.getAccuracy() != null ? move.getAccuracy().toString() : "N/A";
+                    SearchLog.debug("  - " + move.getName() + 
+                                   " (Type: " + move.getType() + 
+                                   ", Power: " + powerStr + 
+                                   ", Accuracy: " + accuracyStr + ")");
+                }
             }
             
             // Calculate direct move evaluation bonuses
@@ -174,43 +237,72 @@ public class TreeTraversalAgent extends Agent {
                 moveBonuses.put(move, bonus);
             }
             
-            // Use alpha-beta search with an initial depth, then increase if time permits
+            // Use alpha-beta search with an initial depth, then increase while time permits
             MoveView bestMove = availableMoves.get(0);
             Map<MoveView, Double> moveValues = new HashMap<>();
-            boolean timeOut = false;
             
             // Quick check for high-value moves - might save time by picking obvious good moves
+            double bestBonus = Double.NEGATIVE_INFINITY;
             for (MoveView move : availableMoves) {
                 double bonus = moveBonuses.getOrDefault(move, 0.0);
                 // If we have a very strong move, use it immediately
                 if (bonus > 150.0) {
-                    System.out.println("Found a very strong move early: " + move.getName() + " (value: " + bonus + ")");
+                    if (logsInfo()) {
+                        SearchLog.info("Found a very strong move early: " + move.getName() + " (value: " + bonus + ")");
+                    }
+                    recordMetrics(0, 0.0, new long[0], effectsCallsAtStart);
                     return move;
                 }
+                // Until the first iteration completes, the best guess is the best direct evaluation
+                if (bonus > bestBonus) {
+                    bestBonus = bonus;
+                    bestMove = move;
+                }
             }
+            bestMoveSoFar = bestMove;
             
-            // Perform a 2-stage search: first quick, then deeper if time permits
-            for (int currentDepth = 2; currentDepth <= 3 && !timeOut; currentDepth++) {
+            // Iterative deepening: one ply deeper each iteration until the next ply is
+            // predicted not to fit in the remaining budget
+            SearchBudget budget = new SearchBudget(startTimeMs, timeoutThresholdMs);
+            List<Long> iterationMs = new ArrayList<>();
+            for (int currentDepth = MIN_SEARCH_DEPTH; currentDepth <= this.getMaxDepth(); currentDepth++) {
                 adaptiveMaxDepth = currentDepth;
-                System.out.println("Searching with depth " + adaptiveMaxDepth + "...");
+                
+                if (budget.getCompletedIterations() > 0 && !budget.canAffordNextIteration()) {
+                    if (logsDebug()) {
+                        SearchLog.debug("Not enough time for depth " + adaptiveMaxDepth + 
+                                       " (predicted " + budget.predictNextIterationMs() + "ms, remaining " + 
+                                       budget.remainingMs() + "ms)");
+                    }
+                    break;
+                }
+                if (logsDebug()) {
+                    SearchLog.debug("Searching with depth " + adaptiveMaxDepth + "...");
+                }
                 
                 // Reset for new iteration
                 double highestValue = Double.NEGATIVE_INFINITY;
                 MoveView localBestMove = null;
+                long nodesBefore = nodesEvaluated;
+                budget.startIteration();
+                SearchEvents.Iteration iterationEvent = new SearchEvents.Iteration();
+                iterationEvent.begin();
                 
-                // For each available move
-                for (MoveView move : availableMoves) {
-                    if (isTimeRunningOut()) {
-                        System.out.println("Search depth " + adaptiveMaxDepth + " taking too long, using previous results");
-                        timeOut = true;
-                        break;
+                // Search every root move (at the same time when the agent has a search pool)
+                double[] baseValues = searchRootMoves(availableMoves, adaptiveMaxDepth);
+                
+                // An interrupted iteration is incomplete, keep the previous results
+                if (isTimeRunningOut()) {
+                    if (logsInfo()) {
+                        SearchLog.info("Search depth " + adaptiveMaxDepth + " ran out of time, using previous results");
                     }
-                    
-                    // Create a node for this move
-                    GameNode moveNode = new GameNode(rootView, GameNode.NodeType.CHANCE, 1, move, 1.0, this.getMyTeamIdx());
-                    
-                    // Calculate the expected value with alpha-beta pruning
-                    double baseValue = expectiminimax(moveNode, adaptiveMaxDepth, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+                    break;
+                }
+                
+                // For each available move
+                for (int i = 0; i < availableMoves.size(); i++) {
+                    MoveView move = availableMoves.get(i);
+                    double baseValue = baseValues[i];
                     double bonusValue = moveBonuses.getOrDefault(move, 0.0) * 0.2; // Scale bonus appropriately
                     double totalValue = baseValue + bonusValue;
                     
@@ -223,32 +315,247 @@ public class TreeTraversalAgent extends Agent {
                         localBestMove = move;
                     }
                     
-                    System.out.println("  Move: " + move.getName() + ", Value: " + totalValue);
+                    if (logsDebug()) {
+                        SearchLog.debug("  Move: " + move.getName() + ", Value: " + totalValue);
+                    }
                 }
                 
                 // Update best move if we found a better one
                 if (localBestMove != null) {
                     bestMove = localBestMove;
+                    bestMoveSoFar = bestMove;
+                }
+                
+                long iterationNodes = nodesEvaluated - nodesBefore;
+                budget.finishIteration(iterationNodes);
+                iterationMs.add(budget.getLastIterationMs());
+                if (iterationEvent.shouldCommit()) {
+                    iterationEvent.engine = "expectiminimax";
+                    iterationEvent.depth = adaptiveMaxDepth;
+                    iterationEvent.nodes = iterationNodes;
+                    iterationEvent.effectiveBranchingFactor = budget.getEffectiveBranchingFactor();
+                    iterationEvent.bestMove = bestMove.getName();
+                    iterationEvent.commit();
+                }
+                if (logsDebug()) {
+                    SearchLog.debug("Depth " + adaptiveMaxDepth + " complete in " + budget.getLastIterationMs() + 
+                                   "ms (EBF " + String.format("%.2f", budget.getEffectiveBranchingFactor()) + 
+                                   "). Current best move: " + bestMove.getName());
                 }
                 
-                System.out.println("Depth " + adaptiveMaxDepth + " complete. Current best move: " + bestMove.getName());
+                // Nothing left to gain from going deeper
+                if (Math.abs(highestValue) > 5000) {
+                    if (logsDebug()) {
+                        SearchLog.debug("Search resolved the game, stopping");
+                    }
+                    break;
+                }
+                if (budget.getCompletedIterations() > 1 && iterationNodes == lastIterationNodes) {
+                    if (logsDebug()) {
+                        SearchLog.debug("Tree fully explored at depth " + adaptiveMaxDepth + ", stopping");
+                    }
+                    break;
+                }
+                lastIterationNodes = iterationNodes;
+            }
+            lastCompletedDepth = budget.getCompletedIterations() > 0 ? MIN_SEARCH_DEPTH + budget.getCompletedIterations() - 1 : 0;
+            TreeTraversalAgent.this.lastSearchDepth = lastCompletedDepth;
+            Map<String, Double> rootValues = new HashMap<>();
+            for (Map.Entry<MoveView, Double> entry : moveValues.entrySet()) {
+                rootValues.put(entry.getKey().getName(), entry.getValue());
             }
+            TreeTraversalAgent.this.lastRootValues = rootValues;
 
             // Print the evaluation results
-            System.out.println("\nFinal move evaluations:");
-            for (MoveView move : availableMoves) {
-                System.out.println("  Move: " + move.getName() + 
-                                ", Value: " + moveValues.getOrDefault(move, 0.0));
+            if (logsDebug()) {
+                SearchLog.debug("\nFinal move evaluations:");
+                for (MoveView move : availableMoves) {
+                    SearchLog.debug("  Move: " + move.getName() + 
+                                   ", Value: " + moveValues.getOrDefault(move, 0.0));
+                }
             }
-            System.out.println("Selected move: " + bestMove.getName());
-            System.out.println("Stats: Nodes evaluated: " + nodesEvaluated + 
+            if (logsInfo()) {
+                long elapsedMs = Math.max(1, System.currentTimeMillis() - startTimeMs);
+                SearchLog.info("Selected move: " + bestMove.getName() + " (depth " + lastCompletedDepth + ")" +
+                              " | Nodes: " + nodesEvaluated + 
+                              ", Nodes/sec: " + (nodesEvaluated * 1000L / elapsedMs) + 
                               ", Cache hits: " + cacheHits + 
+                              " (carried over: " + carriedHits + ")" + 
                               ", Alpha cutoffs: " + alphaCutoffs + 
-                              ", Beta cutoffs: " + betaCutoffs);
+                              ", Beta cutoffs: " + betaCutoffs + 
+                              ", Chance cutoffs: " + chanceCutoffs + 
+                              ", MAX/MIN cutoff rate: " + 
+                              String.format("%.3f", maxMinNodes > 0 ? (double) (alphaCutoffs + betaCutoffs) / maxMinNodes : 0.0) +
+                              " | getPotentialEffects calls: " + (GameNode.getPotentialEffectsCalls() - effectsCallsAtStart) +
+                              ", skipped by lazy CHANCE expansion: " + skippedGroups +
+                              " | Caches: " + TreeTraversalAgent.this.cacheStats());
+            }
             
+            long[] iterations = new long[iterationMs.size()];
+            for (int i = 0; i < iterations.length; i++) {
+                iterations[i] = iterationMs.get(i);
+            }
+            recordMetrics(lastCompletedDepth, budget.getEffectiveBranchingFactor(), iterations, effectsCallsAtStart);
             return bestMove;
         }
 
+        /**
+         * Publish this search's counters as the agent's last search metrics
+         */
+        private void recordMetrics(int depthReached, double effectiveBranchingFactor, long[] iterationMs,
+                                   long effectsCallsAtStart) {
+            TreeTraversalAgent.this.lastSearchMetrics = new SearchMetrics(
+                "expectiminimax", depthReached, nodesEvaluated, System.currentTimeMillis() - startTimeMs,
+                ttProbes, cacheHits, betaCutoffs, alphaCutoffs, chanceCutoffs, maxMinNodes,
+                effectiveBranchingFactor, iterationMs, GameNode.getPotentialEffectsCalls() - effectsCallsAtStart);
+        }
+
+        /**
+         * Ponder: search the likely next-turn roots until stopped
+         * - Runs the same root move searches the next turn will run, so the keys match,
+         *   one ply deeper each pass over all predicted states (most likely first)
+         * - Everything goes into this searcher's table, which the next search reads
+         * @return the deepest pass completed for every predicted state
+         */
+        public int ponder(MoveView playedMove) {
+            startTimeMs = System.currentTimeMillis();
+            ponderDepth = 0;
+            
+            // States after our move and each likely reply, most likely outcome first
+            GameNode playedNode = new GameNode(rootView, GameNode.NodeType.CHANCE, 1, playedMove, 1.0, myTeamIdx,
+                                               getMoveIndex(), getSearchSeed());
+            List<BattleView> predictedStates = new ArrayList<>();
+            for (MoveView reply : playedNode.getLikelyReplies(PONDER_REPLIES)) {
+                List<GameNode> outcomes = new ArrayList<>(playedNode.withReply(reply).getChildren());
+                outcomes.sort((a, b) -> Double.compare(b.getProbability(), a.getProbability()));
+                for (GameNode outcome : outcomes) {
+                    if (!outcome.isTerminal()) {
+                        predictedStates.add(outcome.getBattleView());
+                    }
+                }
+            }
+            
+            long lastPassNodes = -1;
+            for (int depth = MIN_SEARCH_DEPTH; depth <= maxDepth && !isTimeRunningOut(); depth++) {
+                long nodesBefore = nodesEvaluated;
+                for (BattleView state : predictedStates) {
+                    for (MoveView move : state.getTeamView(myTeamIdx).getActivePokemonView().getAvailableMoves()) {
+                        GameNode moveNode = new GameNode(state, GameNode.NodeType.CHANCE, 1, move, 1.0, myTeamIdx,
+                                                         getMoveIndex(), getSearchSeed());
+                        expectiminimax(moveNode, depth, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+                        if (isTimeRunningOut()) {
+                            return ponderDepth;
+                        }
+                    }
+                }
+                ponderDepth = depth;
+                
+                // Same work as the last pass: the predicted trees are fully explored
+                long passNodes = nodesEvaluated - nodesBefore;
+                if (passNodes == lastPassNodes) {
+                    break;
+                }
+                lastPassNodes = passNodes;
+            }
+            return ponderDepth;
+        }
+
+        /**
+         * Search each root move to the given depth
+         * - ROOT_SPLIT: every root move gets its own searcher and table, so the values do
+         *   not depend on the order (or the threads) the moves are searched in
+         * - LAZY_SMP: the root moves are searched here while helper threads search the
+         *   whole tree at staggered depths, all sharing one transposition table
+         * - Without a search pool the root moves are searched inline
+         */
+        private double[] searchRootMoves(List<MoveView> moves, int depth) {
+            ForkJoinPool pool = getSearchPool();
+            boolean lazySmp = pool != null && getParallelMode() == ParallelMode.LAZY_SMP;
+            
+            TranspositionTable sharedTable = lazySmp ? getLazySmpTable() : null;
+            
+            if (rootMoveSearchers == null || rootMoveSearchers.length != moves.size()) {
+                rootMoveSearchers = new StochasticTreeSearcher[moves.size()];
+                for (int i = 0; i < moves.size(); i++) {
+                    rootMoveSearchers[i] = new StochasticTreeSearcher(rootView, maxDepth, myTeamIdx,
+                                                                      lazySmp ? sharedTable : getRootMoveTable(i));
+                    rootMoveSearchers[i].carriedTable = getCarriedTable();
+                }
+            }
+            
+            List<RootMoveTask> tasks = new ArrayList<>(moves.size());
+            for (int i = 0; i < moves.size(); i++) {
+                StochasticTreeSearcher searcher = rootMoveSearchers[i];
+                searcher.startTimeMs = this.startTimeMs;
+                tasks.add(new RootMoveTask(searcher, moves.get(i), depth));
+            }
+            
+            List<LazySmpHelper> helpers = new ArrayList<>();
+            if (lazySmp) {
+                // Helpers only warm the shared table; their results are never used directly
+                int helperCount = Math.max(0, pool.getParallelism() - 1);
+                for (int h = 0; h < helperCount; h++) {
+                    StochasticTreeSearcher helper = new StochasticTreeSearcher(rootView, maxDepth, myTeamIdx, sharedTable);
+                    helper.carriedTable = getCarriedTable();
+                    helper.startTimeMs = this.startTimeMs;
+                    LazySmpHelper task = new LazySmpHelper(helper, moves, depth, h);
+                    helpers.add(task);
+                    pool.execute(task);
+                }
+                for (RootMoveTask task : tasks) {
+                    task.invoke();
+                }
+            } else if (pool != null) {
+                for (RootMoveTask task : tasks) {
+                    pool.execute(task);
+                }
+            } else {
+                for (RootMoveTask task : tasks) {
+                    task.invoke();
+                }
+            }
+            
+            double[] values = new double[moves.size()];
+            for (int i = 0; i < tasks.size(); i++) {
+                values[i] = tasks.get(i).join();
+                collectStats(rootMoveSearchers[i]);
+            }
+            
+            // Stop and drain the helpers before the next iteration
+            for (LazySmpHelper helper : helpers) {
+                helper.searcher.stopped = true;
+            }
+            for (LazySmpHelper helper : helpers) {
+                helper.join();
+                collectStats(helper.searcher);
+            }
+            return values;
+        }
+        
+        /**
+         * Add a worker searcher's counters to ours and reset them
+         */
+        private void collectStats(StochasticTreeSearcher searcher) {
+            nodesEvaluated += searcher.nodesEvaluated;
+            ttProbes += searcher.ttProbes;
+            cacheHits += searcher.cacheHits;
+            carriedHits += searcher.carriedHits;
+            alphaCutoffs += searcher.alphaCutoffs;
+            betaCutoffs += searcher.betaCutoffs;
+            chanceCutoffs += searcher.chanceCutoffs;
+            maxMinNodes += searcher.maxMinNodes;
+            skippedGroups += searcher.skippedGroups;
+            searcher.nodesEvaluated = 0;
+            searcher.ttProbes = 0;
+            searcher.cacheHits = 0;
+            searcher.carriedHits = 0;
+            searcher.alphaCutoffs = 0;
+            searcher.betaCutoffs = 0;
+            searcher.chanceCutoffs = 0;
+            searcher.maxMinNodes = 0;
+            searcher.skippedGroups = 0;
+        }
+
         /**
          * Improved Expectiminimax with alpha-beta pruning
          * - Added alpha-beta bounds for MAX/MIN nodes
@@ -263,122 +570,112 @@ public class TreeTraversalAgent extends Agent {
                 return evaluateNode(node);
             }
             
-            // Check cache first
-            String stateKey = generateStateKey(node, depth);
-            if (stateCache.containsKey(stateKey)) {
-                cacheHits++;
-                return stateCache.get(stateKey);
+            // Check transposition table first
+            if (transpositionTable == null) {
+                transpositionTable = new TranspositionTable(getTranspositionTableEntries());
+            }
+            long key = node.getHash();
+            int ttBestMove = TranspositionTable.NO_MOVE;
+            ttProbes++;
+            if (transpositionTable.probe(key, ttEntry)) {
+                if (ttEntry.isUsable(depth, alpha, beta)) {
+                    cacheHits++;
+                    return ttEntry.value;
+                }
+                ttBestMove = ttEntry.bestMove;
+            } else if (carriedTable != null && carriedTable.probe(key, ttEntry)) {
+                // Searched last turn; the remaining depth it was searched to still holds
+                if (ttEntry.isUsable(depth, alpha, beta)) {
+                    cacheHits++;
+                    carriedHits++;
+                    return ttEntry.value;
+                }
+                ttBestMove = ttEntry.bestMove;
             }
             
             // Base cases: terminal node or max depth
             if (node.isTerminal() || depth <= 0) {
                 double value = evaluateNode(node);
-                stateCache.put(stateKey, value);
+                transpositionTable.store(key, value, depth, TranspositionTable.EXACT, TranspositionTable.NO_MOVE);
                 return value;
             }
             
-            // Get children with caching
-            List<GameNode> children;
-            String childrenKey = generateStateKey(node, -1); // Depth-independent key for children
-            
-            if (childrenCache.containsKey(childrenKey)) {
-                children = childrenCache.get(childrenKey);
-            } else {
-                children = node.getChildren();
-                childrenCache.put(childrenKey, children);
-            }
+            // CHANCE nodes expand their outcomes lazily (see expectedValue), the rest up front
+            boolean chance = node.getType() == GameNode.NodeType.CHANCE;
+            GameNode.ChanceOutcomes outcomes = chance ? node.getOutcomes() : null;
+            List<GameNode> children = chance ? null : node.getChildren();
             
             // If no children, evaluate current node
-            if (children.isEmpty()) {
+            if (chance ? outcomes.groupCount() == 0 : children.isEmpty()) {
                 double value = evaluateNode(node);
-                stateCache.put(stateKey, value);
+                transpositionTable.store(key, value, depth, TranspositionTable.EXACT, TranspositionTable.NO_MOVE);
                 return value;
             }
             
             double result;
+            int bestMove = TranspositionTable.NO_MOVE;
             
             // Process based on node type
             switch (node.getType()) {
                 case MAX:
                     // MAX node (our turn) - choose maximum value
-                    result = maxValue(children, depth, alpha, beta);
+                    result = maxValue(children, depth, alpha, beta, ttBestMove);
+                    bestMove = bestChildIdx;
                     break;
                     
                 case MIN:
                     // MIN node (opponent's turn) - choose minimum value
-                    result = minValue(children, depth, alpha, beta);
+                    result = minValue(children, depth, alpha, beta, ttBestMove);
+                    bestMove = bestChildIdx;
                     break;
                     
                 case CHANCE:
                     // CHANCE node - calculate expected value
-                    result = expectedValue(children, depth, alpha, beta);
+                    result = expectedValue(outcomes, depth, alpha, beta);
                     break;
                     
                 default:
                     throw new IllegalStateException("Unknown node type");
             }
             
-            // Cache the result
-            stateCache.put(stateKey, result);
+            // An aborted subtree is not a real result, keep it out of the (possibly shared) table
+            if (isTimeRunningOut()) {
+                return result;
+            }
+            
+            // Store the result along with how far it can be trusted
+            transpositionTable.store(key, result, depth, TranspositionTable.boundFor(result, alpha, beta), bestMove);
             return result;
         }
         
         /**
-         * Generate a more compact state key
+         * Order in which to visit children: the transposition table's best move first,
+         * then the rest in generated order
          */
-        private String generateStateKey(GameNode node, int depth) {
-            BattleView state = node.getBattleView();
-            StringBuilder key = new StringBuilder();
-            
-            // Add node type and our team index
-            key.append(node.getType().ordinal())
-               .append("|")
-               .append(depth)
-               .append("|");
-            
-            // Add last move if available
-            if (node.getLastMove() != null) {
-                key.append(node.getLastMove().getName().hashCode());
-            } else {
-                key.append("0");
-            }
-            
-            key.append("|");
-            
-            // Add simplified battle state representation
-            for (int teamIdx = 0; teamIdx < 2; teamIdx++) {
-                TeamView team = state.getTeamView(teamIdx);
-                
-                // Active Pokémon info - just the essentials
-                PokemonView activePokemon = team.getActivePokemonView();
-                key.append(activePokemon.getName().hashCode())
-                   .append(",")
-                   .append(activePokemon.getCurrentStat(Stat.HP))
-                   .append(",")
-                   .append(activePokemon.getNonVolatileStatus().ordinal());
-                
-                // Count remaining Pokémon
-                int remainingCount = 0;
-                for (int i = 0; i < team.size(); i++) {
-                    if (!team.getPokemonView(i).hasFainted()) {
-                        remainingCount++;
-                    }
-                }
-                key.append(",").append(remainingCount);
-            }
-            
-            return key.toString();
+        private int childAt(int i, int firstIdx, int size) {
+            if (firstIdx <= 0 || firstIdx >= size) return i;
+            if (i == 0) return firstIdx;
+            return (i <= firstIdx) ? i - 1 : i;
         }
         
         /**
          * Handle MAX node with alpha-beta pruning
          */
-        private double maxValue(List<GameNode> children, int depth, double alpha, double beta) {
+        private double maxValue(List<GameNode> children, int depth, double alpha, double beta, int firstIdx) {
             double bestValue = Double.NEGATIVE_INFINITY;
+            int bestIdx = TranspositionTable.NO_MOVE;
             
-            for (GameNode child : children) {
-                double value = expectiminimax(child, depth - 1, alpha, beta);
-                bestValue = Math.max(bestValue, value);
+            int ply = children.get(0).getDepth();
+            int[] order = isMoveOrdering() ? moveOrdering.order(children, ply, true, firstIdx) : null;
+            maxMinNodes++;
+            
+            for (int i = 0; i < children.size(); i++) {
+                int idx = (order != null) ? order[i] : childAt(i, firstIdx, children.size());
+                double value = expectiminimax(children.get(idx), depth - 1, alpha, beta);
+                if (value > bestValue) {
+                    bestValue = value;
+                    bestIdx = idx;
+                }
                 
                 // Update alpha
                 alpha = Math.max(alpha, bestValue);
@@ -386,27 +683,38 @@ public class TreeTraversalAgent extends Agent {
                 // Alpha-beta pruning
                 if (bestValue >= beta) {
                     betaCutoffs++;
+                    moveOrdering.recordCutoff(children.get(idx).getLastMove(), ply, depth, true);
                     break;
                 }
                 
-                // Early termination if we found a very good position
-                if (shouldTerminateEarly(bestValue, true)) {
+                // A forced win can't be beaten, so the value is already exact
+                if (bestValue >= VALUE_MAX) {
                     break;
                 }
             }
             
+            bestChildIdx = bestIdx;
             return bestValue;
         }
         
         /**
          * Handle MIN node with alpha-beta pruning
          */
-        private double minValue(List<GameNode> children, int depth, double alpha, double beta) {
+        private double minValue(List<GameNode> children, int depth, double alpha, double beta, int firstIdx) {
             double bestValue = Double.POSITIVE_INFINITY;
+            int bestIdx = TranspositionTable.NO_MOVE;
             
-            for (GameNode child : children) {
-                double value = expectiminimax(child, depth - 1, alpha, beta);
-                bestValue = Math.min(bestValue, value);
+            int ply = children.get(0).getDepth();
+            int[] order = isMoveOrdering() ? moveOrdering.order(children, ply, false, firstIdx) : null;
+            maxMinNodes++;
+            
+            for (int i = 0; i < children.size(); i++) {
+                int idx = (order != null) ? order[i] : childAt(i, firstIdx, children.size());
+                double value = expectiminimax(children.get(idx), depth - 1, alpha, beta);
+                if (value < bestValue) {
+                    bestValue = value;
+                    bestIdx = idx;
+                }
                 
                 // Update beta
                 beta = Math.min(beta, bestValue);
@@ -414,60 +722,281 @@ public class TreeTraversalAgent extends Agent {
                 // Alpha-beta pruning
                 if (bestValue <= alpha) {
                     alphaCutoffs++;
+                    moveOrdering.recordCutoff(children.get(idx).getLastMove(), ply, depth, false);
                     break;
                 }
                 
-                // Early termination if we found a very bad position
-                if (shouldTerminateEarly(bestValue, false)) {
+                // A forced loss can't get any worse, so the value is already exact
+                if (bestValue <= VALUE_MIN) {
                     break;
                 }
             }
             
+            bestChildIdx = bestIdx;
             return bestValue;
         }
         
         /**
-         * Handle CHANCE node with pruning for unlikely outcomes
+         * Handle CHANCE node
+         * - Every outcome counts, weighted by its normalized probability
+         * - With chance node pruning on, Star1 narrows each child's window from the values
+         *   already seen and the [VALUE_MIN, VALUE_MAX] bounds of the unseen ones, and Star2
+         *   first probes one reply of each MAX/MIN child to try for a cutoff. Both are sound:
+         *   a value inside (alpha, beta) is exact, anything else is a correct bound
+         * - Outcome groups (one per first-move outcome) are expanded only when reached, so a
+         *   cutoff skips the second move's getPotentialEffects call for every group after it.
+         *   Until a group is expanded only an upper bound on its probability mass is known,
+         *   and the bounds are computed for the worst case of that mass
          */
-        private double expectedValue(List<GameNode> children, int depth, double alpha, double beta) {
-            double expectedValue = 0.0;
-            double totalProbability = 0.0;
+        private double expectedValue(GameNode.ChanceOutcomes outcomes, int depth, double alpha, double beta) {
+            if (!isLazyChanceExpansion()) {
+                outcomes.getAll();
+            }
             
-            // Sort children by probability (highest first)
-            children.sort((a, b) -> Double.compare(b.getProbability(), a.getProbability()));
+            if (depth - 1 <= 0 && isBatchLeafEvaluation()) {
+                return batchExpectedValue(outcomes.getAll());
+            }
             
-            // Take only the most likely outcomes
-            double probabilityCovered = 0.0;
-            int childrenConsidered = 0;
+            if (!isChanceNodePruning()) {
+                // Plain expectimax: every child searched with a full window
+                List<GameNode> children = outcomes.getAll();
+                children.sort((a, b) -> Double.compare(b.getProbability(), a.getProbability()));
+                double totalProbability = 0.0;
+                for (GameNode child : children) {
+                    totalProbability += child.getProbability();
+                }
+                if (totalProbability <= 0) {
+                    return 0.0;
+                }
+                double expectedValue = 0.0;
+                for (GameNode child : children) {
+                    double value = expectiminimax(child, depth - 1, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+                    expectedValue += (child.getProbability() / totalProbability) * value;
+                }
+                return expectedValue;
+            }
             
-            for (GameNode child : children) {
-                double probability = child.getProbability();
-                
-                // Skip very unlikely outcomes for efficiency
-                if (probabilityCovered > 0.9 && probability < 0.1) {
-                    continue;
+            // Visit groups with the most (possible) probability mass first
+            int groupCount = outcomes.groupCount();
+            Integer[] groupOrder = new Integer[groupCount];
+            double[] massBound = new double[groupCount];
+            double pending = 0.0;                  // Mass bound of the groups not visited yet
+            for (int g = 0; g < groupCount; g++) {
+                groupOrder[g] = g;
+                massBound[g] = outcomes.getMassBound(g);
+                pending += massBound[g];
+            }
+            Arrays.sort(groupOrder, (a, b) -> Double.compare(massBound[b], massBound[a]));
+            
+            // Star2 probing phase
+            if (depth - 1 > 0) {
+                double cutoff = probeChanceChildren(outcomes, groupOrder, massBound, pending, depth, alpha, beta);
+                if (!Double.isNaN(cutoff)) {
+                    return cutoff;
                 }
-                
-                // Limit the total number of children considered
-                if (childrenConsidered >= 3) {
-                    break;
+            }
+            
+            // Star1 search phase
+            double weightedSum = 0.0;              // Sum of p * value over searched children
+            double seenMass = 0.0;                 // Probability of the searched children
+            
+            for (int i = 0; i < groupCount; i++) {
+                int g = groupOrder[i];
+                pending -= massBound[g];
+                List<GameNode> group = sortedGroup(outcomes, g);
+                double groupRest = 0.0;
+                for (GameNode child : group) {
+                    groupRest += child.getProbability();
                 }
                 
-                double value = expectiminimax(child, depth - 1, alpha, beta);
-                expectedValue += probability * value;
-                totalProbability += probability;
-                probabilityCovered += probability;
-                childrenConsidered++;
+                for (GameNode child : group) {
+                    double w = child.getProbability();
+                    if (w <= 0) {
+                        continue;
+                    }
+                    groupRest -= w;
+                    double rest = Math.max(0.0, pending + groupRest);
+                    double denom = seenMass + w + rest;
+                    
+                    // Window for this child that still lets the node land inside (alpha, beta)
+                    double childAlpha = Math.max(VALUE_MIN, (alpha * denom - weightedSum - rest * VALUE_MAX) / w);
+                    double childBeta = Math.min(VALUE_MAX, (beta * denom - weightedSum - rest * VALUE_MIN) / w);
+                    
+                    double value = expectiminimax(child, depth - 1, childAlpha, childBeta);
+                    weightedSum += w * value;
+                    seenMass += w;
+                    
+                    // Fail low: even if everything unseen is as good as possible, we can't reach alpha
+                    if (value <= childAlpha && childAlpha > VALUE_MIN) {
+                        chanceCutoffs++;
+                        countSkippedGroups(outcomes);
+                        return (weightedSum + rest * VALUE_MAX) / denom;
+                    }
+                    // Fail high: even if everything unseen is as bad as possible, we stay above beta
+                    if (value >= childBeta && childBeta < VALUE_MAX) {
+                        chanceCutoffs++;
+                        countSkippedGroups(outcomes);
+                        return (weightedSum + rest * VALUE_MIN) / denom;
+                    }
+                }
+            }
+            
+            return seenMass > 0 ? weightedSum / seenMass : 0.0;
+        }
+        
+        /**
+         * Expected value of a CHANCE node whose children are all leaves, scored as one batch
+         * - Gives the exact value (no window), so nothing is pruned and every outcome group
+         *   is expanded
+         * - Each leaf goes through the transposition table as expectiminimax would take it:
+         *   a usable entry stands in for it, and the scored leaves are stored as EXACT
+         *   results at depth 0; the scores are also memoized on the leaves' UtilityFeatures
+         * - Past the time limit the leaves are evaluated one at a time, as expectiminimax
+         *   would
+         */
+        private double batchExpectedValue(List<GameNode> children) {
+            children.sort((a, b) -> Double.compare(b.getProbability(), a.getProbability()));
+            double totalProbability = 0.0;
+            for (GameNode child : children) {
+                totalProbability += child.getProbability();
+            }
+            if (totalProbability <= 0) {
+                return 0.0;
+            }
+            if (isTimeRunningOut()) {
+                double expectedValue = 0.0;
+                for (GameNode child : children) {
+                    nodesEvaluated++;
+                    expectedValue += (child.getProbability() / totalProbability) * evaluateNode(child);
+                }
+                return expectedValue;
             }
             
-            // Normalize if probabilities don't sum to 1
-            if (totalProbability > 0 && Math.abs(totalProbability - 1.0) > 0.001) {
-                expectedValue /= totalProbability;
+            LeafBatch leafBatch = LEAF_BATCH.get();
+            leafBatch.clear();
+            for (GameNode child : children) {
+                nodesEvaluated++;
+                ttProbes++;
+                if (transpositionTable.probe(child.getHash(), ttEntry) && ttEntry.isUsable(0, VALUE_MIN, VALUE_MAX)) {
+                    cacheHits++;
+                    leafBatch.addFixed(ttEntry.value);
+                } else if (carriedTable != null && carriedTable.probe(child.getHash(), ttEntry)
+                           && ttEntry.isUsable(0, VALUE_MIN, VALUE_MAX)) {
+                    cacheHits++;
+                    carriedHits++;
+                    leafBatch.addFixed(ttEntry.value);
+                } else if (child.isTerminal()) {
+                    leafBatch.addFixed(evaluateNode(child));
+                } else {
+                    leafBatch.add(child.getUtilityFeatures());
+                }
             }
+            double[] scores = leafBatch.score();
             
+            double expectedValue = 0.0;
+            for (int i = 0; i < children.size(); i++) {
+                GameNode child = children.get(i);
+                double value = scores[i];
+                if (!leafBatch.isFixed(i)) {
+                    child.getUtilityFeatures().cacheUtility(value);
+                    value = Math.max(VALUE_MIN, Math.min(VALUE_MAX, value));
+                    transpositionTable.store(child.getHash(), value, 0, TranspositionTable.EXACT, TranspositionTable.NO_MOVE);
+                } else {
+                    value = Math.max(VALUE_MIN, Math.min(VALUE_MAX, value));
+                }
+                expectedValue += (child.getProbability() / totalProbability) * value;
+            }
             return expectedValue;
         }
         
+        /**
+         * Star2 probing: search only the first reply of each MAX (or MIN) child, which gives a
+         * lower (or upper) bound on that child. If the bounds alone prove the CHANCE node is
+         * outside (alpha, beta), return that bound; otherwise return NaN.
+         * The probed replies are left in the transposition table for the Star1 phase.
+         */
+        private double probeChanceChildren(GameNode.ChanceOutcomes outcomes, Integer[] groupOrder, double[] massBound,
+                                           double pending, int depth, double alpha, double beta) {
+            double lowerSum = 0.0;                 // Sum of p * lower bound over probed children
+            double upperSum = 0.0;                 // Sum of p * upper bound over probed children
+            double seenMass = 0.0;
+            
+            for (int i = 0; i < groupOrder.length; i++) {
+                int g = groupOrder[i];
+                pending -= massBound[g];
+                List<GameNode> group = sortedGroup(outcomes, g);
+                double groupRest = 0.0;
+                for (GameNode child : group) {
+                    groupRest += child.getProbability();
+                }
+                
+                for (GameNode child : group) {
+                    double w = child.getProbability();
+                    if (w <= 0) {
+                        continue;
+                    }
+                    groupRest -= w;
+                    double rest = Math.max(0.0, pending + groupRest);
+                    double denom = seenMass + w + rest;
+                    seenMass += w;
+                    
+                    GameNode.NodeType childType = child.getType();
+                    List<GameNode> replies = (child.isTerminal() || childType == GameNode.NodeType.CHANCE)
+                                             ? null : child.getChildren();
+                    
+                    if (replies == null || replies.isEmpty()) {
+                        // Nothing cheap to learn about this child, it keeps the trivial bounds
+                        lowerSum += w * VALUE_MIN;
+                        upperSum += w * VALUE_MAX;
+                        continue;
+                    }
+                    
+                    if (childType == GameNode.NodeType.MAX) {
+                        // Any reply is a lower bound on a MAX child
+                        double childBeta = Math.min(VALUE_MAX, (beta * denom - lowerSum - rest * VALUE_MIN) / w);
+                        double bound = expectiminimax(replies.get(0), depth - 2, VALUE_MIN, childBeta);
+                        lowerSum += w * bound;
+                        upperSum += w * VALUE_MAX;
+                        if ((lowerSum + rest * VALUE_MIN) / denom >= beta) {
+                            chanceCutoffs++;
+                            countSkippedGroups(outcomes);
+                            return (lowerSum + rest * VALUE_MIN) / denom;
+                        }
+                    } else {
+                        // Any reply is an upper bound on a MIN child
+                        double childAlpha = Math.max(VALUE_MIN, (alpha * denom - upperSum - rest * VALUE_MAX) / w);
+                        double bound = expectiminimax(replies.get(0), depth - 2, childAlpha, VALUE_MAX);
+                        upperSum += w * bound;
+                        lowerSum += w * VALUE_MIN;
+                        if ((upperSum + rest * VALUE_MAX) / denom <= alpha) {
+                            chanceCutoffs++;
+                            countSkippedGroups(outcomes);
+                            return (upperSum + rest * VALUE_MAX) / denom;
+                        }
+                    }
+                }
+            }
+            
+            return Double.NaN;
+        }
+        
+        /**
+         * One outcome group, expanded if needed, most likely outcome first
+         */
+        private List<GameNode> sortedGroup(GameNode.ChanceOutcomes outcomes, int group) {
+            List<GameNode> children = outcomes.getGroup(group);
+            children.sort((a, b) -> Double.compare(b.getProbability(), a.getProbability()));
+            return children;
+        }
+        
+        private void countSkippedGroups(GameNode.ChanceOutcomes outcomes) {
+            for (int g = 0; g < outcomes.groupCount(); g++) {
+                if (!outcomes.isExpanded(g)) {
+                    skippedGroups++;
+                }
+            }
+        }
+        
         /**
          * Evaluate a node using the utility calculator
          */
@@ -484,8 +1013,10 @@ public class TreeTraversalAgent extends Agent {
                 }
             }
             
-            // For non-terminal nodes, use the utility heuristic
-            return UtilityCalculator.calculateUtility(node.getBattleView(), this.getMyTeamIdx());
+            // For non-terminal nodes, use the utility heuristic (kept inside the bounds
+            // the CHANCE node pruning relies on)
+            double utility = node.getUtilityFeatures().utility();
+            return Math.max(VALUE_MIN, Math.min(VALUE_MAX, utility));
         }
         
         /**
@@ -513,9 +1044,179 @@ public class TreeTraversalAgent extends Agent {
         }
     }
     
+    /**
+     * Fork-join task that searches a single root move with its own searcher
+     */
+    private static class RootMoveTask extends RecursiveTask<Double> {
+        private static final long serialVersionUID = 1L;
+
+        private final StochasticTreeSearcher searcher;
+        private final MoveView move;
+        private final int depth;
+
+        RootMoveTask(StochasticTreeSearcher searcher, MoveView move, int depth) {
+            this.searcher = searcher;
+            this.move = move;
+            this.depth = depth;
+        }
+
+        @Override
+        protected Double compute() {
+            SearchEvents.RootMove event = new SearchEvents.RootMove();
+            event.begin();
+            int nodesBefore = searcher.nodesEvaluated;
+            GameNode moveNode = new GameNode(searcher.getRootView(), GameNode.NodeType.CHANCE, 1, move, 1.0,
+                                             searcher.getMyTeamIdx(), searcher.getMoveIndex(), searcher.getSearchSeed());
+            double value = searcher.expectiminimax(moveNode, depth, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+            if (event.shouldCommit()) {
+                event.engine = "expectiminimax";
+                event.depth = depth;
+                event.move = move.getName();
+                event.value = value;
+                event.nodes = searcher.nodesEvaluated - nodesBefore;
+                event.commit();
+            }
+            return value;
+        }
+    }
+    
+    /**
+     * Lazy SMP helper: searches all root moves over and over, one ply deeper each pass,
+     * until the main search stops it. Helpers start at staggered depths and root orders
+     * so they do not all duplicate the same work.
+     */
+    private static class LazySmpHelper extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final StochasticTreeSearcher searcher;
+        private final List<MoveView> moves;
+        private final int baseDepth;
+        private final int helperIdx;
+
+        LazySmpHelper(StochasticTreeSearcher searcher, List<MoveView> moves, int baseDepth, int helperIdx) {
+            this.searcher = searcher;
+            this.moves = moves;
+            this.baseDepth = baseDepth;
+            this.helperIdx = helperIdx;
+        }
+
+        @Override
+        protected void compute() {
+            int depth = baseDepth + (helperIdx % 2);
+            while (!searcher.isTimeRunningOut()) {
+                for (int i = 0; i < moves.size() && !searcher.isTimeRunningOut(); i++) {
+                    MoveView move = moves.get((i + helperIdx) % moves.size());
+                    GameNode moveNode = new GameNode(searcher.getRootView(), GameNode.NodeType.CHANCE, 1, move, 1.0,
+                                                     searcher.getMyTeamIdx(), searcher.getMoveIndex(), searcher.getSearchSeed());
+                    searcher.expectiminimax(moveNode, depth, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+                }
+                depth++;
+            }
+        }
+    }
+    
+    // Default transposition table size per root move (entries, rounded up to a power of two)
+    private static final int TT_ENTRIES = 1 << 18;
+    
+    // Bounds on any node value (a win or a loss); CHANCE node pruning depends on them
+    private static final double VALUE_MIN = -10000.0;
+    private static final double VALUE_MAX = 10000.0;
+    
+    // Fraction of the per-move time limit the search may use; the rest covers thread
+    // hand-off and returning the move
+    private static final double SEARCH_TIME_FRACTION = 0.9;
+    
+    // First iterative deepening depth
+    private static final int MIN_SEARCH_DEPTH = 1;
+    
+    // Larger table when all Lazy SMP threads share one
+    private static final int LAZY_SMP_TABLE_FACTOR = 4;
+    
+    // Opponent replies considered when pondering
+    private static final int PONDER_REPLIES = 2;
+
+    /**
+     * Which search algorithm picks the moves
+     * - EXPECTIMINIMAX: depth-limited expectiminimax with pruning (the agent's own searcher)
+     * - MCTS: UCT Monte Carlo Tree Search (MonteCarloTreeSearcher)
+     */
+    public enum SearchEngine {
+        EXPECTIMINIMAX,
+        MCTS
+    }
+
+    /**
+     * Thrown by getMove instead of ending the JVM when the agent forfeits and
+     * setExitOnForfeit(false) was called (e.g. by the tournament, which scores it as a loss)
+     */
+    public static class ForfeitException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        private final int teamIdx;
+
+        public ForfeitException(int teamIdx, String message, Throwable cause) {
+            super(message, cause);
+            this.teamIdx = teamIdx;
+        }
+
+        public int getTeamIdx() { return this.teamIdx; }
+    }
+
+    /**
+     * How the search pool is used
+     * - ROOT_SPLIT: one task per root move, deterministic
+     * - LAZY_SMP: helper threads share one table with the main search, not deterministic
+     */
+    public enum ParallelMode {
+        ROOT_SPLIT,
+        LAZY_SMP
+    }
+
     private final int maxDepth;
     private long maxThinkingTimePerMoveInMS;
     private final Map<String, Type> typeCache = new HashMap<>();
+    private ForkJoinPool searchPool = null; // null = search root moves on the calling thread
+    private boolean ownsSearchPool = false;  // Created by setSearchParallelism, so ours to shut down
+    private ParallelMode parallelMode = ParallelMode.ROOT_SPLIT;
+    private boolean chanceNodePruning = true; // Star1/Star2 at CHANCE nodes
+    private boolean moveOrdering = true;      // History/killer ordering at MAX/MIN nodes
+    private boolean lazyChanceExpansion = true; // Expand CHANCE outcome groups only when reached
+    private boolean batchLeafEvaluation = false; // Score last-ply CHANCE children as one batch
+    private SearchEngine searchEngine = SearchEngine.EXPECTIMINIMAX;
+    private long searchSeed = System.nanoTime();
+    private long jitWarmupMs = 0;              // 0 = no JIT warmup (see JitWarmup)
+    private boolean quietLog = false;          // Suppress this agent's INFO/DEBUG output
+    private boolean exitOnForfeit = true;      // Forfeits end the JVM, as in the original harness
+    
+    // Transposition tables kept between turns (see prepareSearchTables)
+    private boolean searchReuse = true;
+    private int transpositionTableEntries = TT_ENTRIES;
+    private final List<TranspositionTable> rootMoveTables = new ArrayList<>(); // One per root move index
+    private TranspositionTable carriedTable = null;   // Last turn's table for the move we played
+    private TranspositionTable lazySmpTable = null;   // Shared by all Lazy SMP threads
+    private List<String> lastRootMoves = null;        // Root moves of the last search, by name
+    private String lastPlayedMove = null;             // Move we played after the last search
+    private int lastSearchDepth = 0;                  // Depth completed by the last search
+    private Map<String, Double> lastRootValues = new HashMap<>(); // Root move values of that depth, by name
+    private volatile SearchMetrics lastSearchMetrics = null;
+    
+    // Runs getMove's search (see getSearchExecutor)
+    private ThreadPoolExecutor searchExecutor = null;
+    private static final AtomicInteger SEARCH_THREAD_IDS = new AtomicInteger();
+    
+    // Per-thread scratch for batched leaf evaluation, kept warm on the long-lived search threads
+    private static final ThreadLocal<LeafBatch> LEAF_BATCH = ThreadLocal.withInitial(LeafBatch::new);
+    
+    // Pondering: searching on the opponent's time (see startPondering)
+    private boolean pondering = false;
+    private ExecutorService ponderExecutor = null;
+    private StochasticTreeSearcher ponderSearcher = null;
+    private Future<Integer> ponderFuture = null;
+    
+    // MCTS tree store, kept between moves so its arrays are only grown once
+    private final GameTreeArena searchArena = new GameTreeArena();
+    
+    // Usable moves per state for this agent's battle, shared by its search threads
+    private final MoveIndex moveIndex = new MoveIndex();
 
     public TreeTraversalAgent() {
         super();
@@ -551,9 +1252,381 @@ public class TreeTraversalAgent extends Agent {
 
     public int getMaxDepth() { return this.maxDepth; }
     public long getMaxThinkingTimePerMoveInMS() { return this.maxThinkingTimePerMoveInMS; }
+    public void setMaxThinkingTimePerMoveInMS(long ms) { this.maxThinkingTimePerMoveInMS = ms; }
+    public ForkJoinPool getSearchPool() { return this.searchPool; }
+    public ParallelMode getParallelMode() { return this.parallelMode; }
+    public void setParallelMode(ParallelMode parallelMode) { this.parallelMode = parallelMode; }
+    public boolean isChanceNodePruning() { return this.chanceNodePruning; }
+    public void setChanceNodePruning(boolean chanceNodePruning) { this.chanceNodePruning = chanceNodePruning; }
+    public boolean isMoveOrdering() { return this.moveOrdering; }
+    public void setMoveOrdering(boolean moveOrdering) { this.moveOrdering = moveOrdering; }
+    public boolean isLazyChanceExpansion() { return this.lazyChanceExpansion; }
+    public void setLazyChanceExpansion(boolean lazyChanceExpansion) { this.lazyChanceExpansion = lazyChanceExpansion; }
+    public boolean isBatchLeafEvaluation() { return this.batchLeafEvaluation; }
+
+    /**
+     * Score the children of last-ply CHANCE nodes as one batch (see LeafBatch)
+     * - Off by default: a batch needs every outcome, so at the last ply it gives up the
+     *   getPotentialEffects calls lazy expansion and Star1 would have saved
+     */
+    public void setBatchLeafEvaluation(boolean batchLeafEvaluation) { this.batchLeafEvaluation = batchLeafEvaluation; }
+
+    /**
+     * Search root moves on the given pool (null searches them one by one on the search thread)
+     */
+    public void setSearchPool(ForkJoinPool searchPool) {
+        if (this.ownsSearchPool && this.searchPool != null && this.searchPool != searchPool) {
+            this.searchPool.shutdown();
+        }
+        this.searchPool = searchPool;
+        this.ownsSearchPool = false;
+    }
+
+    /**
+     * Convenience for setSearchPool: a dedicated pool with the given number of threads
+     * - 1 or less switches back to serial root search
+     */
+    public void setSearchParallelism(int threads) {
+        if (this.ownsSearchPool && this.searchPool != null) {
+            this.searchPool.shutdown();
+        }
+        this.searchPool = (threads > 1) ? new ForkJoinPool(threads) : null;
+        this.ownsSearchPool = this.searchPool != null;
+    }
+
+    public long getJitWarmupMs() { return this.jitWarmupMs; }
+
+    /**
+     * Spend up to this long warming up the JIT at the first chooseNextPokemon (0 turns it off)
+     * - Runs once per JVM, so only the first agent to get there pays for it
+     */
+    public void setJitWarmupMs(long jitWarmupMs) { this.jitWarmupMs = jitWarmupMs; }
+
+    /**
+     * Keep this agent's INFO and DEBUG messages out of the log whatever SearchLog's level
+     * (warnings still go through); for scratch agents, e.g. JitWarmup's
+     */
+    void setQuietLog(boolean quietLog) { this.quietLog = quietLog; }
+
+    /**
+     * Whether a forfeit (no move in time, or a failed search) ends the JVM, as the original
+     * harness did, or makes getMove throw a ForfeitException for the caller to score
+     */
+    public boolean isExitOnForfeit() { return this.exitOnForfeit; }
+    public void setExitOnForfeit(boolean exitOnForfeit) { this.exitOnForfeit = exitOnForfeit; }
+
+    /**
+     * Give up the battle: throw a ForfeitException, or with exitOnForfeit log it and end the JVM
+     */
+    protected MoveView forfeit(String reason, Throwable cause) {
+        if (!this.exitOnForfeit) {
+            throw new ForfeitException(this.getMyTeamIdx(), reason, cause);
+        }
+        SearchLog.warn(reason + (cause != null ? " (" + cause + ")" : "") + 
+                       " Team [" + (this.getMyTeamIdx()+1) + "] loses!");
+        SearchLog.flush();
+        System.exit(-1);
+        return null;
+    }
+
+    boolean logsInfo() { return !this.quietLog && SearchLog.isInfo(); }
+    boolean logsDebug() { return !this.quietLog && SearchLog.isDebug(); }
+
+    public boolean isSearchReuse() { return this.searchReuse; }
+    public void setSearchReuse(boolean searchReuse) { this.searchReuse = searchReuse; }
+
+    /**
+     * Tell the agent which move was actually played after the last search, so the next
+     * search can start from that move's table (getMove does this itself)
+     */
+    public void recordPlayedMove(MoveView move) {
+        this.lastPlayedMove = (move != null) ? move.getName() : null;
+    }
+
+    /**
+     * Get the transposition tables ready for a new search
+     * - Continuing from a move we played: last turn's table for that move becomes the
+     *   read-only carried table. The states after the opponent's reply were searched there
+     *   two plies down, and their Zobrist keys and remaining depths are still valid
+     * - Otherwise (first turn, reuse off, or the last search was not played) every table
+     *   starts empty, so a lone search does not depend on earlier ones
+     * - The Lazy SMP table holds the whole tree, so it is simply kept when continuing
+     */
+    private void prepareSearchTables(List<MoveView> rootMoves) {
+        int playedIdx = -1;
+        if (searchReuse && lastPlayedMove != null && lastRootMoves != null) {
+            playedIdx = lastRootMoves.indexOf(lastPlayedMove);
+        }
+        
+        if (playedIdx >= 0 && playedIdx < rootMoveTables.size()) {
+            // Swap the played move's table out; the old carried table is recycled in its place
+            TranspositionTable recycled = carriedTable;
+            carriedTable = rootMoveTables.get(playedIdx);
+            if (recycled != null) {
+                recycled.clear();
+            } else {
+                recycled = new TranspositionTable(transpositionTableEntries);
+            }
+            rootMoveTables.set(playedIdx, recycled);
+            for (TranspositionTable table : rootMoveTables) {
+                table.newSearch();
+            }
+            if (lazySmpTable != null) {
+                lazySmpTable.newSearch();
+            }
+            if (logsInfo()) {
+                SearchLog.info("Reusing last turn's search of " + lastPlayedMove);
+            }
+        } else {
+            for (TranspositionTable table : rootMoveTables) {
+                table.clear();
+            }
+            if (carriedTable != null) {
+                carriedTable.clear();
+                carriedTable = null;
+            }
+            if (lazySmpTable != null) {
+                lazySmpTable.clear();
+            }
+        }
+        
+        List<String> names = new ArrayList<>(rootMoves.size());
+        for (MoveView move : rootMoves) {
+            names.add(move.getName());
+        }
+        lastRootMoves = names;
+        lastPlayedMove = null;
+    }
+
+    public int getLastSearchDepth() { return this.lastSearchDepth; }
+    public Map<String, Double> getLastRootValues() { return this.lastRootValues; }
+    public MoveIndex getMoveIndex() { return this.moveIndex; }
+
+    /**
+     * Metrics of the last completed search (null before the first one)
+     */
+    public SearchMetrics getLastSearchMetrics() { return this.lastSearchMetrics; }
+    void setLastSearchMetrics(SearchMetrics metrics) { this.lastSearchMetrics = metrics; }
+    public int getTranspositionTableEntries() { return this.transpositionTableEntries; }
+
+    /**
+     * Entry budget of each root move's transposition table (the Lazy SMP table gets
+     * LAZY_SMP_TABLE_FACTOR times as many); existing tables are dropped
+     */
+    public void setTranspositionTableEntries(int entries) {
+        stopPondering();
+        this.transpositionTableEntries = entries;
+        this.rootMoveTables.clear();
+        this.carriedTable = null;
+        this.lazySmpTable = null;
+        this.lastRootMoves = null;
+    }
+
+    /**
+     * Traffic of every transposition table the agent holds, then the memo caches
+     */
+    public String cacheStats() {
+        long probes = 0, hits = 0, stores = 0, evictions = 0;
+        int slots = 0;
+        List<TranspositionTable> tables = new ArrayList<>(rootMoveTables);
+        if (carriedTable != null) tables.add(carriedTable);
+        if (lazySmpTable != null) tables.add(lazySmpTable);
+        for (TranspositionTable table : tables) {
+            probes += table.getProbes();
+            hits += table.getHits();
+            stores += table.getStores();
+            evictions += table.getEvictions();
+            slots += table.capacity();
+        }
+        return "TT: " + tables.size() + " tables, " + slots + " slots, hit rate " +
+               String.format("%.3f", probes > 0 ? (double) hits / probes : 0.0) + " (" + hits + "/" + probes + "), " +
+               stores + " stores, " + evictions + " evictions; " +
+               UtilityCalculator.cacheStats() + "; " + moveIndex.stats();
+    }
+    public boolean isPondering() { return this.pondering; }
+    public void setPondering(boolean pondering) {
+        this.pondering = pondering;
+        if (!pondering) {
+            stopPondering();
+        }
+    }
+
+    /**
+     * Start pondering after playing a move from this state
+     * - A background thread searches the states after the opponent's most likely replies
+     *   (the MIN ordering in GameNode) into the table the next search will carry over
+     * - Needs the last search to have been from this state; does nothing otherwise
+     */
+    public void startPondering(BattleView battleView, MoveView playedMove) {
+        stopPondering();
+        if (playedMove == null || battleView.isOver() || lastRootMoves == null) {
+            return;
+        }
+        int playedIdx = lastRootMoves.indexOf(playedMove.getName());
+        if (playedIdx < 0) {
+            return;
+        }
+        
+        // Write where the next search will look: the Lazy SMP table, or the played
+        // move's table that prepareSearchTables turns into the carried table
+        TranspositionTable table = (getSearchPool() != null && getParallelMode() == ParallelMode.LAZY_SMP)
+            ? getLazySmpTable() : getRootMoveTable(playedIdx);
+        
+        if (ponderExecutor == null) {
+            ponderExecutor = Executors.newSingleThreadExecutor(r -> {
+                Thread thread = new Thread(r, "ponder");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        StochasticTreeSearcher searcher = new StochasticTreeSearcher(battleView, this.getMaxDepth(),
+                                                                     this.getMyTeamIdx(), table);
+        ponderSearcher = searcher;
+        ponderFuture = ponderExecutor.submit(() -> searcher.ponder(playedMove));
+    }
+
+    /**
+     * The executor getMove runs its search on, created on first use and kept until shutdown()
+     * - One thread stays alive between moves (and battles), so a move never pays for
+     *   starting a thread and per-thread scratch stays warm
+     * - A search still winding down after a timeout never delays the next move: that move
+     *   gets an extra thread, which exits after a minute idle
+     */
+    protected synchronized ExecutorService getSearchExecutor() {
+        if (searchExecutor == null) {
+            searchExecutor = new ThreadPoolExecutor(1, Integer.MAX_VALUE, 60L, TimeUnit.SECONDS,
+                                                    new SynchronousQueue<>(), r -> {
+                Thread thread = new Thread(r, "search-" + SEARCH_THREAD_IDS.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return searchExecutor;
+    }
+
+    /**
+     * Release every thread the agent started: the search and ponder threads and its own
+     * root-split pool (a pool given to setSearchPool belongs to the caller)
+     * - Call when the battle ends; the agent can still play afterwards, the threads are
+     *   started again on demand
+     */
+    public synchronized void shutdown() {
+        stopPondering();
+        if (searchExecutor != null) {
+            searchExecutor.shutdown();
+            searchExecutor = null;
+        }
+        if (ponderExecutor != null) {
+            ponderExecutor.shutdown();
+            ponderExecutor = null;
+        }
+        if (ownsSearchPool && searchPool != null) {
+            searchPool.shutdown();
+            searchPool = null;
+            ownsSearchPool = false;
+        }
+    }
+
+    /**
+     * Stop pondering and wait for the ponder thread to let go of the tables
+     * @return the depth pondered to (0 if nothing was pondering)
+     */
+    public int stopPondering() {
+        if (ponderSearcher == null) {
+            return 0;
+        }
+        ponderSearcher.stop();
+        int depth = 0;
+        try {
+            depth = ponderFuture.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            if (SearchLog.isWarn()) {
+                SearchLog.warn("Ponder search failed: " + e.getCause());
+            }
+        }
+        if (logsInfo()) {
+            SearchLog.info("Pondered to depth " + depth + " (" + ponderSearcher.nodesEvaluated + " nodes)");
+        }
+        ponderSearcher = null;
+        ponderFuture = null;
+        return depth;
+    }
+
+    private TranspositionTable getRootMoveTable(int idx) {
+        while (rootMoveTables.size() <= idx) {
+            rootMoveTables.add(new TranspositionTable(transpositionTableEntries));
+        }
+        return rootMoveTables.get(idx);
+    }
+
+    private TranspositionTable getCarriedTable() { return this.carriedTable; }
+
+    private TranspositionTable getLazySmpTable() {
+        if (lazySmpTable == null) {
+            lazySmpTable = new TranspositionTable(transpositionTableEntries * LAZY_SMP_TABLE_FACTOR);
+        }
+        return lazySmpTable;
+    }
+
+    public SearchEngine getSearchEngine() { return this.searchEngine; }
+    public void setSearchEngine(SearchEngine searchEngine) { this.searchEngine = searchEngine; }
+    public long getSearchSeed() { return this.searchSeed; }
+
+    /**
+     * Seed for the speed-tie coin flip in GameNode and for MCTS sampling, for reproducible searches
+     * - Handed to each search's root node; other agents' searches keep their own seeds
+     */
+    public void setSearchSeed(long seed) { this.searchSeed = seed; }
+
+    /**
+     * MCTS searcher using the same share of the per-move limit as the expectiminimax searchers
+     */
+    protected MonteCarloTreeSearcher createMonteCarloSearcher(BattleView battleView) {
+        return new MonteCarloTreeSearcher(
+            battleView,
+            this.getMyTeamIdx(),
+            (long) (this.getMaxThinkingTimePerMoveInMS() * SEARCH_TIME_FRACTION),
+            Long.MAX_VALUE,
+            this.getSearchSeed(),
+            this.searchArena,
+            this.moveIndex
+        );
+    }
+
+    /**
+     * Evaluate a single node to the given depth on the calling thread (used by the diagnostics)
+     */
+    public double expectiminimax(GameNode node, int depth) {
+        return new StochasticTreeSearcher(node.getBattleView(), depth, node.getMyTeamIdx())
+            .expectiminimax(node, depth, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Run one full search on the calling thread (used by the diagnostics)
+     */
+    public MoveView stochasticTreeSearch(BattleView battleView) {
+        return new StochasticTreeSearcher(battleView, this.getMaxDepth(), this.getMyTeamIdx())
+            .stochasticTreeSearch(battleView);
+    }
+
+    /**
+     * Run one full search on the calling thread, deepening no further than maxDepth
+     * (used by the benchmarks)
+     */
+    public MoveView stochasticTreeSearch(BattleView battleView, int maxDepth) {
+        return new StochasticTreeSearcher(battleView, maxDepth, this.getMyTeamIdx())
+            .stochasticTreeSearch(battleView);
+    }
 
     @Override
     public Integer chooseNextPokemon(BattleView view) {
+        // Battle start: get the hot search methods compiled before the first getMove
+        if (this.jitWarmupMs > 0 && !JitWarmup.isWarmedUp()) {
+            JitWarmup.warmUp(view, this.getMyTeamIdx(), this.jitWarmupMs);
+        }
+        
         // If only one Pokémon is available, choose it
         List<Integer> availablePokemon = new ArrayList<>();
         for (int idx = 0; idx < this.getMyTeamView(view).size(); ++idx) {
@@ -568,7 +1641,9 @@ public class TreeTraversalAgent extends Agent {
         
         // Get opponent's active Pokémon for type matching
         PokemonView opponentPokemon = view.getTeamView(1 - this.getMyTeamIdx()).getActivePokemonView();
-        System.out.println("Choosing Pokémon against opponent: " + opponentPokemon.getName());
+        if (logsDebug()) {
+            SearchLog.debug("Choosing Pokémon against opponent: " + opponentPokemon.getName());
+        }
         
         // Evaluate each available Pokémon with optimized selection
         int bestPokemonIdx = -1;
@@ -579,7 +1654,9 @@ public class TreeTraversalAgent extends Agent {
             double value = evaluatePokemonChoice(view, idx);
             PokemonView pokemon = view.getTeamView(this.getMyTeamIdx()).getPokemonView(idx);
             
-            System.out.println("Evaluating " + pokemon.getName() + ": " + value);
+            if (logsDebug()) {
+                SearchLog.debug("Evaluating " + pokemon.getName() + ": " + value);
+            }
             
             if (value > bestValue) {
                 bestValue = value;
@@ -588,7 +1665,9 @@ public class TreeTraversalAgent extends Agent {
             
             // Choose immediately if we have a very good matchup
             if (value > 10.0) {
-                System.out.println("Found excellent matchup with " + pokemon.getName() + ", selecting immediately");
+                if (logsDebug()) {
+                    SearchLog.debug("Found excellent matchup with " + pokemon.getName() + ", selecting immediately");
+                }
                 return idx;
             }
         }
@@ -598,29 +1677,41 @@ public class TreeTraversalAgent extends Agent {
         }
         
         PokemonView chosenPokemon = view.getTeamView(this.getMyTeamIdx()).getPokemonView(bestPokemonIdx);
-        System.out.println("Chosen Pokémon: " + chosenPokemon.getName() + " with value: " + bestValue);
+        if (logsInfo()) {
+            SearchLog.info("Chosen Pokémon: " + chosenPokemon.getName() + " with value: " + bestValue);
+        }
         
         return bestPokemonIdx;
     }
 
     /**
-     * This method is responsible for getting a move selected via the minimax algorithm.
-     * There is some setup for this to work, namely making sure the agent doesn't run out of time.
-     * DO NOT MODIFY THIS METHOD as instructed by your professor.
+     * Pick a move within getMaxThinkingTimePerMoveInMS
+     * - Stops any ponder search, then runs the configured engine (expectiminimax or MCTS)
+     *   on the agent's search executor, waiting at most the time limit for it
+     * - Out of time, the search is stopped and the best move of its last completed
+     *   iteration is played; only if it has none, or the search failed, does the agent
+     *   forfeit (see forfeit: System.exit as in the original harness, or a
+     *   ForfeitException with setExitOnForfeit(false))
+     * - The played move is recorded for search reuse, and with pondering on a ponder
+     *   search starts on the opponent's time
      */
     @Override
     public MoveView getMove(BattleView battleView) {
+        // the opponent has moved, cut the ponder search over to the real one
+        this.stopPondering();
         // will run the minimax algorithm in a background thread with a timeout
-        ExecutorService backgroundThreadManager = Executors.newSingleThreadExecutor();
+        ExecutorService backgroundThreadManager = this.getSearchExecutor();
         // preallocate so we don't spend precious time doing it when we are recording duration
         MoveView move = null;
         long durationInMs = 0;
         // this obj will run in the background
-        StochasticTreeSearcher searcherObject = new StochasticTreeSearcher(
-            battleView,
-            this.getMaxDepth(),
-            this.getMyTeamIdx()
-        );
+        AnytimeSearcher searcherObject = (this.getSearchEngine() == SearchEngine.MCTS)
+            ? this.createMonteCarloSearcher(battleView)
+            : new StochasticTreeSearcher(
+                battleView,
+                this.getMaxDepth(),
+                this.getMyTeamIdx()
+            );
         // submit the job
         Future<Pair<MoveView, Long> > future = backgroundThreadManager.submit(searcherObject);
         try {
@@ -632,17 +1723,27 @@ public class TreeTraversalAgent extends Agent {
             // if we get here the move was chosen quick enough! :)
             move = moveAndDuration.getFirst();
             durationInMs = moveAndDuration.getSecond();
+            this.recordPlayedMove(move);
         } catch(TimeoutException e) {
-            // timeout = out of time...you lose!
-            System.err.println("Timeout!");
-            System.err.println("Team [" + (this.getMyTeamIdx()+1) + " loses!");
-            System.exit(-1);
+            // out of time: stop the search and play the best move of its last completed iteration
+            searcherObject.stop();
+            future.cancel(true);
+            move = searcherObject.getBestMoveSoFar();
+            this.recordPlayedMove(move);
+            if (move == null) {
+                // timeout = out of time...you lose!
+                return this.forfeit("Timeout!", null);
+            }
         } catch(InterruptedException e) {
-            e.printStackTrace();
-            System.exit(-1);
+            Thread.currentThread().interrupt();
+            searcherObject.stop();
+            return this.forfeit("Interrupted while searching.", e);
         } catch(ExecutionException e) {
-            e.printStackTrace();
-            System.exit(-1);
+            return this.forfeit("Search failed.", e.getCause());
+        }
+        // think on the opponent's time until the next call
+        if (this.isPondering() && this.getSearchEngine() == SearchEngine.EXPECTIMINIMAX) {
+            this.startPondering(battleView, move);
         }
         return move;
     }
@@ -711,10 +1812,7 @@ public class TreeTraversalAgent extends Agent {
                 Type oppType1 = opponentPokemon.getCurrentType1();
                 Type oppType2 = opponentPokemon.getCurrentType2();
                 
-                double effectiveness = getTypeEffectiveness(move.getType(), oppType1);
-                if (oppType2 != null) {
-                    effectiveness *= getTypeEffectiveness(move.getType(), oppType2);
-                }
+                double effectiveness = TypeChart.get(move.getType(), oppType1, oppType2);
                 
                 moveValue *= effectiveness;
             } 
@@ -807,19 +1905,8 @@ public class TreeTraversalAgent extends Agent {
     /**
      * Calculate effectiveness of one type against another type (or pair of types)
      */
-    private double calculateSingleTypeEffectiveness(Type attackType, Type defenderType1, Type defenderType2) {
-        if (attackType == null || defenderType1 == null) {
-            return 1.0;
-        }
-        
-        double effectiveness = getTypeEffectiveness(attackType, defenderType1);
-        
-        // If defender has a second type, multiply by effectiveness against it
-        if (defenderType2 != null) {
-            effectiveness *= getTypeEffectiveness(attackType, defenderType2);
-        }
-        
-        return effectiveness;
+    double calculateSingleTypeEffectiveness(Type attackType, Type defenderType1, Type defenderType2) {
+        return TypeChart.get(attackType, defenderType1, defenderType2);
     }
     
     /**
@@ -872,63 +1959,7 @@ public class TreeTraversalAgent extends Agent {
     /**
      * Get type effectiveness multiplier
      */
-    private double getTypeEffectiveness(Type attackType, Type defenderType) {
-        if (attackType == null || defenderType == null) {
-            return 1.0;
-        }
-        
-        // Normal effectiveness
-        if (attackType == Type.NORMAL) {
-            if (defenderType == Type.ROCK) return 0.5;
-            if (defenderType == Type.GHOST) return 0.0;
-        }
-        
-        // Fire effectiveness
-        if (attackType == Type.FIRE) {
-            if (defenderType == Type.GRASS || defenderType == Type.ICE || 
-                defenderType == Type.BUG) return 2.0;
-            if (defenderType == Type.FIRE || defenderType == Type.WATER || 
-                defenderType == Type.ROCK || defenderType == Type.DRAGON) return 0.5;
-        }
-        
-        // Water effectiveness
-        if (attackType == Type.WATER) {
-            if (defenderType == Type.FIRE || defenderType == Type.GROUND || defenderType == Type.ROCK) return 2.0;
-            if (defenderType == Type.WATER || defenderType == Type.GRASS || defenderType == Type.DRAGON) return 0.5;
-        }
-        
-        // Electric effectiveness
-        if (attackType == Type.ELECTRIC) {
-            if (defenderType == Type.WATER || defenderType == Type.FLYING) return 2.0;
-            if (defenderType == Type.ELECTRIC || defenderType == Type.GRASS || defenderType == Type.DRAGON) return 0.5;
-            if (defenderType == Type.GROUND) return 0.0;
-        }
-        
-        // Grass effectiveness
-        if (attackType == Type.GRASS) {
-            if (defenderType == Type.WATER || defenderType == Type.GROUND || defenderType == Type.ROCK) return 2.0;
-            if (defenderType == Type.FIRE || defenderType == Type.GRASS || defenderType == Type.POISON || 
-                defenderType == Type.FLYING || defenderType == Type.BUG || defenderType == Type.DRAGON) return 0.5;
-        }
-        
-        // Ice effectiveness
-        if (attackType == Type.ICE) {
-            if (defenderType == Type.GRASS || defenderType == Type.GROUND || 
-                defenderType == Type.FLYING || defenderType == Type.DRAGON) return 2.0;
-            if (defenderType == Type.FIRE || defenderType == Type.WATER || 
-                defenderType == Type.ICE) return 0.5;
-        }
-        
-        // Fighting effectiveness
-        if (attackType == Type.FIGHTING) {
-            if (defenderType == Type.NORMAL || defenderType == Type.ICE || 
-                defenderType == Type.ROCK) return 2.0;
-            if (defenderType == Type.POISON || defenderType == Type.FLYING || 
-                defenderType == Type.PSYCHIC || defenderType == Type.BUG) return 0.5;
-            if (defenderType == Type.GHOST) return 0.0;
-        }
-        
-        // Default to neutral effectiveness for other combinations
-        return 1.0;
+    double getTypeEffectiveness(Type attackType, Type defenderType) {
+        return TypeChart.get(attackType, defenderType);
     }
 }
\ No newline at end of file
@@ -10,20 +10,29 @@ import java.util.concurrent.*;
  */
 public class TreeTraversalAgentTestRunner {
     
+    /**
+     * The runner builds no battle states; it runs on a real game's state through run(),
+     * e.g. by playing a game with HarnessAgent (-Dpas.harness=runner)
+     */
     public static void main(String[] args) {
+        System.out.println("TreeTraversalAgentTestRunner needs a real battle state: play a game with " +
+                           "HarnessAgent and -Dpas.harness=runner");
+    }
+    
+    /**
+     * Run the depth and timeout tests on a battle state
+     */
+    public static void run(BattleView battleView) {
         System.out.println("Starting TreeTraversalAgent performance test...");
         
-        // Create a mock battle view for testing
-        BattleView mockBattleView = createMockBattleView();
-        
         // Run tests with different depth limits
-        runDepthTest(mockBattleView, 1);
-        runDepthTest(mockBattleView, 2);
-        runDepthTest(mockBattleView, 3);
+        runDepthTest(battleView, 1);
+        runDepthTest(battleView, 2);
+        runDepthTest(battleView, 3);
         
         // Run with timeout to find potential timeout issues
         int timeoutInSeconds = 30;
-        runWithTimeout(mockBattleView, timeoutInSeconds);
+        runWithTimeout(battleView, timeoutInSeconds);
         
         System.out.println("Testing complete!");
     }
@@ -93,16 +102,6 @@ public class TreeTraversalAgentTestRunner {
         executor.shutdownNow();
     }
     
-    /**
-     * Create a mock BattleView for testing
-     */
-    private static BattleView createMockBattleView() {
-        // In a real implementation, you would create a proper mock
-        // or use a real BattleView instance
-        // For now, this is a placeholder
-        return null;
-    }
-    
     /**
      * Set the maximum depth for a TreeTraversalAgent
      * This assumes the agent has a setMaxDepth method or similar
@@ -0,0 +1,127 @@
+package src.pas.pokemon.agents;
+
+import edu.bu.pas.pokemon.core.enums.Type;
+
+import java.util.Arrays;
+
+/**
+ * The type effectiveness chart, shared by every evaluator
+ * - One float[attack][defender] table, filled once from the rules below
+ * - A second table holds the combined multiplier against every (type1, type2) defender,
+ *   so a dual-type lookup is a single array read
+ * - Lookups are O(1) and allocate nothing; the tables are never handed out, so they stay fixed
+ * - Missing types (null) are neutral, as in the old if-chains
+ */
+public final class TypeChart {
+
+    private static final Type[] TYPES = Type.values();
+    private static final int TYPE_COUNT = TYPES.length;
+    private static final int CODES = TYPE_COUNT + 1;   // Type codes: 0 = no type, ordinal + 1 otherwise
+
+    private static final float[][] CHART = new float[TYPE_COUNT][TYPE_COUNT];
+    private static final float[][] DUAL = new float[TYPE_COUNT][CODES * CODES];
+
+    static {
+        for (float[] row : CHART) {
+            Arrays.fill(row, 1.0f);
+        }
+
+        set(Type.NORMAL, 0.5f, Type.ROCK);
+        set(Type.NORMAL, 0.0f, Type.GHOST);
+
+        set(Type.FIRE, 2.0f, Type.GRASS, Type.ICE, Type.BUG);
+        set(Type.FIRE, 0.5f, Type.FIRE, Type.WATER, Type.ROCK, Type.DRAGON);
+
+        set(Type.WATER, 2.0f, Type.FIRE, Type.GROUND, Type.ROCK);
+        set(Type.WATER, 0.5f, Type.WATER, Type.GRASS, Type.DRAGON);
+
+        set(Type.ELECTRIC, 2.0f, Type.WATER, Type.FLYING);
+        set(Type.ELECTRIC, 0.5f, Type.ELECTRIC, Type.GRASS, Type.DRAGON);
+        set(Type.ELECTRIC, 0.0f, Type.GROUND);
+
+        set(Type.GRASS, 2.0f, Type.WATER, Type.GROUND, Type.ROCK);
+        set(Type.GRASS, 0.5f, Type.FIRE, Type.GRASS, Type.POISON, Type.FLYING, Type.BUG, Type.DRAGON);
+
+        set(Type.ICE, 2.0f, Type.GRASS, Type.GROUND, Type.FLYING, Type.DRAGON);
+        set(Type.ICE, 0.5f, Type.FIRE, Type.WATER, Type.ICE);
+
+        set(Type.FIGHTING, 2.0f, Type.NORMAL, Type.ICE, Type.ROCK);
+        set(Type.FIGHTING, 0.5f, Type.POISON, Type.FLYING, Type.PSYCHIC, Type.BUG);
+        set(Type.FIGHTING, 0.0f, Type.GHOST);
+
+        set(Type.POISON, 2.0f, Type.GRASS);
+        set(Type.POISON, 0.5f, Type.POISON, Type.GROUND, Type.ROCK, Type.GHOST);
+
+        set(Type.GROUND, 2.0f, Type.FIRE, Type.ELECTRIC, Type.POISON, Type.ROCK);
+        set(Type.GROUND, 0.5f, Type.GRASS, Type.BUG);
+        set(Type.GROUND, 0.0f, Type.FLYING);
+
+        set(Type.FLYING, 2.0f, Type.GRASS, Type.FIGHTING, Type.BUG);
+        set(Type.FLYING, 0.5f, Type.ELECTRIC, Type.ROCK);
+
+        set(Type.PSYCHIC, 2.0f, Type.FIGHTING, Type.POISON);
+        set(Type.PSYCHIC, 0.5f, Type.PSYCHIC);
+
+        set(Type.BUG, 2.0f, Type.GRASS, Type.PSYCHIC);
+        set(Type.BUG, 0.5f, Type.FIRE, Type.FIGHTING, Type.POISON, Type.FLYING, Type.GHOST);
+
+        set(Type.ROCK, 2.0f, Type.FIRE, Type.ICE, Type.FLYING, Type.BUG);
+        set(Type.ROCK, 0.5f, Type.FIGHTING, Type.GROUND);
+
+        set(Type.GHOST, 2.0f, Type.PSYCHIC, Type.GHOST);
+        set(Type.GHOST, 0.0f, Type.NORMAL);
+
+        set(Type.DRAGON, 2.0f, Type.DRAGON);
+
+        // Dual-type defenders; no first type is neutral whatever the second one is
+        for (int attack = 0; attack < TYPE_COUNT; attack++) {
+            for (int code1 = 0; code1 < CODES; code1++) {
+                for (int code2 = 0; code2 < CODES; code2++) {
+                    float multiplier = 1.0f;
+                    if (code1 != 0) {
+                        multiplier = CHART[attack][code1 - 1];
+                        if (code2 != 0) {
+                            multiplier *= CHART[attack][code2 - 1];
+                        }
+                    }
+                    DUAL[attack][code1 * CODES + code2] = multiplier;
+                }
+            }
+        }
+    }
+
+    private TypeChart() {}
+
+    private static void set(Type attack, float multiplier, Type... defenders) {
+        for (Type defender : defenders) {
+            CHART[attack.ordinal()][defender.ordinal()] = multiplier;
+        }
+    }
+
+    /**
+     * Multiplier of an attack type against a single defending type
+     */
+    public static float get(Type attackType, Type defenderType) {
+        if (attackType == null || defenderType == null) {
+            return 1.0f;
+        }
+        return CHART[attackType.ordinal()][defenderType.ordinal()];
+    }
+
+    /**
+     * Multiplier of an attack type against a defender's two types (the second may be null)
+     */
+    public static float get(Type attackType, Type defenderType1, Type defenderType2) {
+        if (attackType == null) {
+            return 1.0f;
+        }
+        return DUAL[attackType.ordinal()][code(defenderType1) * CODES + code(defenderType2)];
+    }
+
+    /**
+     * Type code used by the dual-type table: 0 for no type, ordinal + 1 otherwise
+     */
+    static int code(Type type) {
+        return type == null ? 0 : type.ordinal() + 1;
+    }
+}
@@ -1,7 +1,6 @@
 package src.pas.pokemon.agents;
 
 import edu.bu.pas.pokemon.core.Battle.BattleView;
-import edu.bu.pas.pokemon.core.Team.TeamView;
 import edu.bu.pas.pokemon.core.Pokemon.PokemonView;
 import edu.bu.pas.pokemon.core.Move.MoveView;
 import edu.bu.pas.pokemon.core.enums.Type;
@@ -12,28 +11,59 @@ import edu.bu.pas.pokemon.core.enums.Stat;
 import edu.bu.pas.pokemon.core.enums.Type;
 
 import java.util.List;
-import java.util.HashMap;
-import java.util.Map;
 
 /**
  * Enhanced Utility calculator for evaluating Pokémon battle states
  */
 public class UtilityCalculator {
     
-    // Cache for type effectiveness calculations to avoid repeated computations
-    private static final Map<String, Double> typeEffectivenessCache = new HashMap<>();
-    private static final Map<String, Double> moveEffectivenessCache = new HashMap<>();
+    // Default entry budget for the move memo cache
+    private static final int MOVE_CACHE_ENTRIES = 65536;
+    
+    // Cache for move evaluations to avoid repeated computations, keyed by packed
+    // move id and matchup (lock-free, safe for several search threads at once); type
+    // effectiveness needs no cache, it is a TypeChart lookup
+    private static final PackedKeyMemo moveEffectivenessCache =
+        new PackedKeyMemo("moveEffectiveness", MOVE_CACHE_ENTRIES);
+    
+    /**
+     * Set the entry budget of the memo cache (shrinking evicts right away)
+     */
+    public static void setCacheBudget(int moveEntries) {
+        moveEffectivenessCache.setMaxEntries(moveEntries);
+    }
+    
+    /**
+     * Drop all memoized values, e.g. between battles
+     */
+    public static void clearCaches() {
+        moveEffectivenessCache.clear();
+    }
+    
+    /**
+     * Size, hit rate and evictions of the memo cache
+     */
+    public static String cacheStats() {
+        return moveEffectivenessCache.stats();
+    }
     
     /**
      * Calculate the utility value of a battle state for the specified team
      * Higher values are better for the team
      */
     public static double calculateUtility(BattleView battleView, int myTeamIdx) {
+        return calculateUtility(BattleSnapshot.of(battleView), myTeamIdx);
+    }
+    
+    /**
+     * Same as calculateUtility(BattleView, int), reading from a snapshot of the state
+     */
+    public static double calculateUtility(BattleSnapshot state, int myTeamIdx) {
         // Fast check for game over condition
-        if (battleView.isOver()) {
+        if (state.isOver()) {
             // Count remaining Pokémon for both teams
-            int myRemaining = countRemainingPokemon(battleView, myTeamIdx);
-            int oppRemaining = countRemainingPokemon(battleView, 1 - myTeamIdx);
+            int myRemaining = state.getRemaining(myTeamIdx);
+            int oppRemaining = state.getRemaining(1 - myTeamIdx);
             
             if (oppRemaining == 0 && myRemaining > 0) {
                 return 10000.0; // We won
@@ -45,11 +75,11 @@ public class UtilityCalculator {
         }
         
         // Quick HP comparison (most important factor)
-        double hpRatio = calculateHPRatio(battleView, myTeamIdx);
+        double hpRatio = calculateHPRatio(state, myTeamIdx);
         
         // Quick remaining Pokemon check (second most important)
-        int myRemaining = countRemainingPokemon(battleView, myTeamIdx);
-        int oppRemaining = countRemainingPokemon(battleView, 1 - myTeamIdx);
+        int myRemaining = state.getRemaining(myTeamIdx);
+        int oppRemaining = state.getRemaining(1 - myTeamIdx);
         double pokemonCountAdvantage = (myRemaining - oppRemaining) / (double)(myRemaining + oppRemaining);
         
         // If we have a significant HP advantage, we can return early
@@ -64,15 +94,15 @@ public class UtilityCalculator {
         
         // Team composition advantage - simplified
         double typeAdvantage = calculateTypeAdvantage(
-            battleView.getTeamView(myTeamIdx).getActivePokemonView(), 
-            battleView.getTeamView(1 - myTeamIdx).getActivePokemonView()
+            state.getActiveType1(myTeamIdx), state.getActiveType2(myTeamIdx),
+            state.getActiveType1(1 - myTeamIdx), state.getActiveType2(1 - myTeamIdx)
         );
         
         // Status effects advantage
-        double statusAdvantage = calculateStatusEffectsAdvantage(battleView, myTeamIdx);
+        double statusAdvantage = calculateStatusEffectsAdvantage(state, myTeamIdx);
         
         // Simplified stage multipliers calculation (focus on key stats)
-        double statMultipliersAdvantage = calculateSimplifiedStatMultipliersAdvantage(battleView, myTeamIdx);
+        double statMultipliersAdvantage = calculateSimplifiedStatMultipliersAdvantage(state, myTeamIdx);
         
         // Combine components with different weights
         return 6.0 * hpRatio + 
@@ -82,36 +112,16 @@ public class UtilityCalculator {
                1.5 * statMultipliersAdvantage;
     }
     
-    /**
-     * Count the number of non-fainted Pokémon in a team
-     */
-    private static int countRemainingPokemon(BattleView battleView, int teamIdx) {
-        TeamView team = battleView.getTeamView(teamIdx);
-        int count = 0;
-        
-        for (int i = 0; i < team.size(); i++) {
-            if (!team.getPokemonView(i).hasFainted()) {
-                count++;
-            }
-        }
-        
-        return count;
-    }
-    
     /**
      * Calculate HP ratio advantage
      * This considers both current active Pokémon and the entire team
      */
-    private static double calculateHPRatio(BattleView battleView, int myTeamIdx) {
-        TeamView myTeam = battleView.getTeamView(myTeamIdx);
-        TeamView opponentTeam = battleView.getTeamView(1 - myTeamIdx);
+    private static double calculateHPRatio(BattleSnapshot state, int myTeamIdx) {
+        int opponentTeamIdx = 1 - myTeamIdx;
         
         // Active Pokémon HP ratio (more important)
-        PokemonView myActive = myTeam.getActivePokemonView();
-        PokemonView oppActive = opponentTeam.getActivePokemonView();
-        
-        double myActiveHPRatio = getHPRatio(myActive);
-        double opponentActiveHPRatio = getHPRatio(oppActive);
+        double myActiveHPRatio = getActiveHPRatio(state, myTeamIdx);
+        double opponentActiveHPRatio = getActiveHPRatio(state, opponentTeamIdx);
         double activeHPAdvantage = myActiveHPRatio - opponentActiveHPRatio;
         
         // For efficiency, we'll focus mainly on active Pokémon HP
@@ -126,19 +136,17 @@ public class UtilityCalculator {
         double opponentTeamTotalHP = 0;
         double opponentTeamMaxHP = 0;
         
-        for (int i = 0; i < myTeam.size(); i++) {
-            PokemonView pokemon = myTeam.getPokemonView(i);
-            if (!pokemon.hasFainted()) {
-                myTeamTotalHP += pokemon.getCurrentStat(Stat.HP);
-                myTeamMaxHP += pokemon.getBaseStat(Stat.HP);
+        for (int i = 0; i < state.getTeamSize(myTeamIdx); i++) {
+            if (!state.hasFainted(myTeamIdx, i)) {
+                myTeamTotalHP += state.getHp(myTeamIdx, i);
+                myTeamMaxHP += state.getMaxHp(myTeamIdx, i);
             }
         }
         
-        for (int i = 0; i < opponentTeam.size(); i++) {
-            PokemonView pokemon = opponentTeam.getPokemonView(i);
-            if (!pokemon.hasFainted()) {
-                opponentTeamTotalHP += pokemon.getCurrentStat(Stat.HP);
-                opponentTeamMaxHP += pokemon.getBaseStat(Stat.HP);
+        for (int i = 0; i < state.getTeamSize(opponentTeamIdx); i++) {
+            if (!state.hasFainted(opponentTeamIdx, i)) {
+                opponentTeamTotalHP += state.getHp(opponentTeamIdx, i);
+                opponentTeamMaxHP += state.getMaxHp(opponentTeamIdx, i);
             }
         }
         
@@ -151,36 +159,19 @@ public class UtilityCalculator {
     }
     
     /**
-     * Get HP ratio for a single Pokémon (0.0 to 1.0)
+     * Get HP ratio for a team's active Pokémon (0.0 to 1.0)
      */
-    private static double getHPRatio(PokemonView pokemon) {
-        if (pokemon.hasFainted() || pokemon.getBaseStat(Stat.HP) == 0) {
+    static double getActiveHPRatio(BattleSnapshot state, int teamIdx) {
+        if (state.hasActiveFainted(teamIdx) || state.getActiveMaxHp(teamIdx) == 0) {
             return 0.0;
         }
-        return (double) pokemon.getCurrentStat(Stat.HP) / pokemon.getBaseStat(Stat.HP);
+        return (double) state.getActiveHp(teamIdx) / state.getActiveMaxHp(teamIdx);
     }
     
     /**
      * Calculate type advantage between two Pokémon
      */
-    private static double calculateTypeAdvantage(PokemonView myPokemon, PokemonView opponentPokemon) {
-        // Get Pokémon types
-        Type myType1 = myPokemon.getCurrentType1();
-        Type myType2 = myPokemon.getCurrentType2();
-        Type opponentType1 = opponentPokemon.getCurrentType1();
-        Type opponentType2 = opponentPokemon.getCurrentType2();
-        
-        // Cache key for this matchup
-        String cacheKey = (myType1 != null ? myType1.toString() : "null") + "|" + 
-                         (myType2 != null ? myType2.toString() : "null") + "|" + 
-                         (opponentType1 != null ? opponentType1.toString() : "null") + "|" + 
-                         (opponentType2 != null ? opponentType2.toString() : "null");
-        
-        // Check cache first
-        if (typeEffectivenessCache.containsKey(cacheKey)) {
-            return typeEffectivenessCache.get(cacheKey);
-        }
-        
+    static double calculateTypeAdvantage(Type myType1, Type myType2, Type opponentType1, Type opponentType2) {
         // Calculate effectiveness of our attacks against opponent
         double ourOffensiveAdvantage = calculateTypeEffectiveness(myType1, opponentType1, opponentType2);
         if (myType2 != null) {
@@ -196,181 +187,43 @@ public class UtilityCalculator {
         }
         
         // Return net advantage (positive means we have advantage)
-        double result = ourOffensiveAdvantage - theirOffensiveAdvantage;
-        
-        // Cache the result
-        typeEffectivenessCache.put(cacheKey, result);
-        
-        return result;
+        return ourOffensiveAdvantage - theirOffensiveAdvantage;
     }
     
     /**
      * Calculate effectiveness multiplier of an attack type against a defender's types
      */
-    private static double calculateTypeEffectiveness(Type attackType, Type defenderType1, Type defenderType2) {
-        if (attackType == null || defenderType1 == null) {
-            return 1.0;
-        }
-        
-        double effectiveness = getTypeEffectiveness(attackType, defenderType1);
-        
-        // If defender has a second type, multiply by effectiveness against it
-        if (defenderType2 != null) {
-            effectiveness *= getTypeEffectiveness(attackType, defenderType2);
-        }
-        
-        return effectiveness;
+    static double calculateTypeEffectiveness(Type attackType, Type defenderType1, Type defenderType2) {
+        return TypeChart.get(attackType, defenderType1, defenderType2);
     }
     
     /**
      * Get type effectiveness multiplier
      */
-    private static double getTypeEffectiveness(Type attackType, Type defenderType) {
-        if (attackType == null || defenderType == null) {
-            return 1.0;
-        }
-        
-        // Create cache key
-        String cacheKey = attackType.toString() + "|" + defenderType.toString();
-        
-        // Check cache first
-        if (typeEffectivenessCache.containsKey(cacheKey)) {
-            return typeEffectivenessCache.get(cacheKey);
-        }
-        
-        double effectiveness = 1.0;
-        
-        // Normal effectiveness
-        if (attackType == Type.NORMAL) {
-            if (defenderType == Type.ROCK) effectiveness = 0.5;
-            else if (defenderType == Type.GHOST) effectiveness = 0.0;
-        }
-        
-        // Fire effectiveness
-        else if (attackType == Type.FIRE) {
-            if (defenderType == Type.GRASS || defenderType == Type.ICE || 
-                defenderType == Type.BUG) effectiveness = 2.0;
-            else if (defenderType == Type.FIRE || defenderType == Type.WATER || 
-                defenderType == Type.ROCK || defenderType == Type.DRAGON) effectiveness = 0.5;
-        }
-        
-        // Water effectiveness
-        else if (attackType == Type.WATER) {
-            if (defenderType == Type.FIRE || defenderType == Type.GROUND || defenderType == Type.ROCK) effectiveness = 2.0;
-            else if (defenderType == Type.WATER || defenderType == Type.GRASS || defenderType == Type.DRAGON) effectiveness = 0.5;
-        }
-        
-        // Electric effectiveness
-        else if (attackType == Type.ELECTRIC) {
-            if (defenderType == Type.WATER || defenderType == Type.FLYING) effectiveness = 2.0;
-            else if (defenderType == Type.ELECTRIC || defenderType == Type.GRASS || defenderType == Type.DRAGON) effectiveness = 0.5;
-            else if (defenderType == Type.GROUND) effectiveness = 0.0;
-        }
-        
-        // Grass effectiveness
-        else if (attackType == Type.GRASS) {
-            if (defenderType == Type.WATER || defenderType == Type.GROUND || defenderType == Type.ROCK) effectiveness = 2.0;
-            else if (defenderType == Type.FIRE || defenderType == Type.GRASS || defenderType == Type.POISON || 
-                defenderType == Type.FLYING || defenderType == Type.BUG || defenderType == Type.DRAGON) effectiveness = 0.5;
-        }
-        
-        // Ice effectiveness
-        else if (attackType == Type.ICE) {
-            if (defenderType == Type.GRASS || defenderType == Type.GROUND || 
-                defenderType == Type.FLYING || defenderType == Type.DRAGON) effectiveness = 2.0;
-            else if (defenderType == Type.FIRE || defenderType == Type.WATER || 
-                defenderType == Type.ICE) effectiveness = 0.5;
-        }
-        
-        // Fighting effectiveness
-        else if (attackType == Type.FIGHTING) {
-            if (defenderType == Type.NORMAL || defenderType == Type.ICE || 
-                defenderType == Type.ROCK) effectiveness = 2.0;
-            else if (defenderType == Type.POISON || defenderType == Type.FLYING || 
-                defenderType == Type.PSYCHIC || defenderType == Type.BUG) effectiveness = 0.5;
-            else if (defenderType == Type.GHOST) effectiveness = 0.0;
-        }
-        
-        // Poison effectiveness
-        else if (attackType == Type.POISON) {
-            if (defenderType == Type.GRASS) effectiveness = 2.0;
-            else if (defenderType == Type.POISON || defenderType == Type.GROUND || 
-                defenderType == Type.ROCK || defenderType == Type.GHOST) effectiveness = 0.5;
-        }
-        
-        // Ground effectiveness
-        else if (attackType == Type.GROUND) {
-            if (defenderType == Type.FIRE || defenderType == Type.ELECTRIC || 
-                defenderType == Type.POISON || defenderType == Type.ROCK) effectiveness = 2.0;
-            else if (defenderType == Type.GRASS || defenderType == Type.BUG) effectiveness = 0.5;
-            else if (defenderType == Type.FLYING) effectiveness = 0.0;
-        }
-        
-        // Flying effectiveness
-        else if (attackType == Type.FLYING) {
-            if (defenderType == Type.GRASS || defenderType == Type.FIGHTING || defenderType == Type.BUG) effectiveness = 2.0;
-            else if (defenderType == Type.ELECTRIC || defenderType == Type.ROCK) effectiveness = 0.5;
-        }
-        
-        // Psychic effectiveness
-        else if (attackType == Type.PSYCHIC) {
-            if (defenderType == Type.FIGHTING || defenderType == Type.POISON) effectiveness = 2.0;
-            else if (defenderType == Type.PSYCHIC) effectiveness = 0.5;
-        }
-        
-        // Bug effectiveness
-        else if (attackType == Type.BUG) {
-            if (defenderType == Type.GRASS || defenderType == Type.PSYCHIC) effectiveness = 2.0;
-            else if (defenderType == Type.FIRE || defenderType == Type.FIGHTING || 
-                defenderType == Type.POISON || defenderType == Type.FLYING || 
-                defenderType == Type.GHOST) effectiveness = 0.5;
-        }
-        
-        // Rock effectiveness
-        else if (attackType == Type.ROCK) {
-            if (defenderType == Type.FIRE || defenderType == Type.ICE || 
-                defenderType == Type.FLYING || defenderType == Type.BUG) effectiveness = 2.0;
-            else if (defenderType == Type.FIGHTING || defenderType == Type.GROUND) effectiveness = 0.5;
-        }
-        
-        // Ghost effectiveness
-        else if (attackType == Type.GHOST) {
-            if (defenderType == Type.PSYCHIC || defenderType == Type.GHOST) effectiveness = 2.0;
-            else if (defenderType == Type.NORMAL) effectiveness = 0.0;
-        }
-        
-        // Dragon effectiveness
-        else if (attackType == Type.DRAGON) {
-            if (defenderType == Type.DRAGON) effectiveness = 2.0;
-        }
-        
-        // Cache the result
-        typeEffectivenessCache.put(cacheKey, effectiveness);
-        
-        return effectiveness;
+    static double getTypeEffectiveness(Type attackType, Type defenderType) {
+        return TypeChart.get(attackType, defenderType);
     }
     
     /**
      * Calculate advantage from status effects
      */
-    private static double calculateStatusEffectsAdvantage(BattleView battleView, int myTeamIdx) {
-        PokemonView myPokemon = battleView.getTeamView(myTeamIdx).getActivePokemonView();
-        PokemonView opponentPokemon = battleView.getTeamView(1 - myTeamIdx).getActivePokemonView();
+    static double calculateStatusEffectsAdvantage(BattleSnapshot state, int myTeamIdx) {
+        int opponentTeamIdx = 1 - myTeamIdx;
         
         // Get status effects for both active Pokémon
-        NonVolatileStatus myStatus = myPokemon.getNonVolatileStatus();
-        NonVolatileStatus opponentStatus = opponentPokemon.getNonVolatileStatus();
+        NonVolatileStatus myStatus = state.getActiveStatus(myTeamIdx);
+        NonVolatileStatus opponentStatus = state.getActiveStatus(opponentTeamIdx);
         
         // Score different status effects
         double myStatusScore = getStatusEffectScore(myStatus);
         double opponentStatusScore = getStatusEffectScore(opponentStatus);
         
         // Add volatile status flags
-        if (myPokemon.getFlag(Flag.CONFUSED)) myStatusScore += 0.25;
-        if (opponentPokemon.getFlag(Flag.CONFUSED)) opponentStatusScore += 0.25;
+        if (state.getActiveFlag(myTeamIdx, Flag.CONFUSED)) myStatusScore += 0.25;
+        if (state.getActiveFlag(opponentTeamIdx, Flag.CONFUSED)) opponentStatusScore += 0.25;
         
-        if (myPokemon.getFlag(Flag.SEEDED)) myStatusScore += 0.15;
-        if (opponentPokemon.getFlag(Flag.SEEDED)) opponentStatusScore += 0.15;
+        if (state.getActiveFlag(myTeamIdx, Flag.SEEDED)) myStatusScore += 0.15;
+        if (state.getActiveFlag(opponentTeamIdx, Flag.SEEDED)) opponentStatusScore += 0.15;
         
         // Combine scores (negative for our Pokémon, positive for opponent)
         return opponentStatusScore - myStatusScore;
@@ -403,16 +256,15 @@ public class UtilityCalculator {
     /**
      * Calculate advantage from stat modifiers (simplified version)
      */
-    private static double calculateSimplifiedStatMultipliersAdvantage(BattleView battleView, int myTeamIdx) {
-        PokemonView myPokemon = battleView.getTeamView(myTeamIdx).getActivePokemonView();
-        PokemonView opponentPokemon = battleView.getTeamView(1 - myTeamIdx).getActivePokemonView();
+    static double calculateSimplifiedStatMultipliersAdvantage(BattleSnapshot state, int myTeamIdx) {
+        int opponentTeamIdx = 1 - myTeamIdx;
         
         double advantage = 0.0;
         
         // Just consider the most important stats: ATK, DEF, SPD
-        advantage += 0.2 * (myPokemon.getCurrentStat(Stat.ATK) - opponentPokemon.getCurrentStat(Stat.ATK));
-        advantage += 0.2 * (myPokemon.getCurrentStat(Stat.DEF) - opponentPokemon.getCurrentStat(Stat.DEF));
-        advantage += 0.3 * (myPokemon.getCurrentStat(Stat.SPD) - opponentPokemon.getCurrentStat(Stat.SPD));
+        advantage += 0.2 * (state.getActiveStat(myTeamIdx, Stat.ATK) - state.getActiveStat(opponentTeamIdx, Stat.ATK));
+        advantage += 0.2 * (state.getActiveStat(myTeamIdx, Stat.DEF) - state.getActiveStat(opponentTeamIdx, Stat.DEF));
+        advantage += 0.3 * (state.getActiveStat(myTeamIdx, Stat.SPD) - state.getActiveStat(opponentTeamIdx, Stat.SPD));
         
         return advantage;
     }
@@ -426,90 +278,121 @@ public class UtilityCalculator {
             return 0.0;
         }
         
-        // Create cache key for this move evaluation
-        String cacheKey = move.getName() + "|" + 
-                         user.getName() + "|" + 
-                         target.getName() + "|" + 
-                         user.getCurrentStat(Stat.HP) + "|" + 
-                         target.getCurrentStat(Stat.HP);
+        int moveId = MoveCatalog.idOf(move);
+        if (moveId == MoveCatalog.NO_ID) {
+            // Catalog full, evaluate from the MoveView without the memo
+            boolean status = MoveCatalog.isStatusCategory(move);
+            return moveValue(status, status ? MoveCatalog.effectOf(move.getName()) : MoveCatalog.EFFECT_NONE,
+                             move.getPower() != null ? move.getPower() : MoveCatalog.NONE,
+                             move.getAccuracy() != null ? move.getAccuracy() : MoveCatalog.NONE,
+                             move.getType(), user, target);
+        }
+        
+        // Cache key for this move evaluation: the move, the types involved, and the
+        // user's HP for the moves whose value depends on it
+        long cacheKey = moveKey(moveId, user, target);
         
         // Check cache first
-        if (moveEffectivenessCache.containsKey(cacheKey)) {
-            return moveEffectivenessCache.get(cacheKey);
+        double cached = moveEffectivenessCache.get(cacheKey);
+        if (!Double.isNaN(cached)) {
+            return cached;
         }
         
+        double value = moveValue(MoveCatalog.isStatus(moveId), MoveCatalog.getEffect(moveId),
+                                 MoveCatalog.getPower(moveId), MoveCatalog.getAccuracy(moveId),
+                                 MoveCatalog.getType(moveId), user, target);
+        
+        // Cache the result
+        moveEffectivenessCache.put(cacheKey, value);
+        
+        return value;
+    }
+    
+    /**
+     * Pack everything evaluateMove depends on into one key (never 0)
+     * - bits 0-10 move id + 1, 11-30 the four type codes, 31-46 and 47-62 user HP and
+     *   max HP (recovery moves only)
+     */
+    private static long moveKey(int moveId, PokemonView user, PokemonView target) {
+        long key = (moveId + 1)
+                 | ((long) TypeChart.code(user.getCurrentType1()) << 11)
+                 | ((long) TypeChart.code(user.getCurrentType2()) << 16)
+                 | ((long) TypeChart.code(target.getCurrentType1()) << 21)
+                 | ((long) TypeChart.code(target.getCurrentType2()) << 26);
+        if (MoveCatalog.getEffect(moveId) == MoveCatalog.EFFECT_RECOVERY) {
+            key |= ((long) (user.getCurrentStat(Stat.HP) & 0xFFFF) << 31)
+                 | ((long) (user.getBaseStat(Stat.HP) & 0xFFFF) << 47);
+        }
+        return key;
+    }
+    
+    /**
+     * Value of a move from its metadata (see MoveCatalog)
+     */
+    private static double moveValue(boolean status, byte effect, int power, int accuracy, Type moveType,
+                                    PokemonView user, PokemonView target) {
         double value = 0.0;
         
         // Status moves evaluation (no direct damage)
-        if (move.getCategory() != null && move.getCategory().toString().equals("STATUS")) {
-            // Stat boosting moves
-            if (move.getName().contains("Sharpen") || 
-                move.getName().contains("Growth") ||
-                move.getName().contains("Swords Dance")) {
-                value += 60.0;
-            }
-            
-            // Focus Energy is good for critical hits
-            else if (move.getName().contains("Focus Energy")) {
-                value += 40.0;
-            }
-            
-            // Recovery moves
-            else if (move.getName().contains("Recover") || 
-                     move.getName().contains("Rest")) {
-                // More valuable when HP is low
-                double hpRatio = (double) user.getCurrentStat(Stat.HP) / user.getBaseStat(Stat.HP);
-                value += 80.0 * (1.0 - hpRatio);
+        if (status) {
+            switch (effect) {
+                // Stat boosting moves
+                case MoveCatalog.EFFECT_STAT_BOOST:
+                    value += 60.0;
+                    break;
+                // Focus Energy is good for critical hits
+                case MoveCatalog.EFFECT_FOCUS_ENERGY:
+                    value += 40.0;
+                    break;
+                // Recovery moves, more valuable when HP is low
+                case MoveCatalog.EFFECT_RECOVERY:
+                    double hpRatio = (double) user.getCurrentStat(Stat.HP) / user.getBaseStat(Stat.HP);
+                    value += 80.0 * (1.0 - hpRatio);
+                    break;
+                // Status-inducing moves
+                case MoveCatalog.EFFECT_STATUS:
+                    value += 50.0;
+                    break;
+                default:
+                    break;
             }
-            
-            // Status-inducing moves
-            else if (move.getName().contains("Sleep") || 
-                     move.getName().contains("Paralyze") ||
-                     move.getName().contains("Poison")) {
-                value += 50.0;
-            }
-            
-            // Cache and return for status moves
-            moveEffectivenessCache.put(cacheKey, value);
             return value;
         }
         
         // Base power calculation for damage moves
-        if (move.getPower() != null) {
-            value += move.getPower();
+        if (power != MoveCatalog.NONE) {
+            value += power;
             
             // Accuracy adjustment
-            if (move.getAccuracy() != null) {
-                value *= (move.getAccuracy() / 100.0);
+            if (accuracy != MoveCatalog.NONE) {
+                value *= (accuracy / 100.0);
             }
             
             // Apply STAB (Same Type Attack Bonus)
-            if (move.getType() == user.getCurrentType1() || 
-                (user.getCurrentType2() != null && move.getType() == user.getCurrentType2())) {
+            if (moveType == user.getCurrentType1() || 
+                (user.getCurrentType2() != null && moveType == user.getCurrentType2())) {
                 value *= 1.5; // 50% bonus
             }
             
             // Apply type effectiveness
-            double typeEffectiveness = calculateTypeEffectiveness(move.getType(), target.getCurrentType1(), target.getCurrentType2());
-            value *= typeEffectiveness;
+            Type targetType1 = target.getCurrentType1();
+            Type targetType2 = target.getCurrentType2();
+            value *= TypeChart.get(moveType, targetType1, targetType2);
             
             // Special cases for certain types
-            if (target.getCurrentType1() == Type.ROCK || target.getCurrentType2() == Type.ROCK) {
-                if (move.getType() == Type.WATER || move.getType() == Type.GRASS) {
+            if (targetType1 == Type.ROCK || targetType2 == Type.ROCK) {
+                if (moveType == Type.WATER || moveType == Type.GRASS) {
                     value *= 1.2; // Extra bonus against Rock types
                 }
             }
             
-            if (target.getCurrentType1() == Type.DRAGON || target.getCurrentType2() == Type.DRAGON) {
-                if (move.getType() == Type.ICE) {
+            if (targetType1 == Type.DRAGON || targetType2 == Type.DRAGON) {
+                if (moveType == Type.ICE) {
                     value *= 1.3; // Extra bonus against Dragon types
                 }
             }
         }
         
-        // Cache the result
-        moveEffectivenessCache.put(cacheKey, value);
-        
         return value;
     }
 }
\ No newline at end of file
@@ -0,0 +1,164 @@
+package src.pas.pokemon.agents;
+
+/**
+ * The terms of UtilityCalculator.calculateUtility for one state, kept on the GameNode
+ * - A child derives its terms from its parent's: type advantage is only recomputed when an
+ *   active Pokémon's types change (a switch), status advantage only when a status or
+ *   volatile flag changes; everything else is O(1) from the snapshot's team totals
+ * - utility() gives exactly calculateUtility's value (same terms, same arithmetic)
+ */
+public final class UtilityFeatures {
+
+    private final BattleSnapshot state;
+    private final int myTeamIdx;
+    private final long typesKey;           // Active types of both teams
+    private final long conditionKey;       // Active status and flags of both teams
+    private final double typeAdvantage;
+    private final double statusAdvantage;
+    private volatile double utility = Double.NaN;
+
+    private UtilityFeatures(BattleSnapshot state, int myTeamIdx, long typesKey, long conditionKey,
+                            double typeAdvantage, double statusAdvantage) {
+        this.state = state;
+        this.myTeamIdx = myTeamIdx;
+        this.typesKey = typesKey;
+        this.conditionKey = conditionKey;
+        this.typeAdvantage = typeAdvantage;
+        this.statusAdvantage = statusAdvantage;
+    }
+
+    /**
+     * Compute every term from scratch (root nodes)
+     */
+    public static UtilityFeatures of(BattleSnapshot state, int myTeamIdx) {
+        return new UtilityFeatures(state, myTeamIdx, typesKey(state), conditionKey(state),
+                                   typeAdvantage(state, myTeamIdx),
+                                   UtilityCalculator.calculateStatusEffectsAdvantage(state, myTeamIdx));
+    }
+
+    /**
+     * Terms for a child state, reusing the ones its outcome did not change
+     */
+    public UtilityFeatures derive(BattleSnapshot child) {
+        if (child == state) {
+            return this;
+        }
+        long childTypes = typesKey(child);
+        long childCondition = conditionKey(child);
+        return new UtilityFeatures(child, myTeamIdx, childTypes, childCondition,
+                                   childTypes == typesKey ? typeAdvantage : typeAdvantage(child, myTeamIdx),
+                                   childCondition == conditionKey ? statusAdvantage
+                                       : UtilityCalculator.calculateStatusEffectsAdvantage(child, myTeamIdx));
+    }
+
+    public BattleSnapshot getState() { return state; }
+
+    /**
+     * Utility of the state for our team, as calculateUtility(state, myTeamIdx) computes it
+     */
+    public double utility() {
+        double value = utility;
+        if (Double.isNaN(value)) {
+            value = compute();
+            utility = value;
+        }
+        return value;
+    }
+
+    private double compute() {
+        int opponentTeamIdx = 1 - myTeamIdx;
+        int myRemaining = state.getRemaining(myTeamIdx);
+        int oppRemaining = state.getRemaining(opponentTeamIdx);
+
+        // Game over
+        if (state.isOver()) {
+            if (oppRemaining == 0 && myRemaining > 0) {
+                return 10000.0;
+            } else if (myRemaining == 0 && oppRemaining > 0) {
+                return -10000.0;
+            } else {
+                return 0.0;
+            }
+        }
+
+        double hpRatio = hpRatio();
+        double pokemonCountAdvantage = countAdvantage();
+
+        // Same early returns as calculateUtility
+        if (hpRatio > 0.5 && pokemonCountAdvantage > 0.3) {
+            return 5.0 * hpRatio + 3.0 * pokemonCountAdvantage;
+        }
+        if (hpRatio < -0.5 && pokemonCountAdvantage < -0.3) {
+            return 5.0 * hpRatio + 3.0 * pokemonCountAdvantage;
+        }
+
+        double statMultipliersAdvantage = statAdvantage();
+        return 6.0 * hpRatio + 
+               3.0 * pokemonCountAdvantage +
+               2.0 * typeAdvantage + 
+               2.0 * statusAdvantage + 
+               1.5 * statMultipliersAdvantage;
+    }
+
+    // For batched scoring (see LeafBatch): the cached terms, and the memo
+
+    int getMyTeamIdx() { return myTeamIdx; }
+    boolean isOver() { return state.isOver(); }
+    double typeAdvantage() { return typeAdvantage; }
+    double statusAdvantage() { return statusAdvantage; }
+
+    /**
+     * The memoized utility, NaN if it has not been computed
+     */
+    double cachedUtility() { return utility; }
+
+    /**
+     * Memoize a utility computed elsewhere (a LeafBatch score, which is the same value)
+     */
+    void cacheUtility(double value) { utility = value; }
+
+    private double countAdvantage() {
+        int myRemaining = state.getRemaining(myTeamIdx);
+        int oppRemaining = state.getRemaining(1 - myTeamIdx);
+        return (myRemaining - oppRemaining) / (double)(myRemaining + oppRemaining);
+    }
+
+    private double statAdvantage() {
+        return UtilityCalculator.calculateSimplifiedStatMultipliersAdvantage(state, myTeamIdx);
+    }
+
+    /**
+     * calculateHPRatio, with the team sums read from the snapshot instead of looped over
+     */
+    private double hpRatio() {
+        int opponentTeamIdx = 1 - myTeamIdx;
+        double activeHPAdvantage = UtilityCalculator.getActiveHPRatio(state, myTeamIdx) -
+                                   UtilityCalculator.getActiveHPRatio(state, opponentTeamIdx);
+        if (Math.abs(activeHPAdvantage) > 0.4) {
+            return activeHPAdvantage;
+        }
+
+        double myTeamMaxHP = state.getAliveMaxHp(myTeamIdx);
+        double opponentTeamMaxHP = state.getAliveMaxHp(opponentTeamIdx);
+        double myTeamHPRatio = (myTeamMaxHP > 0) ? state.getAliveHp(myTeamIdx) / myTeamMaxHP : 0;
+        double opponentTeamHPRatio = (opponentTeamMaxHP > 0) ? state.getAliveHp(opponentTeamIdx) / opponentTeamMaxHP : 0;
+        double teamHPAdvantage = myTeamHPRatio - opponentTeamHPRatio;
+
+        return (0.7 * activeHPAdvantage) + (0.3 * teamHPAdvantage);
+    }
+
+    private static double typeAdvantage(BattleSnapshot state, int myTeamIdx) {
+        return UtilityCalculator.calculateTypeAdvantage(
+            state.getActiveType1(myTeamIdx), state.getActiveType2(myTeamIdx),
+            state.getActiveType1(1 - myTeamIdx), state.getActiveType2(1 - myTeamIdx)
+        );
+    }
+
+    private static long typesKey(BattleSnapshot state) {
+        return (state.getActiveTypesCode(0) & 0xFFFFFFFFL) | ((long) state.getActiveTypesCode(1) << 32);
+    }
+
+    private static long conditionKey(BattleSnapshot state) {
+        return (state.getActiveConditionCode(0) & 0xFFFFFFFFL) | ((long) state.getActiveConditionCode(1) << 32);
+    }
+}
@@ -0,0 +1,126 @@
+package src.pas.pokemon.agents;
+
+import edu.bu.pas.pokemon.core.Move.MoveView;
+import edu.bu.pas.pokemon.core.enums.NonVolatileStatus;
+
+import java.util.Random;
+
+/**
+ * 64-bit Zobrist hashing for search states
+ * - Keys come from a fixed seed so hashes are stable between runs
+ * - Each team's hashed features are packed into one long so a child
+ *   only XORs out the components that actually changed
+ */
+public final class ZobristHasher {
+
+    // Table sizes for the bounded components
+    private static final int TEAMS = 2;
+    private static final int HP_KEYS = 1024;
+    private static final int STATUS_KEYS = NonVolatileStatus.values().length;
+    private static final int REMAINING_KEYS = 8;
+
+    // Layout of a packed team feature word
+    private static final int HP_SHIFT = 32;
+    private static final int STATUS_SHIFT = 48;
+    private static final int REMAINING_SHIFT = 56;
+
+    private static final long[][] HP_TABLE = new long[TEAMS][HP_KEYS];
+    private static final long[][] STATUS_TABLE = new long[TEAMS][STATUS_KEYS];
+    private static final long[][] REMAINING_TABLE = new long[TEAMS][REMAINING_KEYS];
+    private static final long[] SPECIES_SALT = new long[TEAMS];
+    private static final long[] NODE_TYPE_TABLE = new long[GameNode.NodeType.values().length];
+    private static final long ODD_DEPTH_KEY;
+    private static final long MOVE_SALT;
+
+    static {
+        Random random = new Random(0x5EED_2B0B_15L);
+        for (int team = 0; team < TEAMS; team++) {
+            for (int i = 0; i < HP_KEYS; i++) HP_TABLE[team][i] = random.nextLong();
+            for (int i = 0; i < STATUS_KEYS; i++) STATUS_TABLE[team][i] = random.nextLong();
+            for (int i = 0; i < REMAINING_KEYS; i++) REMAINING_TABLE[team][i] = random.nextLong();
+            SPECIES_SALT[team] = random.nextLong();
+        }
+        for (int i = 0; i < NODE_TYPE_TABLE.length; i++) NODE_TYPE_TABLE[i] = random.nextLong();
+        ODD_DEPTH_KEY = random.nextLong();
+        MOVE_SALT = random.nextLong();
+    }
+
+    private ZobristHasher() {}
+
+    /**
+     * Pack the hashed features of a team (active species, active HP, active status
+     * and remaining count) into a single long
+     */
+    public static long packTeam(BattleSnapshot state, int team) {
+        int hp = Math.max(0, Math.min(state.getActiveHp(team), HP_KEYS - 1));
+        return (state.getActiveNameHash(team) & 0xFFFFFFFFL)
+             | ((long) hp << HP_SHIFT)
+             | ((long) state.getActiveStatus(team).ordinal() << STATUS_SHIFT)
+             | ((long) Math.min(state.getRemaining(team), REMAINING_KEYS - 1) << REMAINING_SHIFT);
+    }
+
+    /**
+     * Full Zobrist key of one team's packed features
+     */
+    public static long teamKey(int team, long packed) {
+        return speciesKey(team, packed)
+             ^ HP_TABLE[team][hpOf(packed)]
+             ^ STATUS_TABLE[team][statusOf(packed)]
+             ^ REMAINING_TABLE[team][remainingOf(packed)];
+    }
+
+    /**
+     * Update a state hash when one team's features change from oldPacked to newPacked
+     * - Only components that differ are XORed out and in
+     */
+    public static long updateTeam(long hash, int team, long oldPacked, long newPacked) {
+        if (oldPacked == newPacked) {
+            return hash;
+        }
+        if ((int) oldPacked != (int) newPacked) {
+            hash ^= speciesKey(team, oldPacked) ^ speciesKey(team, newPacked);
+        }
+        if (hpOf(oldPacked) != hpOf(newPacked)) {
+            hash ^= HP_TABLE[team][hpOf(oldPacked)] ^ HP_TABLE[team][hpOf(newPacked)];
+        }
+        if (statusOf(oldPacked) != statusOf(newPacked)) {
+            hash ^= STATUS_TABLE[team][statusOf(oldPacked)] ^ STATUS_TABLE[team][statusOf(newPacked)];
+        }
+        if (remainingOf(oldPacked) != remainingOf(newPacked)) {
+            hash ^= REMAINING_TABLE[team][remainingOf(oldPacked)] ^ REMAINING_TABLE[team][remainingOf(newPacked)];
+        }
+        return hash;
+    }
+
+    /**
+     * Key for the node-level context that is not part of the battle state:
+     * node type, depth parity (decides whose CHANCE node it is) and the move that led here
+     */
+    public static long nodeKey(GameNode.NodeType type, int depth, MoveView lastMove) {
+        long key = NODE_TYPE_TABLE[type.ordinal()];
+        if ((depth & 1) == 1) {
+            key ^= ODD_DEPTH_KEY;
+        }
+        if (lastMove != null) {
+            key ^= mix(lastMove.getName().hashCode() ^ MOVE_SALT);
+        }
+        return key;
+    }
+
+    private static long speciesKey(int team, long packed) {
+        return mix((int) packed ^ SPECIES_SALT[team]);
+    }
+
+    private static int hpOf(long packed) { return (int) ((packed >>> HP_SHIFT) & 0xFFFF); }
+    private static int statusOf(long packed) { return (int) ((packed >>> STATUS_SHIFT) & 0xFF); }
+    private static int remainingOf(long packed) { return (int) ((packed >>> REMAINING_SHIFT) & 0xFF); }
+
+    /**
+     * SplitMix64 finalizer, used for unbounded components like species and move names
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
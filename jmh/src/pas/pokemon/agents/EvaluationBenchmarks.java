@@ -0,0 +1,70 @@
+package src.pas.pokemon.agents;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Leaf evaluation and state keys, per state
+ * - calculateUtility: the full heuristic from a snapshot
+ * - deriveUtility: a child's terms derived from its parent's, then scored (what the search
+ *   does below the root)
+ * - stateKey: both teams' packed words and Zobrist keys
+ * - leafBatch: a batch of BATCH sibling states scored by LeafBatch (per batch, not per state)
+ * - Each call moves on to the next state, so no single state's branches get trained in
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class EvaluationBenchmarks {
+
+    private static final int BATCH = 16;
+
+    private final LeafBatch batch = new LeafBatch();
+    private int next = 0;
+
+    private int nextState() {
+        next = (next + 1) & (SnapshotState.STATES - 1);
+        return next;
+    }
+
+    @Benchmark
+    public double calculateUtility(SnapshotState states) {
+        return UtilityCalculator.calculateUtility(states.snapshots[nextState()], SnapshotState.MY_TEAM_IDX);
+    }
+
+    @Benchmark
+    public double deriveUtility(SnapshotState states) {
+        int i = nextState();
+        UtilityFeatures parent = states.features[(i + 1) & (SnapshotState.STATES - 1)];
+        return parent.derive(states.snapshots[i]).utility();
+    }
+
+    @Benchmark
+    public long stateKey(SnapshotState states) {
+        BattleSnapshot state = states.snapshots[nextState()];
+        return ZobristHasher.teamKey(0, ZobristHasher.packTeam(state, 0)) ^
+               ZobristHasher.teamKey(1, ZobristHasher.packTeam(state, 1));
+    }
+
+    @Benchmark
+    public double leafBatch(SnapshotState states) {
+        int first = nextState();
+        UtilityFeatures parent = states.features[first];
+        batch.clear();
+        for (int k = 0; k < BATCH; k++) {
+            batch.add(parent.derive(states.snapshots[(first + k) & (SnapshotState.STATES - 1)]));
+        }
+        double[] scores = batch.score();
+        double sum = 0.0;
+        for (int k = 0; k < BATCH; k++) {
+            sum += scores[k];
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,86 @@
+package src.pas.pokemon.agents;
+
+import edu.bu.pas.pokemon.core.enums.NonVolatileStatus;
+import edu.bu.pas.pokemon.core.enums.Type;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+
+/**
+ * Seeded synthetic battle states for the benchmarks, as BattleSnapshots
+ * - The benchmarks build no BattleViews (the agents only read the library's views, never
+ *   construct battles), so everything measured here works from snapshots; the paths that
+ *   need a BattleView (getChildren, evaluateMove, full searches) are timed in a real game
+ *   by TimeoutDiagnostic
+ * - phase sets how far the battle has gone: full teams at high HP early, a few fainted
+ *   mid-game, most fainted and low HP late
+ * - Six-Pokémon teams, searched for team 0
+ */
+@State(Scope.Benchmark)
+public class SnapshotState {
+
+    public static final int STATES = 64;                // Power of two, benchmarks cycle with a mask
+    public static final int MY_TEAM_IDX = 0;
+
+    private static final int TEAM_SIZE = 6;
+    private static final long SEED = 440L;
+
+    @Param({ "early", "mid", "late" })
+    public String phase;
+
+    BattleSnapshot[] snapshots;
+    UtilityFeatures[] features;
+
+    @Setup(Level.Trial)
+    public void build() {
+        Random random = new Random(SEED + phase.hashCode());
+        snapshots = new BattleSnapshot[STATES];
+        features = new UtilityFeatures[STATES];
+        for (int i = 0; i < STATES; i++) {
+            snapshots[i] = generate(random);
+            features[i] = UtilityFeatures.of(snapshots[i], MY_TEAM_IDX);
+        }
+    }
+
+    private BattleSnapshot generate(Random random) {
+        int fainted;
+        double minHp;
+        double maxHp;
+        switch (phase) {
+            case "early": fainted = 0;                     minHp = 0.7;  maxHp = 1.0; break;
+            case "mid":   fainted = random.nextInt(3);     minHp = 0.3;  maxHp = 1.0; break;
+            case "late":  fainted = 3 + random.nextInt(3); minHp = 0.05; maxHp = 0.6; break;
+            default:
+                throw new IllegalArgumentException("Unknown phase " + phase);
+        }
+
+        Type[] allTypes = Type.values();
+        int statuses = NonVolatileStatus.values().length;
+        int[][] hp = new int[2][TEAM_SIZE];
+        int[][] max = new int[2][TEAM_SIZE];
+        int[][] status = new int[2][TEAM_SIZE];
+        int[] active = new int[2];
+        int[][] stats = new int[2][3];
+        Type[][] types = new Type[2][2];
+        for (int t = 0; t < 2; t++) {
+            for (int i = 0; i < TEAM_SIZE; i++) {
+                max[t][i] = 150 + random.nextInt(250);
+                boolean down = i >= TEAM_SIZE - fainted;
+                hp[t][i] = down ? 0 : Math.max(1, (int) (max[t][i] * (minHp + random.nextDouble() * (maxHp - minHp))));
+                status[t][i] = (!down && random.nextInt(5) == 0) ? random.nextInt(statuses) : NonVolatileStatus.NONE.ordinal();
+            }
+            active[t] = random.nextInt(TEAM_SIZE - fainted);
+            for (int s = 0; s < 3; s++) {
+                stats[t][s] = 50 + random.nextInt(250);
+            }
+            types[t][0] = allTypes[random.nextInt(allTypes.length)];
+            types[t][1] = random.nextBoolean() ? allTypes[random.nextInt(allTypes.length)] : null;
+        }
+        return BattleSnapshot.of(hp, max, status, active, stats, types);
+    }
+}
@@ -0,0 +1,80 @@
+package src.pas.pokemon.agents;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The search's lookup tables: TranspositionTable probe/store and the PackedKeyMemo behind
+ * evaluateMove's memo
+ * - Keys are drawn from a fixed pool of KEYS random non-zero longs, half of them stored
+ *   up front, so probes and gets see a mix of hits and misses
+ * - memoGet and memoPut are what an evaluateMove call costs once its key is packed; their
+ *   gc.alloc.rate.norm must be 0 B/op (checked by gradle jmhAllocationCheck)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+public class TableBenchmarks {
+
+    private static final int KEYS = 1 << 12;
+    private static final int TABLE_ENTRIES = 1 << 14;
+
+    private final long[] keys = new long[KEYS];
+    private final TranspositionTable.Entry entry = new TranspositionTable.Entry();
+    private TranspositionTable table;
+    private PackedKeyMemo memo;
+    private int next = 0;
+
+    @Setup(Level.Trial)
+    public void fill() {
+        Random random = new Random(440L);
+        for (int i = 0; i < KEYS; i++) {
+            long key;
+            do {
+                key = random.nextLong();
+            } while (key == 0);
+            keys[i] = key;
+        }
+        table = new TranspositionTable(TABLE_ENTRIES);
+        memo = new PackedKeyMemo("benchmark", TABLE_ENTRIES);
+        for (int i = 0; i < KEYS; i += 2) {
+            table.store(keys[i], i, 3, TranspositionTable.EXACT, TranspositionTable.NO_MOVE);
+            memo.put(keys[i], i);
+        }
+    }
+
+    private long nextKey() {
+        next = (next + 1) & (KEYS - 1);
+        return keys[next];
+    }
+
+    @Benchmark
+    public double transpositionProbe() {
+        return table.probe(nextKey(), entry) ? entry.value : 0.0;
+    }
+
+    @Benchmark
+    public void transpositionStore() {
+        long key = nextKey();
+        table.store(key, next, next & 7, TranspositionTable.EXACT, TranspositionTable.NO_MOVE);
+    }
+
+    @Benchmark
+    public double memoGet() {
+        return memo.get(nextKey());
+    }
+
+    @Benchmark
+    public void memoPut() {
+        memo.put(nextKey(), next);
+    }
+}